@@ -0,0 +1,108 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-benchmarks
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.benchmarks;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import com.sigpwned.oauth4j.core.authorizer.DefaultOAuthHttpRequestAuthorizer;
+import com.sigpwned.oauth4j.core.model.OAuthAuthorizationRequest;
+import com.sigpwned.oauth4j.core.model.OAuthCredentials;
+import com.sigpwned.oauth4j.core.model.OAuthFormParameter;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.model.OAuthQueryParameter;
+
+/**
+ * Measures how batch authorization scales with the number of threads it may use. Compare each
+ * parallelism against the sequential benchmark, which authorizes the same batch one request at a
+ * time. Scaling is bounded by the cores actually available to the JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchAuthorizerBenchmark {
+  @Param({"1", "2", "4", "8"})
+  public int parallelism;
+
+  @Param({"10000"})
+  public int batchSize;
+
+  private ForkJoinPool pool;
+
+  private DefaultOAuthHttpRequestAuthorizer authorizer;
+
+  private List<OAuthAuthorizationRequest> batch;
+
+  @Setup
+  public void setup() {
+    pool = new ForkJoinPool(parallelism);
+    authorizer = new DefaultOAuthHttpRequestAuthorizer(
+        DefaultOAuthHttpRequestAuthorizer.DEFAULT_SIGNER,
+        DefaultOAuthHttpRequestAuthorizer.DEFAULT_OAUTH_VERSION_VALUE, pool);
+
+    batch = new ArrayList<>(batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      batch.add(OAuthAuthorizationRequest.of(
+          OAuthHttpRequest.of("POST", "https://api.twitter.com/1.1/statuses/update.json",
+              singletonList(OAuthQueryParameter.of("include_entities", "true")), emptyList(),
+              singletonList(OAuthFormParameter.of("status", "Queued tweet #" + i))),
+          OAuthCredentials.of("xvz1evFS4wEEPTGEFPHBog",
+              "kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw",
+              "370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb",
+              "LswwdoUaIvS8ltyTt5jkRh4J50vUPVVHtR2YPi5kE")));
+    }
+  }
+
+  @TearDown
+  public void teardown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public List<OAuthHttpRequest> authorizeAll() {
+    return authorizer.authorizeAll(batch);
+  }
+
+  @Benchmark
+  public List<OAuthHttpRequest> sequential() {
+    List<OAuthHttpRequest> result = new ArrayList<>(batch.size());
+    for (OAuthAuthorizationRequest request : batch)
+      result.add(authorizer.authorize(request.getRequest(), request.getCredentials()));
+    return result;
+  }
+}
@@ -0,0 +1,111 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-benchmarks
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.sigpwned.oauth4j.core.util.Encodings;
+
+/**
+ * Compares {@link Encodings#urlencode(String)}, which skips runs of unreserved bytes a word at a
+ * time, against the plain byte-at-a-time loop it replaced, across value sizes. The "text" values
+ * look like status text, with a space or punctuation every few words. The "token" values have
+ * nothing to encode at all, and the "json" values need escaping every few bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodingsBenchmark {
+  private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+  @Param({"64", "1024", "65536", "524288"})
+  public int size;
+
+  @Param({"token", "text", "json"})
+  public String kind;
+
+  private String value;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(size);
+    StringBuilder b = new StringBuilder(size + 64);
+    while (b.length() < size) {
+      switch (kind) {
+        case "token":
+          b.append((char) ('a' + random.nextInt(26)));
+          break;
+        case "text":
+          for (int i = 0, n = 2 + random.nextInt(8); i < n; i++)
+            b.append((char) ('a' + random.nextInt(26)));
+          b.append(random.nextInt(8) == 0 ? ", " : " ");
+          break;
+        case "json":
+          b.append("{\"k").append(random.nextInt(100)).append("\":[1,2,\"x\"]},");
+          break;
+        default:
+          throw new IllegalArgumentException("unknown kind " + kind);
+      }
+    }
+    b.setLength(size);
+    value = b.toString();
+  }
+
+  @Benchmark
+  public String urlencode() {
+    return Encodings.urlencode(value);
+  }
+
+  @Benchmark
+  public String urlencodeBytewise() {
+    byte[] bs = value.getBytes(StandardCharsets.UTF_8);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int i = 0; i < bs.length; i++) {
+      byte b = bs[i];
+      if ((b >= '0' && b <= '9') || (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || b == '-'
+          || b == '.' || b == '_' || b == '~') {
+        out.write(b);
+      } else {
+        out.write('%');
+        out.write(HEX[(b & 0xF0) >>> 4]);
+        out.write(HEX[b & 0x0F]);
+      }
+    }
+
+    return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,105 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-benchmarks
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.benchmarks;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.sigpwned.oauth4j.core.OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.model.OAuthFormParameter;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.model.OAuthQueryParameter;
+import com.sigpwned.oauth4j.core.signer.HmacSha1OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.signer.HmacSha256OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.signer.HmacSha512OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.util.OAuth;
+
+/**
+ * Compares the cost of the HMAC signature methods on a typical small request, both when the same
+ * credentials sign back to back and when every signature uses different credentials.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HmacSignerBenchmark {
+  @Param({OAuth.HMAC_SHA1_OAUTH_SIGNATURE_METHOD_VALUE,
+      OAuth.HMAC_SHA256_OAUTH_SIGNATURE_METHOD_VALUE,
+      OAuth.HMAC_SHA512_OAUTH_SIGNATURE_METHOD_VALUE})
+  public String signatureMethod;
+
+  private OAuthHttpRequestSigner signer;
+
+  private OAuthHttpRequest request;
+
+  private final String[] tokenSecrets = {"LswwdoUaIvS8ltyTt5jkRh4J50vUPVVHtR2YPi5kE",
+      "wUC1ecM1XrqIxeazpmSBvl5l0hvWdhZBQoxAgKsbT"};
+
+  private int counter;
+
+  @Setup
+  public void setup() {
+    switch (signatureMethod) {
+      case OAuth.HMAC_SHA1_OAUTH_SIGNATURE_METHOD_VALUE:
+        signer = HmacSha1OAuthHttpRequestSigner.INSTANCE;
+        break;
+      case OAuth.HMAC_SHA256_OAUTH_SIGNATURE_METHOD_VALUE:
+        signer = HmacSha256OAuthHttpRequestSigner.INSTANCE;
+        break;
+      case OAuth.HMAC_SHA512_OAUTH_SIGNATURE_METHOD_VALUE:
+        signer = HmacSha512OAuthHttpRequestSigner.INSTANCE;
+        break;
+      default:
+        throw new IllegalArgumentException(signatureMethod);
+    }
+
+    request = OAuthHttpRequest.of("POST", "https://api.twitter.com/1.1/statuses/update.json",
+        singletonList(OAuthQueryParameter.of("include_entities", "true")), emptyList(),
+        singletonList(
+            OAuthFormParameter.of("status", "Hello Ladies + Gentlemen, a signed OAuth request!")));
+  }
+
+  @Benchmark
+  public byte[] sameCredentials() {
+    return signer.sign(request, "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg", 1318622958L, "1.0",
+        "xvz1evFS4wEEPTGEFPHBog", "kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw",
+        "370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb", tokenSecrets[0]);
+  }
+
+  @Benchmark
+  public byte[] alternatingCredentials() {
+    return signer.sign(request, "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg", 1318622958L, "1.0",
+        "xvz1evFS4wEEPTGEFPHBog", "kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw",
+        "370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb", tokenSecrets[counter++ & 1]);
+  }
+}
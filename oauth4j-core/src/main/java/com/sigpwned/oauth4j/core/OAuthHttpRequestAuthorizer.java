@@ -19,13 +19,28 @@
  */
 package com.sigpwned.oauth4j.core;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import com.sigpwned.oauth4j.core.model.OAuthAuthorizationRequest;
+import com.sigpwned.oauth4j.core.model.OAuthConsumer;
+import com.sigpwned.oauth4j.core.model.OAuthCredentials;
+import com.sigpwned.oauth4j.core.model.OAuthHttpHeader;
 import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.util.Encodings;
+import com.sigpwned.oauth4j.core.util.OAuth;
 
 public interface OAuthHttpRequestAuthorizer {
   public static final String NO_TOKEN = null;
 
   public static final String NO_TOKEN_SECRET = null;
 
+  /**
+   * Returns a copy of the given request with an Authorization header. Any existing Authorization
+   * header is replaced, so re-authorizing a request, e.g., on retry, does not send two.
+   */
   public OAuthHttpRequest authorize(OAuthHttpRequest request, String consumerKey,
       String consumerSecret, String token, String tokenSecret);
 
@@ -33,4 +48,95 @@ public interface OAuthHttpRequestAuthorizer {
       String consumerSecret) {
     return authorize(request, consumerKey, consumerSecret, NO_TOKEN, NO_TOKEN_SECRET);
   }
+
+  /**
+   * Authorizes a request on behalf of the given consumer, e.g., from a
+   * {@link com.sigpwned.oauth4j.core.consumer.ConsumerRegistry}. Implementations may use the
+   * consumer's precomputed key material instead of encoding the key and secret again.
+   */
+  default OAuthHttpRequest authorize(OAuthHttpRequest request, OAuthConsumer consumer,
+      String token, String tokenSecret) {
+    return authorize(request, consumer.getConsumerKey(), consumer.getConsumerSecret(), token,
+        tokenSecret);
+  }
+
+  default OAuthHttpRequest authorize(OAuthHttpRequest request, OAuthConsumer consumer) {
+    return authorize(request, consumer, NO_TOKEN, NO_TOKEN_SECRET);
+  }
+
+  /**
+   * Authorizes a request whose body is not form-encoded using the oauth_body_hash extension. The
+   * body hash is the base64-encoded digest of the exact body bytes, computed with the hash function
+   * of the signature method, e.g., with {@link com.sigpwned.oauth4j.core.util.BodyHashes}. The
+   * request must not have form parameters.
+   *
+   * The default implementation authorizes a copy of the request with the body hash added to its
+   * query parameters, which are signed together with the protocol parameters. If the result has
+   * an OAuth Authorization header, then the body hash moves into that header with the other
+   * protocol parameters, and the request keeps its own query parameters. Otherwise, the body hash
+   * stays in the query, where this authorizer sends its protocol parameters.
+   *
+   * @see <a href=
+   *      "https://datatracker.ietf.org/doc/html/draft-eaton-oauth-bodyhash-00">https://datatracker.ietf.org/doc/html/draft-eaton-oauth-bodyhash-00</a>
+   */
+  default OAuthHttpRequest authorizeWithBodyHash(OAuthHttpRequest request, String oAuthBodyHash,
+      String consumerKey, String consumerSecret, String token, String tokenSecret) {
+    if (oAuthBodyHash == null)
+      throw new NullPointerException();
+    if (!request.getCompactFormParameters().isEmpty())
+      throw new IllegalArgumentException("body hash must not be used with form-encoded bodies");
+
+    OAuthHttpRequest signed = authorize(
+        new OAuthHttpRequest(request.getMethod(), request.getUrl(), request.getHeaders(),
+            request.getCompactQueryParameters().with(OAuth.OAUTH_BODY_HASH_NAME, oAuthBodyHash),
+            request.getCompactFormParameters()),
+        consumerKey, consumerSecret, token, tokenSecret);
+
+    Optional<OAuthHttpHeader> authorization = signed.getHeader("Authorization");
+    if (!authorization.isPresent() || !authorization.get().getValue().startsWith("OAuth "))
+      return signed;
+
+    String parameters = authorization.get().getValue().substring("OAuth ".length());
+    return new OAuthHttpRequest(signed.getMethod(), signed.getUrl(), signed.getHeaders(),
+        request.getCompactQueryParameters(), signed.getCompactFormParameters())
+            .withReplacedHeader(OAuthHttpHeader.of("Authorization",
+                "OAuth " + OAuth.OAUTH_BODY_HASH_NAME + "=\""
+                    + Encodings.urlencode(oAuthBodyHash) + "\", " + parameters));
+  }
+
+  /**
+   * As {@link #authorizeWithBodyHash(OAuthHttpRequest, String, String, String, String, String)},
+   * but on behalf of the given consumer. Implementations may use the consumer's precomputed key
+   * material instead of encoding the key and secret again.
+   */
+  default OAuthHttpRequest authorizeWithBodyHash(OAuthHttpRequest request, String oAuthBodyHash,
+      OAuthConsumer consumer, String token, String tokenSecret) {
+    return authorizeWithBodyHash(request, oAuthBodyHash, consumer.getConsumerKey(),
+        consumer.getConsumerSecret(), token, tokenSecret);
+  }
+
+  default OAuthHttpRequest authorize(OAuthHttpRequest request, OAuthCredentials credentials) {
+    return authorize(request, credentials.getConsumerKey(), credentials.getConsumerSecret(),
+        credentials.getToken(), credentials.getTokenSecret());
+  }
+
+  /**
+   * Authorizes each of the given requests with its credentials. The results are in the same order
+   * as the given requests. The default implementation authorizes the requests one at a time on the
+   * calling thread.
+   */
+  default List<OAuthHttpRequest> authorizeAll(Collection<OAuthAuthorizationRequest> requests) {
+    List<OAuthHttpRequest> result = new ArrayList<>(requests.size());
+    for (OAuthAuthorizationRequest request : requests)
+      result.add(authorize(request.getRequest(), request.getCredentials()));
+    return result;
+  }
+
+  /**
+   * Authorizes each of the given requests with its credentials, preserving encounter order. The
+   * default implementation authorizes lazily as the result is consumed.
+   */
+  default Stream<OAuthHttpRequest> authorizeAll(Stream<OAuthAuthorizationRequest> requests) {
+    return requests.map(r -> authorize(r.getRequest(), r.getCredentials()));
+  }
 }
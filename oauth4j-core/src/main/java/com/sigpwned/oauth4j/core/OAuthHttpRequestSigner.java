@@ -19,7 +19,9 @@
  */
 package com.sigpwned.oauth4j.core;
 
+import com.sigpwned.oauth4j.core.model.OAuthConsumer;
 import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.util.OAuth;
 
 public interface OAuthHttpRequestSigner {
   public String getOAuthSignatureMethod();
@@ -27,4 +29,36 @@ public interface OAuthHttpRequestSigner {
   public byte[] sign(OAuthHttpRequest request, String oAuthNonce, long oAuthTimestamp,
       String oAuthVersion, String consumerKey, String consumerSecret, String token,
       String tokenSecret);
+
+  /**
+   * Signs a request whose body is covered by the given oauth_body_hash, or by nothing if the body
+   * hash is null. The body hash is an OAuth protocol parameter, and protocol parameters are sorted
+   * into the signature base string together with the query parameters, so the default
+   * implementation signs a copy of the request with the body hash added to its query parameters.
+   * That gives the same signature as signing the body hash as a protocol parameter.
+   *
+   * @see <a href=
+   *      "https://datatracker.ietf.org/doc/html/draft-eaton-oauth-bodyhash-00">https://datatracker.ietf.org/doc/html/draft-eaton-oauth-bodyhash-00</a>
+   */
+  default byte[] sign(OAuthHttpRequest request, String oAuthNonce, long oAuthTimestamp,
+      String oAuthVersion, String consumerKey, String consumerSecret, String token,
+      String tokenSecret, String oAuthBodyHash) {
+    if (oAuthBodyHash != null)
+      request = new OAuthHttpRequest(request.getMethod(), request.getUrl(), request.getHeaders(),
+          request.getCompactQueryParameters().with(OAuth.OAUTH_BODY_HASH_NAME, oAuthBodyHash),
+          request.getCompactFormParameters());
+    return sign(request, oAuthNonce, oAuthTimestamp, oAuthVersion, consumerKey, consumerSecret,
+        token, tokenSecret);
+  }
+
+  /**
+   * Signs a request on behalf of the given consumer. Signers may use the consumer's pre-encoded key
+   * material to skip encoding work on every request.
+   */
+  default byte[] sign(OAuthHttpRequest request, String oAuthNonce, long oAuthTimestamp,
+      String oAuthVersion, OAuthConsumer consumer, String token, String tokenSecret,
+      String oAuthBodyHash) {
+    return sign(request, oAuthNonce, oAuthTimestamp, oAuthVersion, consumer.getConsumerKey(),
+        consumer.getConsumerSecret(), token, tokenSecret, oAuthBodyHash);
+  }
 }
@@ -0,0 +1,137 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.authorizer;
+
+import java.time.DateTimeException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+/**
+ * Tracks how far a provider's clock is from ours, so signed requests can carry a timestamp the
+ * provider will accept even when this host's clock has drifted. Feed it the Date header of each
+ * provider response with {@link #observe(String)}, and it keeps an exponentially weighted moving
+ * average of the offset.
+ *
+ * The Date header only has one-second resolution, and it is stamped somewhere in the middle of the
+ * round trip, so the estimate is only good to about a second. That is plenty, since providers
+ * typically allow several minutes of skew.
+ */
+public class ClockSkewEstimator {
+  /**
+   * How much weight each new observation gets
+   */
+  public static final double DEFAULT_SMOOTHING = 0.2;
+
+  private final double smoothing;
+  private volatile long offsetMillis;
+  private boolean observed;
+
+  public ClockSkewEstimator() {
+    this(DEFAULT_SMOOTHING);
+  }
+
+  public ClockSkewEstimator(double smoothing) {
+    if (!(smoothing > 0.0 && smoothing <= 1.0))
+      throw new IllegalArgumentException("smoothing must be in (0, 1]");
+    this.smoothing = smoothing;
+  }
+
+  /**
+   * Records the given HTTP Date header value, received just now. Unparseable values are ignored.
+   *
+   * @return true if the value was used, or false otherwise
+   */
+  public boolean observe(String date) {
+    Optional<Long> remoteMillis = parseDate(date);
+    if (remoteMillis.isEmpty())
+      return false;
+    observe(remoteMillis.get(), currentTimeMillis());
+    return true;
+  }
+
+  /**
+   * Folds one observation of the remote clock into the running estimate. The first observation
+   * sets the estimate directly.
+   */
+  public synchronized void observe(long remoteMillis, long localMillis) {
+    long sample = remoteMillis - localMillis;
+    if (observed) {
+      offsetMillis = Math.round(offsetMillis + smoothing * (sample - offsetMillis));
+    } else {
+      offsetMillis = sample;
+      observed = true;
+    }
+  }
+
+  /**
+   * Replaces the running estimate with the given HTTP Date header value, received just now, e.g.,
+   * after the provider rejects a timestamp. Unparseable values are ignored.
+   *
+   * @return true if the value was used, or false otherwise
+   */
+  public boolean correct(String date) {
+    Optional<Long> remoteMillis = parseDate(date);
+    if (remoteMillis.isEmpty())
+      return false;
+    correct(remoteMillis.get(), currentTimeMillis());
+    return true;
+  }
+
+  /**
+   * Replaces the running estimate with one observation of the remote clock
+   */
+  public synchronized void correct(long remoteMillis, long localMillis) {
+    offsetMillis = remoteMillis - localMillis;
+    observed = true;
+  }
+
+  /**
+   * @return the estimated remote clock minus the local clock, in milliseconds
+   */
+  public long getOffsetMillis() {
+    return offsetMillis;
+  }
+
+  /**
+   * @return the estimated current time on the remote clock, in epoch seconds
+   */
+  public long currentTimeSeconds() {
+    return Math.floorDiv(currentTimeMillis() + offsetMillis, 1000L);
+  }
+
+  /**
+   * test hook
+   */
+  protected long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+  /* default */ static Optional<Long> parseDate(String date) {
+    if (date == null)
+      return Optional.empty();
+    try {
+      return Optional.of(ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+          .toInstant().toEpochMilli());
+    } catch (DateTimeException e) {
+      return Optional.empty();
+    }
+  }
+}
@@ -19,20 +19,33 @@
  */
 package com.sigpwned.oauth4j.core.authorizer;
 
-import static java.util.stream.Collectors.joining;
 import java.security.SecureRandom;
-import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import com.sigpwned.oauth4j.core.OAuthHttpRequestAuthorizer;
 import com.sigpwned.oauth4j.core.OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.model.OAuthAuthorizationRequest;
+import com.sigpwned.oauth4j.core.model.OAuthConsumer;
+import com.sigpwned.oauth4j.core.model.OAuthCredentials;
 import com.sigpwned.oauth4j.core.model.OAuthHttpHeader;
 import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
 import com.sigpwned.oauth4j.core.signer.HmacSha1OAuthHttpRequestSigner;
 import com.sigpwned.oauth4j.core.util.Encodings;
 import com.sigpwned.oauth4j.core.util.OAuth;
-import com.sigpwned.oauth4j.core.util.Parameter;
 
 public class DefaultOAuthHttpRequestAuthorizer implements OAuthHttpRequestAuthorizer {
   public static final String DEFAULT_OAUTH_VERSION_VALUE = OAuth.ONE_DOT_OH_OAUTH_VERSION_VALUE;
@@ -40,19 +53,53 @@ public class DefaultOAuthHttpRequestAuthorizer implements OAuthHttpRequestAuthor
   public static final OAuthHttpRequestSigner DEFAULT_SIGNER =
       HmacSha1OAuthHttpRequestSigner.INSTANCE;
 
+  public static final Executor DEFAULT_EXECUTOR = ForkJoinPool.commonPool();
+
+  /**
+   * Batches smaller than this are authorized on the calling thread, since handing them off costs
+   * more than it saves.
+   */
+  public static final int MIN_PARALLEL_BATCH_SIZE = 64;
+
   public static final DefaultOAuthHttpRequestAuthorizer INSTANCE =
       new DefaultOAuthHttpRequestAuthorizer();
 
   private final OAuthHttpRequestSigner signer;
   private final String oAuthVersion;
+  private final Executor executor;
+  private final ClockSkewEstimator clockSkewEstimator;
 
   public DefaultOAuthHttpRequestAuthorizer() {
     this(DEFAULT_SIGNER, DEFAULT_OAUTH_VERSION_VALUE);
   }
 
   public DefaultOAuthHttpRequestAuthorizer(OAuthHttpRequestSigner signer, String oAuthVersion) {
+    this(signer, oAuthVersion, DEFAULT_EXECUTOR);
+  }
+
+  /**
+   * @param executor the executor to split {@link #authorizeAll(Collection) batch authorization}
+   *        across
+   */
+  public DefaultOAuthHttpRequestAuthorizer(OAuthHttpRequestSigner signer, String oAuthVersion,
+      Executor executor) {
+    this(signer, oAuthVersion, executor, new ClockSkewEstimator());
+  }
+
+  /**
+   * @param clockSkewEstimator corrects the timestamps this authorizer signs with, e.g., when fed
+   *        the Date headers of provider responses
+   */
+  public DefaultOAuthHttpRequestAuthorizer(OAuthHttpRequestSigner signer, String oAuthVersion,
+      Executor executor, ClockSkewEstimator clockSkewEstimator) {
+    if (executor == null)
+      throw new NullPointerException();
+    if (clockSkewEstimator == null)
+      throw new NullPointerException();
     this.signer = signer;
     this.oAuthVersion = oAuthVersion;
+    this.executor = executor;
+    this.clockSkewEstimator = clockSkewEstimator;
   }
 
   /**
@@ -69,61 +116,264 @@ public class DefaultOAuthHttpRequestAuthorizer implements OAuthHttpRequestAuthor
     return oAuthVersion;
   }
 
+  /**
+   * @return the executor
+   */
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * @return the clockSkewEstimator
+   */
+  public ClockSkewEstimator getClockSkewEstimator() {
+    return clockSkewEstimator;
+  }
+
   @Override
   public OAuthHttpRequest authorize(OAuthHttpRequest request, String consumerKey,
       String consumerSecret, String token, String tokenSecret) {
+    return authorize(request, consumerKey, consumerSecret, token, tokenSecret, null, now(),
+        nonce());
+  }
 
+  @Override
+  public OAuthHttpRequest authorize(OAuthHttpRequest request, OAuthConsumer consumer,
+      String token, String tokenSecret) {
     long timestamp = now();
+    String nonce = nonce();
+    byte[] signature = getSigner().sign(request, nonce, timestamp, getOAuthVersion(), consumer,
+        token, tokenSecret, null);
+    return authorized(request, consumer.getEncodedConsumerKey(), token, null, timestamp, nonce,
+        signature);
+  }
+
+  @Override
+  public OAuthHttpRequest authorizeWithBodyHash(OAuthHttpRequest request, String oAuthBodyHash,
+      String consumerKey, String consumerSecret, String token, String tokenSecret) {
+    if (oAuthBodyHash == null)
+      throw new NullPointerException();
+    if (!request.getCompactFormParameters().isEmpty())
+      throw new IllegalArgumentException("body hash must not be used with form-encoded bodies");
+    return authorize(request, consumerKey, consumerSecret, token, tokenSecret, oAuthBodyHash,
+        now(), nonce());
+  }
 
+  @Override
+  public OAuthHttpRequest authorizeWithBodyHash(OAuthHttpRequest request, String oAuthBodyHash,
+      OAuthConsumer consumer, String token, String tokenSecret) {
+    if (oAuthBodyHash == null)
+      throw new NullPointerException();
+    if (!request.getCompactFormParameters().isEmpty())
+      throw new IllegalArgumentException("body hash must not be used with form-encoded bodies");
+    long timestamp = now();
     String nonce = nonce();
+    byte[] signature = getSigner().sign(request, nonce, timestamp, getOAuthVersion(), consumer,
+        token, tokenSecret, oAuthBodyHash);
+    return authorized(request, consumer.getEncodedConsumerKey(), token, oAuthBodyHash, timestamp,
+        nonce, signature);
+  }
+
+  /**
+   * Splits the batch into chunks and authorizes the chunks in parallel on this authorizer's
+   * executor. Each chunk shares one clock read, draws all its nonces from the random source in one
+   * call, and runs on a single thread, so runs of requests with the same credentials reuse that
+   * thread's keyed signer state. Reading the clock per chunk rather than per batch keeps timestamps
+   * fresh even when a large batch takes a while.
+   */
+  @Override
+  public List<OAuthHttpRequest> authorizeAll(Collection<OAuthAuthorizationRequest> requests) {
+    OAuthAuthorizationRequest[] batch = requests.toArray(new OAuthAuthorizationRequest[0]);
+
+    if (batch.length < MIN_PARALLEL_BATCH_SIZE)
+      return Arrays.asList(authorizeChunk(batch, 0, batch.length));
+
+    int chunkCount = Math.min(batch.length / MIN_PARALLEL_BATCH_SIZE, 4 * parallelism());
+    int chunkSize = (batch.length + chunkCount - 1) / chunkCount;
 
+    List<CompletableFuture<OAuthHttpRequest[]>> chunks = new ArrayList<>(chunkCount);
+    for (int start = 0; start < batch.length; start += chunkSize) {
+      final int from = start;
+      final int to = Math.min(start + chunkSize, batch.length);
+      chunks.add(
+          CompletableFuture.supplyAsync(() -> authorizeChunk(batch, from, to), getExecutor()));
+    }
+
+    OAuthHttpRequest[] result = new OAuthHttpRequest[batch.length];
+    int offset = 0;
+    for (CompletableFuture<OAuthHttpRequest[]> chunk : chunks) {
+      OAuthHttpRequest[] signed;
+      try {
+        signed = chunk.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException)
+          throw (RuntimeException) e.getCause();
+        if (e.getCause() instanceof Error)
+          throw (Error) e.getCause();
+        throw e;
+      }
+      System.arraycopy(signed, 0, result, offset, signed.length);
+      offset = offset + signed.length;
+    }
+
+    return Arrays.asList(result);
+  }
+
+  /**
+   * Authorizes the stream lazily, one window at a time, as the result is consumed. Each window is
+   * authorized as one {@link #authorizeAll(Collection) batch}, and is large enough to keep every
+   * thread of the executor busy. So the stream may be infinite, but consuming the first result
+   * reads and signs a whole window of requests ahead.
+   */
+  @Override
+  public Stream<OAuthHttpRequest> authorizeAll(Stream<OAuthAuthorizationRequest> requests) {
+    final Iterator<OAuthAuthorizationRequest> source = requests.iterator();
+    final int windowSize = MIN_PARALLEL_BATCH_SIZE * 4 * parallelism();
+    Spliterator<OAuthHttpRequest> result = new Spliterators.AbstractSpliterator<OAuthHttpRequest>(
+        Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+      private Iterator<OAuthHttpRequest> window = Collections.emptyIterator();
+
+      @Override
+      public boolean tryAdvance(Consumer<? super OAuthHttpRequest> action) {
+        if (!window.hasNext()) {
+          List<OAuthAuthorizationRequest> batch = new ArrayList<>();
+          while (batch.size() < windowSize && source.hasNext())
+            batch.add(source.next());
+          if (batch.isEmpty())
+            return false;
+          window = authorizeAll(batch).iterator();
+        }
+        action.accept(window.next());
+        return true;
+      }
+    };
+    return StreamSupport.stream(result, false).onClose(requests::close);
+  }
+
+  private OAuthHttpRequest[] authorizeChunk(OAuthAuthorizationRequest[] batch, int from, int to) {
+    long timestamp = now();
+    String[] nonces = nonces(to - from);
+    OAuthHttpRequest[] result = new OAuthHttpRequest[to - from];
+    for (int i = from; i < to; i++) {
+      OAuthCredentials credentials = batch[i].getCredentials();
+      result[i - from] = authorize(batch[i].getRequest(), credentials.getConsumerKey(),
+          credentials.getConsumerSecret(), credentials.getToken(), credentials.getTokenSecret(),
+          null, timestamp, nonces[i - from]);
+    }
+    return result;
+  }
+
+  private int parallelism() {
+    if (getExecutor() instanceof ForkJoinPool)
+      return ((ForkJoinPool) getExecutor()).getParallelism();
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  private OAuthHttpRequest authorize(OAuthHttpRequest request, String consumerKey,
+      String consumerSecret, String token, String tokenSecret, String oAuthBodyHash,
+      long timestamp, String nonce) {
     byte[] signature = getSigner().sign(request, nonce, timestamp, getOAuthVersion(), consumerKey,
-        consumerSecret, token, tokenSecret);
-    String signatureString = Base64.getEncoder().encodeToString(signature);
-
-    List<Parameter> parameters = new ArrayList<>();
-    parameters.add(Parameter.of(OAuth.OAUTH_CONSUMER_KEY_NAME, consumerKey));
-    parameters.add(Parameter.of(OAuth.OAUTH_NONCE_NAME, nonce));
-    parameters.add(Parameter.of(OAuth.OAUTH_SIGNATURE_NAME, signatureString));
-    parameters.add(
-        Parameter.of(OAuth.OAUTH_SIGNATURE_METHOD_NAME, getSigner().getOAuthSignatureMethod()));
-    parameters.add(Parameter.of(OAuth.OAUTH_TIMESTAMP, Long.toString(timestamp)));
-    parameters.add(Parameter.of(OAuth.OAUTH_VERSION_NAME, getOAuthVersion()));
-    if (token != null)
-      parameters.add(Parameter.of(OAuth.OAUTH_TOKEN_NAME, token));
+        consumerSecret, token, tokenSecret, oAuthBodyHash);
+    return authorized(request, Encodings.urlencode(consumerKey), token, oAuthBodyHash, timestamp,
+        nonce, signature);
+  }
 
-    String authorization =
-        "OAuth "
-            + parameters
-                .stream().sorted().map(p -> String.format("%s=\"%s\"",
-                    Encodings.urlencode(p.getKey()), Encodings.urlencode(p.getValue())))
-                .collect(joining(", "));
+  /**
+   * Returns a copy of the request with the Authorization header for the given signature. The
+   * header's parameter names are fixed, so they are written in sorted order directly.
+   */
+  private OAuthHttpRequest authorized(OAuthHttpRequest request, String encodedConsumerKey,
+      String token, String oAuthBodyHash, long timestamp, String nonce, byte[] signature) {
+    StringBuilder authorization = new StringBuilder(256).append("OAuth ");
+    if (oAuthBodyHash != null)
+      appendParameter(authorization, OAuth.OAUTH_BODY_HASH_NAME,
+          Encodings.urlencode(oAuthBodyHash)).append(", ");
+    appendParameter(authorization, OAuth.OAUTH_CONSUMER_KEY_NAME, encodedConsumerKey)
+        .append(", ");
+    appendParameter(authorization, OAuth.OAUTH_NONCE_NAME, Encodings.urlencode(nonce))
+        .append(", ");
+    appendParameter(authorization, OAuth.OAUTH_SIGNATURE_NAME,
+        Encodings.urlencode(Base64.getEncoder().encodeToString(signature))).append(", ");
+    appendParameter(authorization, OAuth.OAUTH_SIGNATURE_METHOD_NAME,
+        Encodings.urlencode(getSigner().getOAuthSignatureMethod())).append(", ");
+    appendParameter(authorization, OAuth.OAUTH_TIMESTAMP, Long.toString(timestamp)).append(", ");
+    if (token != null)
+      appendParameter(authorization, OAuth.OAUTH_TOKEN_NAME, Encodings.urlencode(token))
+          .append(", ");
+    appendParameter(authorization, OAuth.OAUTH_VERSION_NAME,
+        Encodings.urlencode(getOAuthVersion()));
 
-    List<OAuthHttpHeader> headers = new ArrayList<>();
-    headers.addAll(request.getHeaders());
-    headers.add(OAuthHttpHeader.of("Authorization", authorization));
+    return request
+        .withReplacedHeader(OAuthHttpHeader.of("Authorization", authorization.toString()));
+  }
 
-    return OAuthHttpRequest.of(request.getMethod(), request.getUrl(), request.getQueryParameters(),
-        headers, request.getFormParameters());
+  private static StringBuilder appendParameter(StringBuilder out, String name,
+      String encodedValue) {
+    return out.append(name).append("=\"").append(encodedValue).append('"');
   }
 
   /**
    * test hook
+   * 
+   * @return the current time in epoch seconds, corrected for the provider's clock skew
    */
   protected long now() {
-    return Instant.now().toEpochMilli();
+    return getClockSkewEstimator().currentTimeSeconds();
   }
 
-  private static final SecureRandom RANDOM = new SecureRandom();
+  /**
+   * Created on first use rather than at class initialization, since seeding is slow and must not
+   * happen at native image build time, where the seed would be baked into the image
+   */
+  private static volatile SecureRandom random;
+
+  private static final int NONCE_LENGTH = 16;
+
+  private static SecureRandom random() {
+    SecureRandom result = random;
+    if (result == null) {
+      synchronized (DefaultOAuthHttpRequestAuthorizer.class) {
+        result = random;
+        if (result == null)
+          random = result = new SecureRandom();
+      }
+    }
+    return result;
+  }
 
   /**
    * test hook
    * 
-   * @return
+   * Draws the nonce for one request. Batches draw theirs from {@link #nonces(int)} instead, which
+   * does not call this method, so a subclass that customizes nonces must override both.
    */
   protected String nonce() {
-    byte[] nonce = new byte[16];
-    RANDOM.nextBytes(nonce);
+    byte[] nonce = new byte[NONCE_LENGTH];
+    random().nextBytes(nonce);
     return Base64.getEncoder().encodeToString(nonce);
   }
+
+  /**
+   * test hook
+   * 
+   * Draws the nonces for a batch. The nonces must be as unique as those from {@link #nonce()}, but
+   * this method does not call it, since one draw from the random source for the whole batch is
+   * much cheaper, so a subclass that customizes nonces must override both.
+   *
+   * @return count nonces drawn from the random source in a single call
+   */
+  protected String[] nonces(int count) {
+    byte[] randomness = new byte[NONCE_LENGTH * count];
+    random().nextBytes(randomness);
+
+    Base64.Encoder encoder = Base64.getEncoder();
+    byte[] nonce = new byte[NONCE_LENGTH];
+    String[] result = new String[count];
+    for (int i = 0; i < count; i++) {
+      System.arraycopy(randomness, i * NONCE_LENGTH, nonce, 0, NONCE_LENGTH);
+      result[i] = encoder.encodeToString(nonce);
+    }
+
+    return result;
+  }
 }
@@ -0,0 +1,103 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.consumer;
+
+import static java.util.Collections.unmodifiableMap;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import com.sigpwned.oauth4j.core.model.OAuthConsumer;
+
+/**
+ * Resolves consumer ids to {@link OAuthConsumer} handles. Lookups never lock: the registry
+ * publishes an immutable snapshot through a volatile field, and every change installs a new
+ * snapshot. Changes are serialized with each other, but not with lookups.
+ *
+ * To rotate a secret, register a new handle under the same id. Requests already being signed with
+ * the old handle finish with the old secret, and every later lookup sees the new one.
+ */
+public class ConsumerRegistry {
+  private volatile Map<String, OAuthConsumer> consumers;
+
+  public ConsumerRegistry() {
+    this.consumers = Map.of();
+  }
+
+  public Optional<OAuthConsumer> findConsumer(String id) {
+    if (id == null)
+      throw new NullPointerException();
+    return Optional.ofNullable(consumers.get(id));
+  }
+
+  /**
+   * @return an immutable snapshot of the registered consumers, by id
+   */
+  public Map<String, OAuthConsumer> getConsumers() {
+    return consumers;
+  }
+
+  /**
+   * Adds the given consumer, replacing any consumer already registered with the same id.
+   *
+   * @return the replaced consumer, if any
+   */
+  public synchronized Optional<OAuthConsumer> register(OAuthConsumer consumer) {
+    if (consumer == null)
+      throw new NullPointerException();
+    Map<String, OAuthConsumer> result = new HashMap<>(consumers);
+    OAuthConsumer previous = result.put(consumer.getId(), consumer);
+    consumers = unmodifiableMap(result);
+    return Optional.ofNullable(previous);
+  }
+
+  public OAuthConsumer register(String id, String consumerKey, String consumerSecret) {
+    OAuthConsumer result = OAuthConsumer.of(id, consumerKey, consumerSecret);
+    register(result);
+    return result;
+  }
+
+  /**
+   * @return the removed consumer, if any
+   */
+  public synchronized Optional<OAuthConsumer> unregister(String id) {
+    if (id == null)
+      throw new NullPointerException();
+    if (!consumers.containsKey(id))
+      return Optional.empty();
+    Map<String, OAuthConsumer> result = new HashMap<>(consumers);
+    OAuthConsumer previous = result.remove(id);
+    consumers = unmodifiableMap(result);
+    return Optional.of(previous);
+  }
+
+  /**
+   * Replaces all registered consumers with the given consumers in one step, e.g., after reloading
+   * configuration. Lookups see either the old set or the new set, never a mix.
+   */
+  public synchronized void reload(Collection<OAuthConsumer> consumers) {
+    Map<String, OAuthConsumer> result = new HashMap<>(consumers.size());
+    for (OAuthConsumer consumer : consumers) {
+      if (result.put(consumer.getId(), consumer) != null)
+        throw new IllegalArgumentException("duplicate consumer id " + consumer.getId());
+    }
+    this.consumers = unmodifiableMap(result);
+  }
+}
@@ -0,0 +1,304 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.flow;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import com.sigpwned.oauth4j.core.OAuthHttpRequestAuthorizer;
+import com.sigpwned.oauth4j.core.model.OAuthCredentials;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+
+/**
+ * A {@link Flow.Processor} that authorizes unsigned requests and publishes the signed requests.
+ * Requests are signed on the given executor, so no thread blocks waiting on a request to sign.
+ *
+ * The processor never requests more from upstream than its one subscriber has demanded, and never
+ * has more than maxInFlight requests requested but not yet delivered. When ordered, results are
+ * delivered in the order they arrived; otherwise they are delivered as soon as they are signed.
+ *
+ * If looking up credentials or signing fails, or if upstream fails, then the processor cancels
+ * upstream and fails downstream immediately, discarding any requests not yet delivered.
+ */
+public class OAuthHttpRequestAuthorizingProcessor
+    implements Flow.Processor<OAuthHttpRequest, OAuthHttpRequest> {
+  public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+
+  private final OAuthHttpRequestAuthorizer authorizer;
+  private final Function<OAuthHttpRequest, OAuthCredentials> credentials;
+  private final Executor executor;
+  private final int maxInFlight;
+  private final boolean ordered;
+
+  private final AtomicReference<Flow.Subscription> upstream;
+  private final AtomicReference<Flow.Subscriber<? super OAuthHttpRequest>> downstream;
+  private final AtomicReference<Throwable> error;
+  private final AtomicLong demand;
+  private final AtomicInteger signing;
+  private final AtomicInteger wip;
+  private final Queue<OAuthHttpRequest> unorderedResults;
+  private final ConcurrentMap<Long, OAuthHttpRequest> orderedResults;
+  private volatile boolean upstreamDone;
+  private volatile boolean cancelled;
+
+  /**
+   * Only touched by onNext, which the Flow spec guarantees is never called concurrently
+   */
+  private long nextSequence;
+
+  /**
+   * Only touched inside drain
+   */
+  private long nextDeliverySequence;
+  private long outstanding;
+  private boolean terminated;
+
+  public OAuthHttpRequestAuthorizingProcessor(OAuthHttpRequestAuthorizer authorizer,
+      Function<OAuthHttpRequest, OAuthCredentials> credentials, Executor executor) {
+    this(authorizer, credentials, executor, DEFAULT_MAX_IN_FLIGHT, true);
+  }
+
+  public OAuthHttpRequestAuthorizingProcessor(OAuthHttpRequestAuthorizer authorizer,
+      Function<OAuthHttpRequest, OAuthCredentials> credentials, Executor executor,
+      int maxInFlight, boolean ordered) {
+    if (authorizer == null)
+      throw new NullPointerException();
+    if (credentials == null)
+      throw new NullPointerException();
+    if (executor == null)
+      throw new NullPointerException();
+    if (maxInFlight < 1)
+      throw new IllegalArgumentException("maxInFlight must be positive");
+    this.authorizer = authorizer;
+    this.credentials = credentials;
+    this.executor = executor;
+    this.maxInFlight = maxInFlight;
+    this.ordered = ordered;
+    this.upstream = new AtomicReference<>();
+    this.downstream = new AtomicReference<>();
+    this.error = new AtomicReference<>();
+    this.demand = new AtomicLong();
+    this.signing = new AtomicInteger();
+    this.wip = new AtomicInteger();
+    this.unorderedResults = ordered ? null : new ConcurrentLinkedQueue<>();
+    this.orderedResults = ordered ? new ConcurrentHashMap<>() : null;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super OAuthHttpRequest> subscriber) {
+    if (subscriber == null)
+      throw new NullPointerException();
+    if (!downstream.compareAndSet(null, subscriber)) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        @Override
+        public void request(long n) {}
+
+        @Override
+        public void cancel() {}
+      });
+      subscriber.onError(new IllegalStateException("processor already has a subscriber"));
+      return;
+    }
+
+    subscriber.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(long n) {
+        if (n <= 0) {
+          fail(new IllegalArgumentException("non-positive request " + n));
+          return;
+        }
+        demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+        drain();
+      }
+
+      @Override
+      public void cancel() {
+        cancelled = true;
+        cancelUpstream();
+        drain();
+      }
+    });
+
+    drain();
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (subscription == null)
+      throw new NullPointerException();
+    if (!upstream.compareAndSet(null, subscription)) {
+      subscription.cancel();
+      return;
+    }
+    drain();
+  }
+
+  @Override
+  public void onNext(OAuthHttpRequest item) {
+    if (item == null)
+      throw new NullPointerException();
+    final long sequence = nextSequence++;
+    signing.incrementAndGet();
+    try {
+      executor.execute(() -> {
+        try {
+          OAuthHttpRequest signed = authorizer.authorize(item, credentials.apply(item));
+          if (ordered)
+            orderedResults.put(sequence, signed);
+          else
+            unorderedResults.add(signed);
+        } catch (Throwable e) {
+          // Even an Error must fail downstream, or ordered delivery waits forever for this slot
+          fail(e);
+        } finally {
+          signing.decrementAndGet();
+          drain();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      signing.decrementAndGet();
+      fail(e);
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    if (throwable == null)
+      throw new NullPointerException();
+    upstreamDone = true;
+    fail(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    upstreamDone = true;
+    drain();
+  }
+
+  private void fail(Throwable throwable) {
+    if (error.compareAndSet(null, throwable))
+      cancelUpstream();
+    drain();
+  }
+
+  private void cancelUpstream() {
+    Flow.Subscription subscription = upstream.get();
+    if (subscription != null && !upstreamDone) {
+      upstreamDone = true;
+      subscription.cancel();
+    }
+  }
+
+  /**
+   * Delivers results and requests more from upstream. Serialized with a work-in-progress counter,
+   * so only one thread at a time ever runs the body, and any call made while it runs causes another
+   * pass instead of being lost.
+   */
+  private void drain() {
+    if (wip.getAndIncrement() != 0)
+      return;
+
+    int missed = 1;
+    do {
+      Flow.Subscriber<? super OAuthHttpRequest> subscriber = downstream.get();
+      if (subscriber != null && !terminated) {
+        if (cancelled) {
+          terminated = true;
+          clear();
+        } else if (error.get() != null) {
+          terminated = true;
+          clear();
+          subscriber.onError(error.get());
+        } else {
+          deliver(subscriber);
+        }
+      }
+      missed = wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void deliver(Flow.Subscriber<? super OAuthHttpRequest> subscriber) {
+    long requested = demand.get();
+    long delivered = 0;
+    while (delivered != requested && !cancelled && error.get() == null) {
+      OAuthHttpRequest next = poll();
+      if (next == null)
+        break;
+      subscriber.onNext(next);
+      delivered = delivered + 1;
+    }
+
+    if (delivered != 0) {
+      outstanding = outstanding - delivered;
+      if (requested != Long.MAX_VALUE)
+        requested = demand.addAndGet(-delivered);
+    }
+
+    if (cancelled || error.get() != null) {
+      // Handled on the next pass, which the cancel or fail call that got us here guarantees
+      return;
+    }
+
+    if (upstreamDone && signing.get() == 0 && isEmpty()) {
+      terminated = true;
+      subscriber.onComplete();
+      return;
+    }
+
+    Flow.Subscription subscription = upstream.get();
+    if (subscription != null && !upstreamDone) {
+      long wanted = Math.min(requested, maxInFlight) - outstanding;
+      if (wanted > 0) {
+        outstanding = outstanding + wanted;
+        subscription.request(wanted);
+      }
+    }
+  }
+
+  private OAuthHttpRequest poll() {
+    if (ordered) {
+      OAuthHttpRequest result = orderedResults.remove(nextDeliverySequence);
+      if (result != null)
+        nextDeliverySequence = nextDeliverySequence + 1;
+      return result;
+    } else {
+      return unorderedResults.poll();
+    }
+  }
+
+  private boolean isEmpty() {
+    return ordered ? orderedResults.isEmpty() : unorderedResults.isEmpty();
+  }
+
+  private void clear() {
+    if (ordered)
+      orderedResults.clear();
+    else
+      unorderedResults.clear();
+  }
+}
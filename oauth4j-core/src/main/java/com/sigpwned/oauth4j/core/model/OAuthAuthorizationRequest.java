@@ -0,0 +1,85 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.model;
+
+import java.util.Objects;
+import com.sigpwned.oauth4j.core.annotation.Generated;
+
+/**
+ * An unsigned request paired with the credentials to authorize it with, for batch authorization.
+ */
+public class OAuthAuthorizationRequest {
+  public static OAuthAuthorizationRequest of(OAuthHttpRequest request,
+      OAuthCredentials credentials) {
+    return new OAuthAuthorizationRequest(request, credentials);
+  }
+
+  private final OAuthHttpRequest request;
+
+  private final OAuthCredentials credentials;
+
+  public OAuthAuthorizationRequest(OAuthHttpRequest request, OAuthCredentials credentials) {
+    if (request == null)
+      throw new NullPointerException();
+    if (credentials == null)
+      throw new NullPointerException();
+    this.request = request;
+    this.credentials = credentials;
+  }
+
+  /**
+   * @return the request
+   */
+  public OAuthHttpRequest getRequest() {
+    return request;
+  }
+
+  /**
+   * @return the credentials
+   */
+  public OAuthCredentials getCredentials() {
+    return credentials;
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(credentials, request);
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    OAuthAuthorizationRequest other = (OAuthAuthorizationRequest) obj;
+    return Objects.equals(credentials, other.credentials) && Objects.equals(request, other.request);
+  }
+
+  @Override
+  @Generated
+  public String toString() {
+    return "OAuthAuthorizationRequest [request=" + request + ", credentials=" + credentials + "]";
+  }
+}
@@ -0,0 +1,137 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.model;
+
+import java.util.Objects;
+import com.sigpwned.oauth4j.core.annotation.Generated;
+import com.sigpwned.oauth4j.core.util.Encodings;
+
+/**
+ * A consumer app we sign on behalf of, with its key and secret already encoded for signing. Create
+ * one handle per consumer and reuse it for every request, e.g., from a
+ * {@link com.sigpwned.oauth4j.core.consumer.ConsumerRegistry}, so the encoding work is done once.
+ * Handles are immutable; rotating a secret means creating a new handle.
+ */
+public class OAuthConsumer {
+  public static OAuthConsumer of(String id, String consumerKey, String consumerSecret) {
+    return new OAuthConsumer(id, consumerKey, consumerSecret);
+  }
+
+  private final String id;
+
+  private final String consumerKey;
+
+  private final String consumerSecret;
+
+  private final String encodedConsumerKey;
+
+  private final String encodedConsumerSecret;
+
+  /**
+   * The encoded consumer secret and the separator, i.e., the HMAC signing key minus the encoded
+   * token secret
+   */
+  private final String signingKeyPrefix;
+
+  public OAuthConsumer(String id, String consumerKey, String consumerSecret) {
+    if (id == null)
+      throw new NullPointerException();
+    if (consumerKey == null)
+      throw new NullPointerException();
+    if (consumerSecret == null)
+      throw new NullPointerException();
+    this.id = id;
+    this.consumerKey = consumerKey;
+    this.consumerSecret = consumerSecret;
+    this.encodedConsumerKey = Encodings.urlencode(consumerKey);
+    this.encodedConsumerSecret = Encodings.urlencode(consumerSecret);
+    this.signingKeyPrefix = encodedConsumerSecret + "&";
+  }
+
+  /**
+   * @return the id
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * @return the consumerKey
+   */
+  public String getConsumerKey() {
+    return consumerKey;
+  }
+
+  /**
+   * @return the consumerSecret
+   */
+  public String getConsumerSecret() {
+    return consumerSecret;
+  }
+
+  /**
+   * @return the consumerKey, percent-encoded
+   */
+  public String getEncodedConsumerKey() {
+    return encodedConsumerKey;
+  }
+
+  /**
+   * @return the consumerSecret, percent-encoded
+   */
+  public String getEncodedConsumerSecret() {
+    return encodedConsumerSecret;
+  }
+
+  /**
+   * @return the encoded consumerSecret followed by "&amp;"
+   */
+  public String getSigningKeyPrefix() {
+    return signingKeyPrefix;
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(consumerKey, consumerSecret, id);
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    OAuthConsumer other = (OAuthConsumer) obj;
+    return Objects.equals(consumerKey, other.consumerKey)
+        && Objects.equals(consumerSecret, other.consumerSecret) && Objects.equals(id, other.id);
+  }
+
+  /**
+   * Never prints the secret
+   */
+  @Override
+  public String toString() {
+    return "OAuthConsumer [id=" + id + ", consumerKey=" + consumerKey + "]";
+  }
+}
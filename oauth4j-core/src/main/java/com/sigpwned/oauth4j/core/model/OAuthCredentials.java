@@ -0,0 +1,113 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.model;
+
+import java.util.Objects;
+import com.sigpwned.oauth4j.core.annotation.Generated;
+
+/**
+ * The secrets needed to authorize one request. The token and token secret are null when the
+ * request is not made on behalf of a user, e.g., when fetching a request token.
+ */
+public class OAuthCredentials {
+  public static OAuthCredentials of(String consumerKey, String consumerSecret) {
+    return new OAuthCredentials(consumerKey, consumerSecret, null, null);
+  }
+
+  public static OAuthCredentials of(String consumerKey, String consumerSecret, String token,
+      String tokenSecret) {
+    return new OAuthCredentials(consumerKey, consumerSecret, token, tokenSecret);
+  }
+
+  private final String consumerKey;
+
+  private final String consumerSecret;
+
+  private final String token;
+
+  private final String tokenSecret;
+
+  public OAuthCredentials(String consumerKey, String consumerSecret, String token,
+      String tokenSecret) {
+    if (consumerKey == null)
+      throw new NullPointerException();
+    this.consumerKey = consumerKey;
+    this.consumerSecret = consumerSecret;
+    this.token = token;
+    this.tokenSecret = tokenSecret;
+  }
+
+  /**
+   * @return the consumerKey
+   */
+  public String getConsumerKey() {
+    return consumerKey;
+  }
+
+  /**
+   * @return the consumerSecret
+   */
+  public String getConsumerSecret() {
+    return consumerSecret;
+  }
+
+  /**
+   * @return the token
+   */
+  public String getToken() {
+    return token;
+  }
+
+  /**
+   * @return the tokenSecret
+   */
+  public String getTokenSecret() {
+    return tokenSecret;
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(consumerKey, consumerSecret, token, tokenSecret);
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    OAuthCredentials other = (OAuthCredentials) obj;
+    return Objects.equals(consumerKey, other.consumerKey)
+        && Objects.equals(consumerSecret, other.consumerSecret)
+        && Objects.equals(token, other.token) && Objects.equals(tokenSecret, other.tokenSecret);
+  }
+
+  /**
+   * Never prints the secrets
+   */
+  @Override
+  public String toString() {
+    return "OAuthCredentials [consumerKey=" + consumerKey + ", token=" + token + "]";
+  }
+}
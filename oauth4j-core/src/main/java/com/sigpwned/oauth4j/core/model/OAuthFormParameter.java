@@ -29,10 +29,11 @@ public class OAuthFormParameter {
     if (s.isEmpty())
       throw new IllegalArgumentException("empty");
 
-    String[] parts = s.split("=", 2);
+    int equals = s.indexOf('=');
 
-    String key = Encodings.urldecode(parts[0]);
-    String value = parts.length == 1 ? "" : Encodings.urldecode(parts[1]);
+    String key = Encodings.urldecodeForm(s, 0, equals == -1 ? s.length() : equals);
+    String value =
+        equals == -1 ? "" : Encodings.urldecodeForm(s, equals + 1, s.length() - equals - 1);
 
     return of(key, value);
   }
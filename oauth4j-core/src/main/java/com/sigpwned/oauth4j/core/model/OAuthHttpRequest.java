@@ -19,20 +19,48 @@
  */
 package com.sigpwned.oauth4j.core.model;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import com.sigpwned.oauth4j.core.annotation.Generated;
 
 public class OAuthHttpRequest {
+  public static final String GET_METHOD = "GET";
+
   public static final String POST_METHOD = "POST";
 
+  public static final String PUT_METHOD = "PUT";
+
+  public static final String DELETE_METHOD = "DELETE";
+
+  public static final String PATCH_METHOD = "PATCH";
+
+  public static final String HEAD_METHOD = "HEAD";
+
+  /**
+   * Requests with at most this many headers answer header lookups by scanning
+   */
+  private static final int MAX_SCANNED_HEADERS = 8;
+
   public static OAuthHttpRequest of(String method, String url,
       List<OAuthQueryParameter> queryParameters, List<OAuthHttpHeader> headers,
       List<OAuthFormParameter> formParameters) {
     return new OAuthHttpRequest(method, url, headers, queryParameters, formParameters);
   }
 
+  public static OAuthHttpRequest of(String method, String url, OAuthParameters queryParameters,
+      List<OAuthHttpHeader> headers, OAuthParameters formParameters) {
+    return new OAuthHttpRequest(method, url, headers, queryParameters, formParameters);
+  }
+
   private final String method;
 
   /**
@@ -42,12 +70,24 @@ public class OAuthHttpRequest {
 
   private final List<OAuthHttpHeader> headers;
 
-  private final List<OAuthQueryParameter> queryParameters;
+  private final OAuthParameters queryParameters;
+
+  private final OAuthParameters formParameters;
 
-  private final List<OAuthFormParameter> formParameters;
+  /**
+   * Headers by lowercase name, built on first use. Only used for requests with many headers; for
+   * the usual handful, a scan is cheaper than building the index.
+   */
+  private volatile Map<String, List<OAuthHttpHeader>> headerIndex;
 
   public OAuthHttpRequest(String method, String url, List<OAuthHttpHeader> headers,
       List<OAuthQueryParameter> queryParameters, List<OAuthFormParameter> formParameters) {
+    this(method, url, headers, OAuthParameters.ofQueryParameters(queryParameters),
+        OAuthParameters.ofFormParameters(formParameters));
+  }
+
+  public OAuthHttpRequest(String method, String url, List<OAuthHttpHeader> headers,
+      OAuthParameters queryParameters, OAuthParameters formParameters) {
     if (method == null)
       throw new NullPointerException();
     if (url == null)
@@ -61,8 +101,8 @@ public class OAuthHttpRequest {
     this.method = method;
     this.url = url;
     this.headers = unmodifiableList(headers);
-    this.queryParameters = unmodifiableList(queryParameters);
-    this.formParameters = unmodifiableList(formParameters);
+    this.queryParameters = queryParameters;
+    this.formParameters = formParameters;
   }
 
   /**
@@ -87,19 +127,114 @@ public class OAuthHttpRequest {
   }
 
   /**
-   * @return the queryParameters
+   * @return the first header with the given name, ignoring case, if any
+   */
+  public Optional<OAuthHttpHeader> getHeader(String name) {
+    if (name == null)
+      throw new NullPointerException();
+    if (headers.size() <= MAX_SCANNED_HEADERS) {
+      for (OAuthHttpHeader header : headers)
+        if (name.equalsIgnoreCase(header.getName()))
+          return Optional.of(header);
+      return Optional.empty();
+    }
+    List<OAuthHttpHeader> result = getHeaderIndex().get(name.toLowerCase(Locale.ROOT));
+    return result == null ? Optional.empty() : Optional.of(result.get(0));
+  }
+
+  /**
+   * @return all headers with the given name, ignoring case, in order
+   */
+  public List<OAuthHttpHeader> getHeaders(String name) {
+    if (name == null)
+      throw new NullPointerException();
+    if (headers.size() <= MAX_SCANNED_HEADERS) {
+      List<OAuthHttpHeader> result = null;
+      for (OAuthHttpHeader header : headers) {
+        if (name.equalsIgnoreCase(header.getName())) {
+          if (result == null)
+            result = new ArrayList<>(2);
+          result.add(header);
+        }
+      }
+      return result == null ? emptyList() : unmodifiableList(result);
+    }
+    return getHeaderIndex().getOrDefault(name.toLowerCase(Locale.ROOT), emptyList());
+  }
+
+  private Map<String, List<OAuthHttpHeader>> getHeaderIndex() {
+    Map<String, List<OAuthHttpHeader>> result = headerIndex;
+    if (result == null) {
+      Map<String, List<OAuthHttpHeader>> index = new HashMap<>();
+      for (OAuthHttpHeader header : headers)
+        index.computeIfAbsent(header.getName().toLowerCase(Locale.ROOT), k -> new ArrayList<>(1))
+            .add(header);
+      for (Map.Entry<String, List<OAuthHttpHeader>> e : index.entrySet())
+        e.setValue(unmodifiableList(e.getValue()));
+      // Racy single-check is fine here, since every thread computes the same immutable index
+      headerIndex = result = unmodifiableMap(index);
+    }
+    return result;
+  }
+
+  /**
+   * @return an unmodifiable view of the queryParameters
    */
   public List<OAuthQueryParameter> getQueryParameters() {
+    return queryParameters.asQueryParameters();
+  }
+
+  /**
+   * @return the queryParameters, without creating an object per parameter
+   */
+  public OAuthParameters getCompactQueryParameters() {
     return queryParameters;
   }
 
   /**
-   * @return the formParameters
+   * @return an unmodifiable view of the formParameters
    */
   public List<OAuthFormParameter> getFormParameters() {
+    return formParameters.asFormParameters();
+  }
+
+  /**
+   * @return the formParameters, without creating an object per parameter
+   */
+  public OAuthParameters getCompactFormParameters() {
     return formParameters;
   }
 
+  /**
+   * Returns a copy of this request with the given header added. The parameters are shared with
+   * this request, not copied.
+   */
+  public OAuthHttpRequest withHeader(OAuthHttpHeader header) {
+    if (header == null)
+      throw new NullPointerException();
+    OAuthHttpHeader[] result = headers.toArray(new OAuthHttpHeader[headers.size() + 1]);
+    result[result.length - 1] = header;
+    return new OAuthHttpRequest(method, url, Arrays.asList(result), queryParameters,
+        formParameters);
+  }
+
+  /**
+   * Returns a copy of this request with every header of the given header's name, ignoring case,
+   * replaced by the given header. The parameters are shared with this request, not copied.
+   */
+  public OAuthHttpRequest withReplacedHeader(OAuthHttpHeader header) {
+    if (header == null)
+      throw new NullPointerException();
+    if (getHeaders(header.getName()).isEmpty())
+      return withHeader(header);
+    List<OAuthHttpHeader> result = new ArrayList<>(headers.size());
+    for (OAuthHttpHeader h : headers)
+      if (!header.getName().equalsIgnoreCase(h.getName()))
+        result.add(h);
+    result.add(header);
+    return new OAuthHttpRequest(method, url, result, queryParameters, formParameters);
+  }
+
   @Override
   @Generated
   public int hashCode() {
@@ -122,19 +257,16 @@ public class OAuthHttpRequest {
   }
 
   @Override
-  @Generated
   public String toString() {
     final int maxLen = 10;
     return "OAuthHttpRequest [method=" + method + ", url=" + url + ", headers="
         + (headers != null ? headers.subList(0, Math.min(headers.size(), maxLen)) : null)
         + ", queryParameters="
-        + (queryParameters != null
-            ? queryParameters.subList(0, Math.min(queryParameters.size(), maxLen))
-            : null)
+        + (queryParameters != null ? getQueryParameters().subList(0,
+            Math.min(queryParameters.size(), maxLen)) : null)
         + ", formParameters="
-        + (formParameters != null
-            ? formParameters.subList(0, Math.min(formParameters.size(), maxLen))
-            : null)
+        + (formParameters != null ? getFormParameters().subList(0,
+            Math.min(formParameters.size(), maxLen)) : null)
         + "]";
   }
 }
@@ -0,0 +1,175 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.model;
+
+import java.util.Arrays;
+
+/**
+ * A mutable builder for {@link OAuthHttpRequest}. A builder can be {@link #reset() reset} and
+ * reused, so a busy thread can keep one around and build every request with it, allocating only
+ * the finished request. Builders are not thread-safe.
+ */
+public class OAuthHttpRequestBuilder {
+  private static final int DEFAULT_CAPACITY = 8;
+
+  /**
+   * Returns a builder initialized with the given request's contents, and with room for a few more
+   * headers and parameters.
+   */
+  public static OAuthHttpRequestBuilder from(OAuthHttpRequest template) {
+    OAuthParameters queryParameters = template.getCompactQueryParameters();
+    OAuthParameters formParameters = template.getCompactFormParameters();
+    OAuthHttpRequestBuilder result =
+        new OAuthHttpRequestBuilder(queryParameters.size() + DEFAULT_CAPACITY,
+            template.getHeaders().size() + DEFAULT_CAPACITY,
+            formParameters.size() + DEFAULT_CAPACITY);
+    result.method(template.getMethod()).url(template.getUrl());
+    for (int i = 0; i < queryParameters.size(); i++)
+      result.queryParameter(queryParameters.getKey(i), queryParameters.getValue(i));
+    for (OAuthHttpHeader header : template.getHeaders())
+      result.header(header);
+    for (int i = 0; i < formParameters.size(); i++)
+      result.formParameter(formParameters.getKey(i), formParameters.getValue(i));
+    return result;
+  }
+
+  private String method;
+  private String url;
+  private String[] queryParameters;
+  private int queryParametersLength;
+  private OAuthHttpHeader[] headers;
+  private int headersLength;
+  private String[] formParameters;
+  private int formParametersLength;
+
+  public OAuthHttpRequestBuilder() {
+    this(DEFAULT_CAPACITY, DEFAULT_CAPACITY, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a builder with room for the given numbers of query parameters, headers, and form
+   * parameters before it has to grow.
+   */
+  public OAuthHttpRequestBuilder(int queryParameterCapacity, int headerCapacity,
+      int formParameterCapacity) {
+    if (queryParameterCapacity < 0)
+      throw new IllegalArgumentException("queryParameterCapacity must not be negative");
+    if (headerCapacity < 0)
+      throw new IllegalArgumentException("headerCapacity must not be negative");
+    if (formParameterCapacity < 0)
+      throw new IllegalArgumentException("formParameterCapacity must not be negative");
+    this.queryParameters = new String[2 * queryParameterCapacity];
+    this.headers = new OAuthHttpHeader[headerCapacity];
+    this.formParameters = new String[2 * formParameterCapacity];
+  }
+
+  public OAuthHttpRequestBuilder method(String method) {
+    if (method == null)
+      throw new NullPointerException();
+    this.method = method;
+    return this;
+  }
+
+  public OAuthHttpRequestBuilder url(String url) {
+    if (url == null)
+      throw new NullPointerException();
+    this.url = url;
+    return this;
+  }
+
+  public OAuthHttpRequestBuilder queryParameter(String key, String value) {
+    if (key == null)
+      throw new NullPointerException();
+    if (value == null)
+      throw new NullPointerException();
+    if (queryParametersLength == queryParameters.length)
+      queryParameters = grow(queryParameters);
+    queryParameters[queryParametersLength++] = key;
+    queryParameters[queryParametersLength++] = value;
+    return this;
+  }
+
+  public OAuthHttpRequestBuilder header(String name, String value) {
+    return header(OAuthHttpHeader.of(name, value));
+  }
+
+  public OAuthHttpRequestBuilder header(OAuthHttpHeader header) {
+    if (header == null)
+      throw new NullPointerException();
+    if (headersLength == headers.length)
+      headers = Arrays.copyOf(headers, Math.max(DEFAULT_CAPACITY, 2 * headers.length));
+    headers[headersLength++] = header;
+    return this;
+  }
+
+  public OAuthHttpRequestBuilder formParameter(String key, String value) {
+    if (key == null)
+      throw new NullPointerException();
+    if (value == null)
+      throw new NullPointerException();
+    if (formParametersLength == formParameters.length)
+      formParameters = grow(formParameters);
+    formParameters[formParametersLength++] = key;
+    formParameters[formParametersLength++] = value;
+    return this;
+  }
+
+  /**
+   * Clears this builder so it can build another request. Keeps its capacity.
+   */
+  public OAuthHttpRequestBuilder reset() {
+    method = null;
+    url = null;
+    Arrays.fill(queryParameters, 0, queryParametersLength, null);
+    queryParametersLength = 0;
+    Arrays.fill(headers, 0, headersLength, null);
+    headersLength = 0;
+    Arrays.fill(formParameters, 0, formParametersLength, null);
+    formParametersLength = 0;
+    return this;
+  }
+
+  /**
+   * Builds the request. The request gets its own exactly-sized copies of this builder's contents,
+   * which it takes over as-is, so this builder can be reset and reused right away.
+   */
+  public OAuthHttpRequest build() {
+    if (method == null)
+      throw new IllegalStateException("no method");
+    if (url == null)
+      throw new IllegalStateException("no url");
+    return new OAuthHttpRequest(method, url,
+        Arrays.asList(Arrays.copyOf(headers, headersLength)),
+        OAuthParameters.ofPacked(Arrays.copyOf(queryParameters, queryParametersLength)),
+        OAuthParameters.ofPacked(Arrays.copyOf(formParameters, formParametersLength)));
+  }
+
+  /**
+   * Adds the given header and builds the request in one step, e.g., to add the Authorization
+   * header to a request that is otherwise ready.
+   */
+  public OAuthHttpRequest buildWithHeader(OAuthHttpHeader header) {
+    return header(header).build();
+  }
+
+  private static String[] grow(String[] packed) {
+    return Arrays.copyOf(packed, Math.max(2 * DEFAULT_CAPACITY, 2 * packed.length));
+  }
+}
@@ -0,0 +1,231 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable, ordered list of unencoded key/value pairs, e.g., the query or form parameters of a
+ * request. All keys and values live in one packed array, so a request with many parameters costs
+ * one object here instead of one object per parameter. The signer and the HTTP client adapters
+ * read this container directly; {@link #asQueryParameters()} and {@link #asFormParameters()} offer
+ * list views for everyone else.
+ */
+public final class OAuthParameters {
+  public static final OAuthParameters EMPTY = new OAuthParameters(new String[0]);
+
+  /**
+   * @param keysAndValues alternating keys and values, e.g., {@code of("a", "1", "b", "2")}
+   */
+  public static OAuthParameters of(String... keysAndValues) {
+    return of(keysAndValues, keysAndValues.length);
+  }
+
+  /**
+   * Copies the first length elements of the given array, e.g., a buffer that was filled only in
+   * part, without an intermediate copy.
+   *
+   * @param keysAndValues alternating keys and values
+   */
+  public static OAuthParameters of(String[] keysAndValues, int length) {
+    if (length < 0 || length > keysAndValues.length)
+      throw new IndexOutOfBoundsException(Integer.toString(length));
+    if (length % 2 != 0)
+      throw new IllegalArgumentException("keys and values must come in pairs");
+    if (length == 0)
+      return EMPTY;
+    String[] packed = Arrays.copyOf(keysAndValues, length);
+    for (int i = 0; i < packed.length; i++)
+      if (packed[i] == null)
+        throw new NullPointerException();
+    return new OAuthParameters(packed);
+  }
+
+  public static OAuthParameters ofQueryParameters(List<OAuthQueryParameter> queryParameters) {
+    if (queryParameters instanceof QueryParameterView)
+      return ((QueryParameterView) queryParameters).parameters;
+    if (queryParameters.isEmpty())
+      return EMPTY;
+    String[] packed = new String[2 * queryParameters.size()];
+    int index = 0;
+    for (OAuthQueryParameter queryParameter : queryParameters) {
+      packed[index++] = queryParameter.getKey();
+      packed[index++] = queryParameter.getValue();
+    }
+    return new OAuthParameters(packed);
+  }
+
+  public static OAuthParameters ofFormParameters(List<OAuthFormParameter> formParameters) {
+    if (formParameters instanceof FormParameterView)
+      return ((FormParameterView) formParameters).parameters;
+    if (formParameters.isEmpty())
+      return EMPTY;
+    String[] packed = new String[2 * formParameters.size()];
+    int index = 0;
+    for (OAuthFormParameter formParameter : formParameters) {
+      packed[index++] = formParameter.getKey();
+      packed[index++] = formParameter.getValue();
+    }
+    return new OAuthParameters(packed);
+  }
+
+  /**
+   * Takes ownership of the given array without copying it. The caller must never modify it again.
+   */
+  /* default */ static OAuthParameters ofPacked(String[] packed) {
+    return packed.length == 0 ? EMPTY : new OAuthParameters(packed);
+  }
+
+  /**
+   * Keys at even indexes, values at odd indexes. Never modified.
+   */
+  private final String[] packed;
+
+  private OAuthParameters(String[] packed) {
+    this.packed = packed;
+  }
+
+  public int size() {
+    return packed.length / 2;
+  }
+
+  public boolean isEmpty() {
+    return packed.length == 0;
+  }
+
+  /**
+   * @return the unencoded key of the parameter at the given index
+   */
+  public String getKey(int index) {
+    return packed[2 * checkIndex(index)];
+  }
+
+  /**
+   * @return the unencoded value of the parameter at the given index
+   */
+  public String getValue(int index) {
+    return packed[2 * checkIndex(index) + 1];
+  }
+
+  /**
+   * @return a new container with the given parameter appended
+   */
+  public OAuthParameters with(String key, String value) {
+    if (key == null)
+      throw new NullPointerException();
+    if (value == null)
+      throw new NullPointerException();
+    String[] result = Arrays.copyOf(packed, packed.length + 2);
+    result[packed.length] = key;
+    result[packed.length + 1] = value;
+    return new OAuthParameters(result);
+  }
+
+  /**
+   * @return an unmodifiable view of these parameters as query parameters. Elements are created on
+   *         access.
+   */
+  public List<OAuthQueryParameter> asQueryParameters() {
+    return new QueryParameterView(this);
+  }
+
+  /**
+   * @return an unmodifiable view of these parameters as form parameters. Elements are created on
+   *         access.
+   */
+  public List<OAuthFormParameter> asFormParameters() {
+    return new FormParameterView(this);
+  }
+
+  private int checkIndex(int index) {
+    if (index < 0 || index >= size())
+      throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size());
+    return index;
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(packed);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    OAuthParameters other = (OAuthParameters) obj;
+    return Arrays.equals(packed, other.packed);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder().append("OAuthParameters [");
+    for (int i = 0; i < size(); i++) {
+      if (i != 0)
+        result.append(", ");
+      result.append(getKey(i)).append('=').append(getValue(i));
+    }
+    return result.append(']').toString();
+  }
+
+  private static final class QueryParameterView extends AbstractList<OAuthQueryParameter>
+      implements RandomAccess {
+    private final OAuthParameters parameters;
+
+    public QueryParameterView(OAuthParameters parameters) {
+      this.parameters = parameters;
+    }
+
+    @Override
+    public OAuthQueryParameter get(int index) {
+      return OAuthQueryParameter.of(parameters.getKey(index), parameters.getValue(index));
+    }
+
+    @Override
+    public int size() {
+      return parameters.size();
+    }
+  }
+
+  private static final class FormParameterView extends AbstractList<OAuthFormParameter>
+      implements RandomAccess {
+    private final OAuthParameters parameters;
+
+    public FormParameterView(OAuthParameters parameters) {
+      this.parameters = parameters;
+    }
+
+    @Override
+    public OAuthFormParameter get(int index) {
+      return OAuthFormParameter.of(parameters.getKey(index), parameters.getValue(index));
+    }
+
+    @Override
+    public int size() {
+      return parameters.size();
+    }
+  }
+}
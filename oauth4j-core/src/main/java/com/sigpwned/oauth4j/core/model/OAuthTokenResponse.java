@@ -0,0 +1,131 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import com.sigpwned.oauth4j.core.annotation.Generated;
+import com.sigpwned.oauth4j.core.util.OAuth;
+
+/**
+ * The form-encoded body of a provider's response to a request token or access token request: the
+ * token and secret, if any, and every other field the provider sent, e.g., user_id or
+ * oauth_problem.
+ */
+public class OAuthTokenResponse {
+  public static final OAuthTokenResponse EMPTY = new OAuthTokenResponse(null, null,
+      OAuthParameters.EMPTY);
+
+  /**
+   * Splits the token and secret out of the given response fields
+   */
+  public static OAuthTokenResponse of(OAuthParameters parameters) {
+    String token = null;
+    String tokenSecret = null;
+    String[] extras = new String[2 * parameters.size()];
+    int length = 0;
+    for (int i = 0; i < parameters.size(); i++) {
+      String key = parameters.getKey(i);
+      if (token == null && key.equals(OAuth.OAUTH_TOKEN_NAME)) {
+        token = parameters.getValue(i);
+      } else if (tokenSecret == null && key.equals(OAuth.OAUTH_TOKEN_SECRET_NAME)) {
+        tokenSecret = parameters.getValue(i);
+      } else {
+        extras[length++] = key;
+        extras[length++] = parameters.getValue(i);
+      }
+    }
+    return new OAuthTokenResponse(token, tokenSecret, length == extras.length ? parameters
+        : OAuthParameters.ofPacked(Arrays.copyOf(extras, length)));
+  }
+
+  private final String token;
+  private final String tokenSecret;
+
+  /**
+   * Every field other than the token and secret, in the order the provider sent them
+   */
+  private final OAuthParameters extraParameters;
+
+  public OAuthTokenResponse(String token, String tokenSecret, OAuthParameters extraParameters) {
+    if (extraParameters == null)
+      throw new NullPointerException();
+    this.token = token;
+    this.tokenSecret = tokenSecret;
+    this.extraParameters = extraParameters;
+  }
+
+  /**
+   * @return the oauth_token, if the provider sent one
+   */
+  public Optional<String> getToken() {
+    return Optional.ofNullable(token);
+  }
+
+  /**
+   * @return the oauth_token_secret, if the provider sent one
+   */
+  public Optional<String> getTokenSecret() {
+    return Optional.ofNullable(tokenSecret);
+  }
+
+  /**
+   * @return the extraParameters
+   */
+  public OAuthParameters getExtraParameters() {
+    return extraParameters;
+  }
+
+  /**
+   * @return the value of the first extra field with the given name, if any
+   */
+  public Optional<String> getExtraParameter(String name) {
+    for (int i = 0; i < extraParameters.size(); i++)
+      if (extraParameters.getKey(i).equals(name))
+        return Optional.of(extraParameters.getValue(i));
+    return Optional.empty();
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(extraParameters, token, tokenSecret);
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    OAuthTokenResponse other = (OAuthTokenResponse) obj;
+    return Objects.equals(extraParameters, other.extraParameters)
+        && Objects.equals(token, other.token) && Objects.equals(tokenSecret, other.tokenSecret);
+  }
+
+  @Override
+  public String toString() {
+    return "OAuthTokenResponse [token=" + token + ", extraParameters=" + extraParameters + "]";
+  }
+}
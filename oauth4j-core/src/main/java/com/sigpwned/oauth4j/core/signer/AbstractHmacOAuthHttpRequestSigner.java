@@ -0,0 +1,195 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.signer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import com.sigpwned.oauth4j.core.model.OAuthConsumer;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.util.Encodings;
+
+/**
+ * Base class for the HMAC family of signature methods. Subclasses only choose the JCA algorithm and
+ * the OAuth signature method name.
+ *
+ * Signing is the hot path of every authorized request, so this class keeps one {@link Mac} per
+ * thread, skips re-keying it when consecutive signatures on a thread use the same secrets, and
+ * writes the signature base string into a reused per-thread buffer.
+ */
+public abstract class AbstractHmacOAuthHttpRequestSigner extends AbstractOAuthHttpRequestSigner {
+  /**
+   * Per-thread buffers larger than this are dropped after use so one huge request does not pin
+   * memory for the life of the thread.
+   */
+  private static final int MAX_RETAINED_BUFFER_LENGTH = 64 * 1024;
+
+  private final String algorithm;
+
+  private final ThreadLocal<HmacState> states;
+
+  protected AbstractHmacOAuthHttpRequestSigner(String algorithm) {
+    if (algorithm == null)
+      throw new NullPointerException();
+    this.algorithm = algorithm;
+    this.states = ThreadLocal.withInitial(() -> new HmacState(newMac()));
+  }
+
+  /**
+   * @return the JCA name of the HMAC algorithm, e.g., HmacSHA1
+   */
+  public String getAlgorithm() {
+    return algorithm;
+  }
+
+  protected byte[] computeSigningKey(String consumerSecret, String tokenSecret) {
+    return new StringBuilder().append(Encodings.urlencode(consumerSecret)).append("&")
+        .append(Encodings.urlencode(Optional.ofNullable(tokenSecret).orElse(""))).toString()
+        .getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Only the token secret needs encoding, since the consumer's part of the key is precomputed
+   */
+  protected byte[] computeSigningKey(OAuthConsumer consumer, String tokenSecret) {
+    return new StringBuilder().append(consumer.getSigningKeyPrefix())
+        .append(Encodings.urlencode(Optional.ofNullable(tokenSecret).orElse(""))).toString()
+        .getBytes(StandardCharsets.US_ASCII);
+  }
+
+  @Override
+  public byte[] sign(OAuthHttpRequest request, String oAuthNonce, long oAuthTimestamp,
+      String oAuthVersion, String consumerKey, String consumerSecret, String token,
+      String tokenSecret, String oAuthBodyHash) {
+    HmacState state = states.get();
+
+    StringBuilder buffer = state.buffer;
+    buffer.setLength(0);
+    appendSignatureBaseString(buffer, request, oAuthNonce, oAuthTimestamp, oAuthVersion,
+        consumerKey, token, oAuthBodyHash);
+
+    return sign(state, state.mac(consumerSecret, tokenSecret));
+  }
+
+  @Override
+  public byte[] sign(OAuthHttpRequest request, String oAuthNonce, long oAuthTimestamp,
+      String oAuthVersion, OAuthConsumer consumer, String token, String tokenSecret,
+      String oAuthBodyHash) {
+    HmacState state = states.get();
+
+    StringBuilder buffer = state.buffer;
+    buffer.setLength(0);
+    appendSignatureBaseString(buffer, request, oAuthNonce, oAuthTimestamp, oAuthVersion,
+        consumer, token, oAuthBodyHash);
+
+    return sign(state, state.mac(consumer, tokenSecret));
+  }
+
+  /**
+   * Signs the signature base string in the given state's buffer with the given, keyed Mac
+   */
+  private byte[] sign(HmacState state, Mac mac) {
+    StringBuilder buffer = state.buffer;
+
+    byte[] scratch = state.scratch;
+    for (int offset = 0, length = buffer.length(); offset < length; offset += scratch.length) {
+      int count = Math.min(scratch.length, length - offset);
+      for (int i = 0; i < count; i++)
+        scratch[i] = (byte) buffer.charAt(offset + i);
+      mac.update(scratch, 0, count);
+    }
+
+    if (buffer.capacity() > MAX_RETAINED_BUFFER_LENGTH)
+      state.buffer = new StringBuilder();
+
+    return mac.doFinal();
+  }
+
+  private Mac newMac() {
+    try {
+      return Mac.getInstance(getAlgorithm());
+    } catch (NoSuchAlgorithmException e) {
+      // Every JDK we support implements the HMAC algorithms we use
+      throw new AssertionError("Required algorithm is not supported", e);
+    }
+  }
+
+  /**
+   * The per-thread signing state. Only ever touched by its owning thread.
+   */
+  private final class HmacState {
+    private final Mac mac;
+    private final byte[] scratch;
+    private StringBuilder buffer;
+
+    /**
+     * Either the consumer secret String or the OAuthConsumer the Mac is keyed for
+     */
+    private Object consumer;
+    private String tokenSecret;
+    private boolean keyed;
+
+    public HmacState(Mac mac) {
+      this.mac = mac;
+      this.scratch = new byte[1024];
+      this.buffer = new StringBuilder();
+    }
+
+    /**
+     * Returns this thread's Mac, initialized with the signing key for the given secrets. Re-keying
+     * is skipped when the secrets match the previous call, since doFinal leaves the Mac ready for
+     * reuse with the same key.
+     */
+    public Mac mac(String consumerSecret, String tokenSecret) {
+      if (!keyed || !Objects.equals(this.consumer, consumerSecret)
+          || !Objects.equals(this.tokenSecret, tokenSecret))
+        rekey(consumerSecret, tokenSecret, computeSigningKey(consumerSecret, tokenSecret));
+      return mac;
+    }
+
+    /**
+     * As {@link #mac(String, String)}, but builds any new key from the consumer's precomputed
+     * signing key prefix. Consumers are compared by identity, since applications sign with one
+     * long-lived instance per consumer, and comparing their secrets would cost as much as the
+     * comparison is meant to save. An equal but different instance just costs a re-key.
+     */
+    public Mac mac(OAuthConsumer consumer, String tokenSecret) {
+      if (!keyed || this.consumer != consumer || !Objects.equals(this.tokenSecret, tokenSecret))
+        rekey(consumer, tokenSecret, computeSigningKey(consumer, tokenSecret));
+      return mac;
+    }
+
+    private void rekey(Object consumer, String tokenSecret, byte[] signingKey) {
+      try {
+        mac.init(new SecretKeySpec(signingKey, 0, signingKey.length, getAlgorithm()));
+      } catch (InvalidKeyException e) {
+        // They key and mac use the same value for the algorithm
+        throw new AssertionError("Mac impossibly does not support Key with same algorithm", e);
+      }
+      this.consumer = consumer;
+      this.tokenSecret = tokenSecret;
+      this.keyed = true;
+    }
+  }
+}
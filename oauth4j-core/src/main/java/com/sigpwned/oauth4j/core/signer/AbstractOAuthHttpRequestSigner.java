@@ -0,0 +1,148 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.signer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import com.sigpwned.oauth4j.core.OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.model.OAuthConsumer;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.model.OAuthParameters;
+import com.sigpwned.oauth4j.core.util.Encodings;
+import com.sigpwned.oauth4j.core.util.OAuth;
+
+/**
+ * Base class for signers. Owns the construction of the signature base string, which is the same for
+ * every signature method, without building intermediate parameter objects or strings.
+ */
+public abstract class AbstractOAuthHttpRequestSigner implements OAuthHttpRequestSigner {
+  @Override
+  public byte[] sign(OAuthHttpRequest request, String oAuthNonce, long oAuthTimestamp,
+      String oAuthVersion, String consumerKey, String consumerSecret, String token,
+      String tokenSecret) {
+    return sign(request, oAuthNonce, oAuthTimestamp, oAuthVersion, consumerKey, consumerSecret,
+        token, tokenSecret, null);
+  }
+
+  /**
+   * Implementations must support the body hash extension, i.e., a non-null body hash.
+   */
+  @Override
+  public abstract byte[] sign(OAuthHttpRequest request, String oAuthNonce, long oAuthTimestamp,
+      String oAuthVersion, String consumerKey, String consumerSecret, String token,
+      String tokenSecret, String oAuthBodyHash);
+
+  protected byte[] computeSignatureBaseString(OAuthHttpRequest request, String oAuthNonce,
+      long oAuthTimestamp, String oAuthVersion, String consumerKey, String token) {
+    return computeSignatureBaseString(request, oAuthNonce, oAuthTimestamp, oAuthVersion,
+        consumerKey, token, null);
+  }
+
+  protected byte[] computeSignatureBaseString(OAuthHttpRequest request, String oAuthNonce,
+      long oAuthTimestamp, String oAuthVersion, String consumerKey, String token,
+      String oAuthBodyHash) {
+    return appendSignatureBaseString(new StringBuilder(), request, oAuthNonce, oAuthTimestamp,
+        oAuthVersion, consumerKey, token, oAuthBodyHash).toString()
+            .getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Writes the signature base string for the given request to the given buffer. The result is
+   * always pure ASCII. The body hash is null if the request does not use the body hash extension.
+   */
+  protected StringBuilder appendSignatureBaseString(StringBuilder out, OAuthHttpRequest request,
+      String oAuthNonce, long oAuthTimestamp, String oAuthVersion, String consumerKey,
+      String token, String oAuthBodyHash) {
+    return appendSignatureBaseString0(out, request, oAuthNonce, oAuthTimestamp, oAuthVersion,
+        entry(OAuth.OAUTH_CONSUMER_KEY_NAME, consumerKey), token, oAuthBodyHash);
+  }
+
+  /**
+   * As {@link #appendSignatureBaseString(StringBuilder, OAuthHttpRequest, String, long, String,
+   * String, String, String)}, but uses the consumer's pre-encoded key.
+   */
+  protected StringBuilder appendSignatureBaseString(StringBuilder out, OAuthHttpRequest request,
+      String oAuthNonce, long oAuthTimestamp, String oAuthVersion, OAuthConsumer consumer,
+      String token, String oAuthBodyHash) {
+    return appendSignatureBaseString0(out, request, oAuthNonce, oAuthTimestamp, oAuthVersion,
+        OAuth.OAUTH_CONSUMER_KEY_NAME + ' ' + consumer.getEncodedConsumerKey(), token,
+        oAuthBodyHash);
+  }
+
+  private StringBuilder appendSignatureBaseString0(StringBuilder out, OAuthHttpRequest request,
+      String oAuthNonce, long oAuthTimestamp, String oAuthVersion, String consumerKeyEntry,
+      String token, String oAuthBodyHash) {
+    OAuthParameters queryParameters = request.getCompactQueryParameters();
+    OAuthParameters formParameters = request.getCompactFormParameters();
+
+    // Each entry is the encoded key and the encoded value separated by a space. The space sorts
+    // before every character an encoded string can contain, so sorting the entries sorts by key and
+    // then by value, exactly as the spec requires.
+    String[] entries = new String[queryParameters.size() + formParameters.size() + 7];
+    int size = 0;
+    for (int i = 0; i < queryParameters.size(); i++)
+      entries[size++] = entry(queryParameters.getKey(i), queryParameters.getValue(i));
+    for (int i = 0; i < formParameters.size(); i++)
+      entries[size++] = entry(formParameters.getKey(i), formParameters.getValue(i));
+    entries[size++] = consumerKeyEntry;
+    entries[size++] = entry(OAuth.OAUTH_NONCE_NAME, oAuthNonce);
+    entries[size++] = entry(OAuth.OAUTH_SIGNATURE_METHOD_NAME, getOAuthSignatureMethod());
+    entries[size++] = entry(OAuth.OAUTH_TIMESTAMP, Long.toString(oAuthTimestamp));
+    entries[size++] = entry(OAuth.OAUTH_VERSION_NAME, oAuthVersion);
+    if (token != null)
+      entries[size++] = entry(OAuth.OAUTH_TOKEN_NAME, token);
+    if (oAuthBodyHash != null)
+      entries[size++] = entry(OAuth.OAUTH_BODY_HASH_NAME, oAuthBodyHash);
+
+    Arrays.sort(entries, 0, size);
+
+    out.append(request.getMethod().toUpperCase()).append('&')
+        .append(Encodings.urlencode(request.getUrl())).append('&');
+    for (int i = 0; i < size; i++) {
+      if (i != 0)
+        out.append("%26");
+      String entry = entries[i];
+      int separator = entry.indexOf(' ');
+      appendReencoded(out, entry, 0, separator);
+      out.append("%3D");
+      appendReencoded(out, entry, separator + 1, entry.length());
+    }
+
+    return out;
+  }
+
+  private static String entry(String key, String value) {
+    return Encodings.urlencode(key) + ' ' + Encodings.urlencode(value);
+  }
+
+  /**
+   * Percent-encodes a string that is already percent-encoded. The only character in such a string
+   * that needs escaping is the percent sign itself.
+   */
+  private static void appendReencoded(StringBuilder out, String s, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char ch = s.charAt(i);
+      if (ch == '%')
+        out.append("%25");
+      else
+        out.append(ch);
+    }
+  }
+}
@@ -0,0 +1,234 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.signer;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.util.RsaKeys;
+
+/**
+ * Base class for the RSA family of signature methods. Per RFC 5849 section 3.4.3, these methods do
+ * not use the consumer secret or the token secret, so both are ignored. Instead, each signer signs
+ * with the private keys it owns: the keys registered with this signer under their consumer keys
+ * with {@link #registerPrivateKey(String, PrivateKey)}, falling back to the
+ * {@link PrivateKeyProvider} given at construction.
+ *
+ * Keys belong to the signer instance, not the process, so components that sign for the same
+ * consumer key with different keys should use different signers. RSA is expensive, so each thread
+ * keeps its own initialized {@link Signature} objects for signing and verifying.
+ */
+public abstract class AbstractRsaOAuthHttpRequestSigner extends AbstractOAuthHttpRequestSigner {
+  private final String algorithm;
+
+  private final PrivateKeyProvider privateKeyProvider;
+
+  private final ConcurrentMap<String, PrivateKey> privateKeys;
+
+  private final ConcurrentMap<String, PublicKey> publicKeys;
+
+  private final ThreadLocal<RsaState> states;
+
+  /**
+   * @param privateKeyProvider the source of private keys for consumers with no registered key
+   */
+  protected AbstractRsaOAuthHttpRequestSigner(String algorithm,
+      PrivateKeyProvider privateKeyProvider) {
+    if (algorithm == null)
+      throw new NullPointerException();
+    if (privateKeyProvider == null)
+      throw new NullPointerException();
+    this.algorithm = algorithm;
+    this.privateKeyProvider = privateKeyProvider;
+    this.privateKeys = new ConcurrentHashMap<>();
+    this.publicKeys = new ConcurrentHashMap<>();
+    this.states = ThreadLocal.withInitial(() -> new RsaState(newSignature(), newSignature()));
+  }
+
+  /**
+   * @return the JCA name of the signature algorithm, e.g., SHA1withRSA
+   */
+  public String getAlgorithm() {
+    return algorithm;
+  }
+
+  public void registerPrivateKey(String keyId, PrivateKey privateKey) {
+    if (keyId == null)
+      throw new NullPointerException();
+    if (privateKey == null)
+      throw new NullPointerException();
+    privateKeys.put(keyId, privateKey);
+  }
+
+  public void registerPrivateKey(String keyId, String pem) {
+    registerPrivateKey(keyId, RsaKeys.parsePrivateKey(pem));
+  }
+
+  public void registerPublicKey(String keyId, PublicKey publicKey) {
+    if (keyId == null)
+      throw new NullPointerException();
+    if (publicKey == null)
+      throw new NullPointerException();
+    publicKeys.put(keyId, publicKey);
+  }
+
+  public void registerPublicKey(String keyId, String pem) {
+    registerPublicKey(keyId, RsaKeys.parsePublicKey(pem));
+  }
+
+  /**
+   * Returns the private key registered for the given key id, or else the one the provider gives.
+   */
+  protected PrivateKey getPrivateKey(String keyId) {
+    PrivateKey result = privateKeys.get(keyId);
+    if (result == null)
+      result = privateKeyProvider.getPrivateKey(keyId)
+          .orElseThrow(() -> new IllegalArgumentException("no private key for " + keyId));
+    return result;
+  }
+
+  protected PublicKey getPublicKey(String keyId) {
+    PublicKey result = publicKeys.get(keyId);
+    if (result == null)
+      throw new IllegalArgumentException("no public key for " + keyId);
+    return result;
+  }
+
+  /**
+   * @param consumerSecret ignored
+   * @param tokenSecret ignored
+   */
+  @Override
+  public byte[] sign(OAuthHttpRequest request, String oAuthNonce, long oAuthTimestamp,
+      String oAuthVersion, String consumerKey, String consumerSecret, String token,
+      String tokenSecret, String oAuthBodyHash) {
+    PrivateKey privateKey = getPrivateKey(consumerKey);
+
+    byte[] signatureBase = computeSignatureBaseString(request, oAuthNonce, oAuthTimestamp,
+        oAuthVersion, consumerKey, token, oAuthBodyHash);
+
+    try {
+      Signature signature = states.get().signer(privateKey);
+      signature.update(signatureBase);
+      return signature.sign();
+    } catch (SignatureException e) {
+      // The signature is always initialized before use
+      throw new AssertionError("Signature impossibly not initialized", e);
+    }
+  }
+
+  /**
+   * Verifies a signature produced by the given consumer for the given request using the public key
+   * registered for that consumer. The request must be the request as sent, minus its Authorization
+   * header.
+   */
+  public boolean verify(OAuthHttpRequest request, String oAuthNonce, long oAuthTimestamp,
+      String oAuthVersion, String consumerKey, String token, byte[] signature) {
+    return verify(request, oAuthNonce, oAuthTimestamp, oAuthVersion, consumerKey,
+        getPublicKey(consumerKey), token, signature);
+  }
+
+  public boolean verify(OAuthHttpRequest request, String oAuthNonce, long oAuthTimestamp,
+      String oAuthVersion, String consumerKey, PublicKey publicKey, String token,
+      byte[] signature) {
+    return verify(request, oAuthNonce, oAuthTimestamp, oAuthVersion, consumerKey, publicKey, token,
+        null, signature);
+  }
+
+  /**
+   * @param oAuthBodyHash the oauth_body_hash the request was signed with, or null if none
+   */
+  public boolean verify(OAuthHttpRequest request, String oAuthNonce, long oAuthTimestamp,
+      String oAuthVersion, String consumerKey, PublicKey publicKey, String token,
+      String oAuthBodyHash, byte[] signature) {
+    byte[] signatureBase = computeSignatureBaseString(request, oAuthNonce, oAuthTimestamp,
+        oAuthVersion, consumerKey, token, oAuthBodyHash);
+
+    RsaState state = states.get();
+    Signature verifier = state.verifier(publicKey);
+    try {
+      verifier.update(signatureBase);
+      return verifier.verify(signature);
+    } catch (SignatureException e) {
+      // Thrown for malformed signatures, which certainly do not verify. The verifier may still hold
+      // the digest of this attempt, so force a fresh initialization next time.
+      state.publicKey = null;
+      return false;
+    }
+  }
+
+  private Signature newSignature() {
+    try {
+      return Signature.getInstance(getAlgorithm());
+    } catch (NoSuchAlgorithmException e) {
+      // The spec stipulates JDKs must implement the RSA algorithms we use
+      throw new AssertionError("Required algorithm is not supported", e);
+    }
+  }
+
+  /**
+   * The per-thread signing state. Only ever touched by its owning thread. A Signature returns to its
+   * initialized state after sign or verify, so it only needs to be re-initialized when the key
+   * changes.
+   */
+  private static final class RsaState {
+    private final Signature signer;
+    private final Signature verifier;
+    private PrivateKey privateKey;
+    private PublicKey publicKey;
+
+    public RsaState(Signature signer, Signature verifier) {
+      this.signer = signer;
+      this.verifier = verifier;
+    }
+
+    public Signature signer(PrivateKey privateKey) {
+      if (this.privateKey != privateKey) {
+        try {
+          signer.initSign(privateKey);
+        } catch (InvalidKeyException e) {
+          this.privateKey = null;
+          throw new IllegalArgumentException("invalid private key", e);
+        }
+        this.privateKey = privateKey;
+      }
+      return signer;
+    }
+
+    public Signature verifier(PublicKey publicKey) {
+      if (this.publicKey != publicKey) {
+        try {
+          verifier.initVerify(publicKey);
+        } catch (InvalidKeyException e) {
+          this.publicKey = null;
+          throw new IllegalArgumentException("invalid public key", e);
+        }
+        this.publicKey = publicKey;
+      }
+      return verifier;
+    }
+  }
+}
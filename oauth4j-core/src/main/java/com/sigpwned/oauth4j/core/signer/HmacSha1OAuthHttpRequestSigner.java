@@ -19,91 +19,20 @@
  */
 package com.sigpwned.oauth4j.core.signer;
 
-import static java.util.stream.Collectors.joining;
-import static java.util.stream.Collectors.toList;
-import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.Key;
-import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import com.sigpwned.oauth4j.core.OAuthHttpRequestSigner;
-import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
-import com.sigpwned.oauth4j.core.util.Encodings;
 import com.sigpwned.oauth4j.core.util.OAuth;
-import com.sigpwned.oauth4j.core.util.Parameter;
 
-public class HmacSha1OAuthHttpRequestSigner implements OAuthHttpRequestSigner {
+public class HmacSha1OAuthHttpRequestSigner extends AbstractHmacOAuthHttpRequestSigner {
   public static final HmacSha1OAuthHttpRequestSigner INSTANCE =
       new HmacSha1OAuthHttpRequestSigner();
 
-  @Override
-  public String getOAuthSignatureMethod() {
-    return OAuth.HMAC_SHA1_OAUTH_SIGNATURE_METHOD_VALUE;
-  }
-
-  protected byte[] computeSignatureBaseString(OAuthHttpRequest request, String oAuthNonce,
-      long oAuthTimestamp, String oAuthVersion, String consumerKey, String token) {
-    List<Parameter> parameters = new ArrayList<>();
-    parameters.addAll(
-        request.getQueryParameters().stream().map(Parameter::fromQueryParameter).collect(toList()));
-    parameters.addAll(
-        request.getFormParameters().stream().map(Parameter::fromFormParameter).collect(toList()));
-    parameters.add(Parameter.of(OAuth.OAUTH_CONSUMER_KEY_NAME, consumerKey));
-    parameters.add(Parameter.of(OAuth.OAUTH_NONCE_NAME, oAuthNonce));
-    parameters.add(Parameter.of(OAuth.OAUTH_SIGNATURE_METHOD_NAME, getOAuthSignatureMethod()));
-    parameters.add(Parameter.of(OAuth.OAUTH_TIMESTAMP, Long.toString(oAuthTimestamp)));
-    parameters.add(Parameter.of(OAuth.OAUTH_VERSION_NAME, oAuthVersion));
-    if (token != null)
-      parameters.add(Parameter.of(OAuth.OAUTH_TOKEN_NAME, token));
-
-    String parameterString =
-        parameters.stream().sorted().map(Objects::toString).collect(joining("&"));
-
-    return new StringBuilder().append(request.getMethod().toUpperCase()).append("&")
-        .append(Encodings.urlencode(request.getUrl())).append("&")
-        .append(Encodings.urlencode(parameterString)).toString()
-        .getBytes(StandardCharsets.US_ASCII);
-  }
+  private static final String ALGORITHM = "HmacSHA1";
 
-  protected byte[] computeSigningKey(String consumerSecret, String tokenSecret) {
-    return new StringBuilder().append(Encodings.urlencode(consumerSecret)).append("&")
-        .append(Encodings.urlencode(Optional.ofNullable(tokenSecret).orElse(""))).toString()
-        .getBytes(StandardCharsets.US_ASCII);
+  public HmacSha1OAuthHttpRequestSigner() {
+    super(ALGORITHM);
   }
 
-  private static final String ALGORITHM = "HmacSHA1";
-
   @Override
-  public byte[] sign(OAuthHttpRequest request, String oAuthNonce, long oAuthTimestamp,
-      String oAuthVersion, String consumerKey, String consumerSecret, String token,
-      String tokenSecret) {
-    byte[] signatureBase = computeSignatureBaseString(request, oAuthNonce, oAuthTimestamp,
-        oAuthVersion, consumerKey, token);
-
-    byte[] signingKey = computeSigningKey(consumerSecret, tokenSecret);
-
-    Key key = new SecretKeySpec(signingKey, 0, signingKey.length, ALGORITHM);
-
-    Mac mac;
-    try {
-      mac = Mac.getInstance(ALGORITHM);
-    } catch (NoSuchAlgorithmException e) {
-      // The spec stipulates JDKs must implement this algorithm
-      throw new AssertionError("Required algorithm is not supported", e);
-    }
-
-    try {
-      mac.init(key);
-    } catch (InvalidKeyException e) {
-      // They key and mac use the same value for the algorithm
-      throw new AssertionError("Mac impossibly does not support Key with same algorithm", e);
-    }
-
-    return mac.doFinal(signatureBase);
+  public String getOAuthSignatureMethod() {
+    return OAuth.HMAC_SHA1_OAUTH_SIGNATURE_METHOD_VALUE;
   }
 }
@@ -0,0 +1,38 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.signer;
+
+import com.sigpwned.oauth4j.core.util.OAuth;
+
+public class HmacSha512OAuthHttpRequestSigner extends AbstractHmacOAuthHttpRequestSigner {
+  public static final HmacSha512OAuthHttpRequestSigner INSTANCE =
+      new HmacSha512OAuthHttpRequestSigner();
+
+  private static final String ALGORITHM = "HmacSHA512";
+
+  public HmacSha512OAuthHttpRequestSigner() {
+    super(ALGORITHM);
+  }
+
+  @Override
+  public String getOAuthSignatureMethod() {
+    return OAuth.HMAC_SHA512_OAUTH_SIGNATURE_METHOD_VALUE;
+  }
+}
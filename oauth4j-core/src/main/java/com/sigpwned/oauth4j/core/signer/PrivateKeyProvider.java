@@ -0,0 +1,53 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.signer;
+
+import java.security.PrivateKey;
+import java.util.Optional;
+
+/**
+ * Supplies the private keys an RSA signer signs with, e.g., from a key store or a secrets manager.
+ * Each signer has its own provider, so components that sign for the same consumer key never see
+ * each other's keys.
+ */
+@FunctionalInterface
+public interface PrivateKeyProvider {
+  /**
+   * @return a provider that has no keys
+   */
+  public static PrivateKeyProvider empty() {
+    return consumerKey -> Optional.empty();
+  }
+
+  /**
+   * @return a provider that gives the given key for every consumer
+   */
+  public static PrivateKeyProvider of(PrivateKey privateKey) {
+    if (privateKey == null)
+      throw new NullPointerException();
+    Optional<PrivateKey> result = Optional.of(privateKey);
+    return consumerKey -> result;
+  }
+
+  /**
+   * @return the private key of the given consumer, or empty if this provider has none
+   */
+  public Optional<PrivateKey> getPrivateKey(String consumerKey);
+}
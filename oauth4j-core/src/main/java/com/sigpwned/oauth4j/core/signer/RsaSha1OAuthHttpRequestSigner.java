@@ -0,0 +1,50 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.signer;
+
+import java.security.PrivateKey;
+import com.sigpwned.oauth4j.core.util.OAuth;
+
+public class RsaSha1OAuthHttpRequestSigner extends AbstractRsaOAuthHttpRequestSigner {
+  private static final String ALGORITHM = "SHA1withRSA";
+
+  /**
+   * Creates a signer that signs only for the consumers whose keys are registered with it
+   */
+  public RsaSha1OAuthHttpRequestSigner() {
+    this(PrivateKeyProvider.empty());
+  }
+
+  /**
+   * Creates a signer that signs for every consumer with the given key
+   */
+  public RsaSha1OAuthHttpRequestSigner(PrivateKey privateKey) {
+    this(PrivateKeyProvider.of(privateKey));
+  }
+
+  public RsaSha1OAuthHttpRequestSigner(PrivateKeyProvider privateKeyProvider) {
+    super(ALGORITHM, privateKeyProvider);
+  }
+
+  @Override
+  public String getOAuthSignatureMethod() {
+    return OAuth.RSA_SHA1_OAUTH_SIGNATURE_METHOD_VALUE;
+  }
+}
@@ -0,0 +1,138 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Computes oauth_body_hash values incrementally, so bodies of any size can be hashed without ever
+ * holding the whole body on the heap.
+ *
+ * @see <a href=
+ *      "https://datatracker.ietf.org/doc/html/draft-eaton-oauth-bodyhash-00">https://datatracker.ietf.org/doc/html/draft-eaton-oauth-bodyhash-00</a>
+ */
+public final class BodyHashes {
+  private BodyHashes() {}
+
+  public static final String SHA1_DIGEST_ALGORITHM = "SHA-1";
+
+  public static final String SHA256_DIGEST_ALGORITHM = "SHA-256";
+
+  public static final String SHA512_DIGEST_ALGORITHM = "SHA-512";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Mapping a huge file in one region can exhaust address space on small hosts, so files are mapped
+   * in windows of at most this many bytes.
+   */
+  private static final long MAP_WINDOW_SIZE = 64L * 1024L * 1024L;
+
+  /**
+   * The body hash extension hashes the body with the hash function of the signature method.
+   */
+  public static String digestAlgorithm(String oAuthSignatureMethod) {
+    switch (oAuthSignatureMethod) {
+      case OAuth.HMAC_SHA1_OAUTH_SIGNATURE_METHOD_VALUE:
+      case OAuth.RSA_SHA1_OAUTH_SIGNATURE_METHOD_VALUE:
+        return SHA1_DIGEST_ALGORITHM;
+      case OAuth.HMAC_SHA256_OAUTH_SIGNATURE_METHOD_VALUE:
+      case OAuth.RSA_SHA256_OAUTH_SIGNATURE_METHOD_VALUE:
+        return SHA256_DIGEST_ALGORITHM;
+      case OAuth.HMAC_SHA512_OAUTH_SIGNATURE_METHOD_VALUE:
+        return SHA512_DIGEST_ALGORITHM;
+      default:
+        throw new IllegalArgumentException(
+            "no body hash algorithm for signature method " + oAuthSignatureMethod);
+    }
+  }
+
+  /**
+   * Hashes the remaining contents of the given stream. Does not close the stream.
+   */
+  public static String hash(String digestAlgorithm, InputStream in) throws IOException {
+    MessageDigest digest = newDigest(digestAlgorithm);
+    byte[] buf = new byte[BUFFER_SIZE];
+    for (int nread = in.read(buf); nread != -1; nread = in.read(buf))
+      digest.update(buf, 0, nread);
+    return encode(digest);
+  }
+
+  /**
+   * Hashes the remaining contents of the given buffer. Does not change the buffer's position.
+   */
+  public static String hash(String digestAlgorithm, ByteBuffer body) {
+    MessageDigest digest = newDigest(digestAlgorithm);
+    digest.update(body.duplicate());
+    return encode(digest);
+  }
+
+  /**
+   * Hashes the given region of the given file by memory-mapping it, so the contents never pass
+   * through the heap.
+   */
+  public static String hash(String digestAlgorithm, FileChannel channel, long position, long size)
+      throws IOException {
+    if (position < 0)
+      throw new IllegalArgumentException("negative position");
+    if (size < 0)
+      throw new IllegalArgumentException("negative size");
+
+    MessageDigest digest = newDigest(digestAlgorithm);
+    for (long offset = 0; offset < size; offset = offset + MAP_WINDOW_SIZE) {
+      long length = Math.min(MAP_WINDOW_SIZE, size - offset);
+      MappedByteBuffer window =
+          channel.map(FileChannel.MapMode.READ_ONLY, position + offset, length);
+      digest.update(window);
+    }
+
+    return encode(digest);
+  }
+
+  /**
+   * Hashes the whole given file by memory-mapping it.
+   */
+  public static String hash(String digestAlgorithm, Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return hash(digestAlgorithm, channel, 0L, channel.size());
+    }
+  }
+
+  private static MessageDigest newDigest(String digestAlgorithm) {
+    try {
+      return MessageDigest.getInstance(digestAlgorithm);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalArgumentException("unsupported digest algorithm " + digestAlgorithm, e);
+    }
+  }
+
+  private static String encode(MessageDigest digest) {
+    return Base64.getEncoder().encodeToString(digest.digest());
+  }
+}
@@ -19,15 +19,30 @@
  */
 package com.sigpwned.oauth4j.core.util;
 
-import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 public final class Encodings {
   private Encodings() {}
 
+  /**
+   * Reads eight bytes of a byte array as one long, so runs of unreserved bytes can be checked a
+   * word at a time instead of a byte at a time
+   */
+  private static final VarHandle LONGS =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private static final long ONES = 0x0101010101010101L;
+
+  private static final long HIGHS = 0x8080808080808080L;
+
   /**
    * URLEncode the given string. The characters 0-9, A-Z, a-z, "-", "_", ".", and "~" all stay the
-   * same. All other characters are percent encoded.
+   * same. All other characters are percent encoded. Returns the given string itself if it has
+   * nothing to encode.
    * 
    * @see <a href=
    *      "https://en.wikipedia.org/wiki/Percent-encoding">https://en.wikipedia.org/wiki/Percent-encoding</a>
@@ -35,20 +50,119 @@ public final class Encodings {
   public static String urlencode(String s) {
     byte[] bs = s.getBytes(StandardCharsets.UTF_8);
 
-    ByteArrayOutputStream out = new ByteArrayOutputStream();
-    for (int i = 0; i < bs.length; i++) {
-      byte b = bs[i];
-      if ((b >= '0' && b <= '9') || (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || b == '-'
-          || b == '.' || b == '_' || b == '~') {
-        out.write(b);
-      } else {
-        out.write('%');
-        out.write(urlencode((b & 0xF0) >>> 4));
-        out.write(urlencode(b & 0x0F));
+    int reserved = countReserved(bs);
+    if (reserved == 0)
+      return s;
+
+    // Each reserved byte grows by two, so we know exactly how much room we need
+    byte[] out = new byte[bs.length + 2 * reserved];
+    int count = 0;
+    for (int start = 0; start < bs.length;) {
+      int index = skipUnreserved(bs, start);
+      System.arraycopy(bs, start, out, count, index - start);
+      count = count + (index - start);
+      if (index < bs.length) {
+        byte b = bs[index];
+        out[count++] = '%';
+        out[count++] = urlencode((b & 0xF0) >>> 4);
+        out[count++] = urlencode(b & 0x0F);
+        index = index + 1;
       }
+      start = index;
     }
 
-    return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    return new String(out, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Returns the number of bytes in the given array that must be percent encoded
+   */
+  private static int countReserved(byte[] bs) {
+    int result = 0;
+    int i = 0;
+    for (int limit = bs.length - Long.BYTES; i <= limit; i = i + Long.BYTES)
+      result = result + Long.bitCount(reserved((long) LONGS.get(bs, i)));
+    for (; i < bs.length; i++)
+      if (!isUnreserved(bs[i]))
+        result = result + 1;
+    return result;
+  }
+
+  /**
+   * Returns the index of the first byte at or after the given index that must be percent encoded,
+   * or the length of the array if there is none
+   */
+  private static int skipUnreserved(byte[] bs, int index) {
+    int i = index;
+    for (int limit = bs.length - Long.BYTES; i <= limit; i = i + Long.BYTES) {
+      long reserved = reserved((long) LONGS.get(bs, i));
+      if (reserved != 0L)
+        return i + (Long.numberOfTrailingZeros(reserved) >>> 3);
+    }
+    while (i < bs.length && isUnreserved(bs[i]))
+      i = i + 1;
+    return i;
+  }
+
+  /**
+   * Returns a word with the high bit set in each byte of the given word that must be percent
+   * encoded, and all other bits clear. Non-ASCII bytes always need encoding, so each test below
+   * only has to handle bytes 0x00-0x7F, which keeps every lane's arithmetic from carrying into its
+   * neighbor.
+   */
+  private static long reserved(long w) {
+    long x = w & ~HIGHS;
+    long unreserved = between(x, '0', '9') | between(x, 'A', 'Z') | between(x, 'a', 'z')
+        | between(x, '-', '.') | equal(x, '_') | equal(x, '~');
+    return ~(unreserved & ~w) & HIGHS;
+  }
+
+  /**
+   * The high bit of each lane is set if lo &lt;= lane &lt;= hi
+   */
+  private static long between(long x, int lo, int hi) {
+    return (x + ONES * (0x80 - lo)) & ~(x + ONES * (0x7F - hi)) & HIGHS;
+  }
+
+  /**
+   * The high bit of each lane is set if lane == c
+   */
+  private static long equal(long x, int c) {
+    return ~((x ^ (ONES * c)) + ONES * 0x7F) & HIGHS;
+  }
+
+  private static boolean isUnreserved(byte b) {
+    return (b >= '0' && b <= '9') || (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || b == '-'
+        || b == '.' || b == '_' || b == '~';
+  }
+
+  /**
+   * Returns the length of {@code urlencode(s)} without building it, e.g., to report the content
+   * length of a body that will be encoded as it is sent.
+   */
+  public static long urlencodedLength(String s) {
+    long result = 0L;
+    for (int i = 0, length = s.length(); i < length; i++) {
+      char ch = s.charAt(i);
+      if ((ch >= '0' && ch <= '9') || (ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z')
+          || ch == '-' || ch == '.' || ch == '_' || ch == '~') {
+        result = result + 1;
+      } else if (ch < 0x80) {
+        result = result + 3;
+      } else if (ch < 0x800) {
+        result = result + 6;
+      } else if (Character.isHighSurrogate(ch) && i + 1 < length
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        result = result + 12;
+        i = i + 1;
+      } else if (Character.isSurrogate(ch)) {
+        // Unpaired surrogates become "?" in UTF-8
+        result = result + 3;
+      } else {
+        result = result + 9;
+      }
+    }
+    return result;
   }
 
   private static byte urlencode(int b) {
@@ -63,31 +177,87 @@ public final class Encodings {
 
   /**
    * URLDecode the given string. Percent encoded sequences are decoded, other characters are just
-   * passed through.
+   * passed through. Returns the given string itself if it has nothing to decode.
    * 
    * @see <a href=
    *      "https://en.wikipedia.org/wiki/Percent-encoding">https://en.wikipedia.org/wiki/Percent-encoding</a>
    */
   public static String urldecode(String s) {
-    byte[] bs = s.getBytes(StandardCharsets.US_ASCII);
+    return urldecode(s, 0, s.length(), false);
+  }
+
+  /**
+   * As {@link #urldecode(String)}, but decodes only the given slice of the string, without taking
+   * a substring first
+   */
+  public static String urldecode(String s, int offset, int length) {
+    return urldecode(s, offset, length, false);
+  }
 
-    ByteArrayOutputStream out = new ByteArrayOutputStream();
+  /**
+   * URLDecode the given application/x-www-form-urlencoded string. As {@link #urldecode(String)},
+   * but "+" also decodes to a space.
+   */
+  public static String urldecodeForm(String s) {
+    return urldecode(s, 0, s.length(), true);
+  }
+
+  /**
+   * As {@link #urldecodeForm(String)}, but decodes only the given slice of the string, without
+   * taking a substring first
+   */
+  public static String urldecodeForm(String s, int offset, int length) {
+    return urldecode(s, offset, length, true);
+  }
+
+  private static String urldecode(String s, int offset, int length, boolean form) {
+    if (offset < 0 || length < 0 || offset > s.length() - length)
+      throw new IndexOutOfBoundsException();
+
+    int end = offset + length;
+
+    // Most values have nothing to decode, so look before allocating anything
+    int index = offset;
+    while (index < end) {
+      char ch = s.charAt(index);
+      if (ch == '%' || (form && ch == '+'))
+        break;
+      index = index + 1;
+    }
+    if (index == end)
+      return offset == 0 && end == s.length() ? s : s.substring(offset, end);
 
-    int index = 0;
-    while (index < bs.length) {
-      byte b = bs[index++];
-      if (b == '%') {
-        if (index + 2 > bs.length)
+    // Decoding never makes ASCII input longer, so this is big enough unless the input is not ASCII
+    // Start over from the beginning, since the undecoded prefix may still contain non-ASCII text
+    byte[] out = new byte[length];
+    int count = 0;
+    index = offset;
+    while (index < end) {
+      char ch = s.charAt(index++);
+      if (ch == '%') {
+        if (index + 2 > end)
           throw new IllegalArgumentException("incomplete percent encoding");
-        byte upper = urldecode(bs[index++]);
-        byte lower = urldecode(bs[index++]);
-        out.write((upper << 4) | (lower << 0));
+        byte upper = urldecode(s.charAt(index++));
+        byte lower = urldecode(s.charAt(index++));
+        out[count++] = (byte) ((upper << 4) | (lower << 0));
+      } else if (form && ch == '+') {
+        out[count++] = ' ';
+      } else if (ch < 0x80) {
+        out[count++] = (byte) ch;
       } else {
-        out.write(b);
+        // Only in malformed input, so take the slow road
+        byte[] bs = String.valueOf(ch).getBytes(StandardCharsets.UTF_8);
+        if (Character.isHighSurrogate(ch) && index < end
+            && Character.isLowSurrogate(s.charAt(index)))
+          bs = new String(new char[] {ch, s.charAt(index++)}).getBytes(StandardCharsets.UTF_8);
+        if (count + bs.length + (end - index) > out.length)
+          out = Arrays.copyOf(out, count + bs.length + 3 * (end - index));
+        System.arraycopy(bs, 0, out, count, bs.length);
+        count = count + bs.length;
       }
     }
 
-    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    return new String(out, 0, count, StandardCharsets.UTF_8);
   }
 
   private static byte urldecode(int b) {
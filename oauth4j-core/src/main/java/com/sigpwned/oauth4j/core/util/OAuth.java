@@ -32,6 +32,14 @@ public final class OAuth {
 
   public static final String HMAC_SHA1_OAUTH_SIGNATURE_METHOD_VALUE = "HMAC-SHA1";
 
+  public static final String HMAC_SHA256_OAUTH_SIGNATURE_METHOD_VALUE = "HMAC-SHA256";
+
+  public static final String HMAC_SHA512_OAUTH_SIGNATURE_METHOD_VALUE = "HMAC-SHA512";
+
+  public static final String RSA_SHA1_OAUTH_SIGNATURE_METHOD_VALUE = "RSA-SHA1";
+
+  public static final String RSA_SHA256_OAUTH_SIGNATURE_METHOD_VALUE = "RSA-SHA256";
+
   public static final String OAUTH_TIMESTAMP = "oauth_timestamp";
 
   public static final String OAUTH_TOKEN_NAME = "oauth_token";
@@ -47,4 +55,15 @@ public final class OAuth {
   public static final String OAUTH_CALLBACK_NAME = "oauth_callback";
 
   public static final String OAUTH_VERIFIER_NAME = "oauth_verifier";
+
+  public static final String OAUTH_BODY_HASH_NAME = "oauth_body_hash";
+
+  /**
+   * @see <a href="https://wiki.oauth.net/w/page/12238543/ProblemReporting">Problem Reporting</a>
+   */
+  public static final String OAUTH_PROBLEM_NAME = "oauth_problem";
+
+  public static final String TIMESTAMP_REFUSED_OAUTH_PROBLEM_VALUE = "timestamp_refused";
+
+  public static final String NONCE_USED_OAUTH_PROBLEM_VALUE = "nonce_used";
 }
@@ -0,0 +1,125 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.core.util;
+
+import java.io.ByteArrayInputStream;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * Parses PEM-encoded RSA keys for the RSA signature methods.
+ */
+public final class RsaKeys {
+  private RsaKeys() {}
+
+  private static final String ALGORITHM = "RSA";
+
+  private static final String PRIVATE_KEY_LABEL = "PRIVATE KEY";
+
+  private static final String RSA_PRIVATE_KEY_LABEL = "RSA PRIVATE KEY";
+
+  private static final String PUBLIC_KEY_LABEL = "PUBLIC KEY";
+
+  private static final String CERTIFICATE_LABEL = "CERTIFICATE";
+
+  /**
+   * Parses a PKCS#8 private key, either PEM-encoded with the "PRIVATE KEY" label or as bare base64.
+   * PKCS#1 keys with the "RSA PRIVATE KEY" label are not supported and must be converted first, e.g.,
+   * with {@code openssl pkcs8 -topk8 -nocrypt}.
+   */
+  public static PrivateKey parsePrivateKey(String pem) {
+    if (pem == null)
+      throw new NullPointerException();
+    if (pem.contains("-----BEGIN " + RSA_PRIVATE_KEY_LABEL + "-----"))
+      throw new IllegalArgumentException("PKCS#1 private keys are not supported, use PKCS#8");
+
+    byte[] der = decode(pem, PRIVATE_KEY_LABEL);
+    try {
+      return keyFactory().generatePrivate(new PKCS8EncodedKeySpec(der));
+    } catch (InvalidKeySpecException e) {
+      throw new IllegalArgumentException("invalid private key", e);
+    }
+  }
+
+  /**
+   * Parses a public key, either a PEM-encoded X.509 certificate, a PEM-encoded SubjectPublicKeyInfo
+   * with the "PUBLIC KEY" label, or bare base64 SubjectPublicKeyInfo.
+   */
+  public static PublicKey parsePublicKey(String pem) {
+    if (pem == null)
+      throw new NullPointerException();
+
+    if (pem.contains("-----BEGIN " + CERTIFICATE_LABEL + "-----")) {
+      byte[] der = decode(pem, CERTIFICATE_LABEL);
+      try {
+        return CertificateFactory.getInstance("X.509")
+            .generateCertificate(new ByteArrayInputStream(der)).getPublicKey();
+      } catch (CertificateException e) {
+        throw new IllegalArgumentException("invalid certificate", e);
+      }
+    }
+
+    byte[] der = decode(pem, PUBLIC_KEY_LABEL);
+    try {
+      return keyFactory().generatePublic(new X509EncodedKeySpec(der));
+    } catch (InvalidKeySpecException e) {
+      throw new IllegalArgumentException("invalid public key", e);
+    }
+  }
+
+  private static byte[] decode(String pem, String label) {
+    String begin = "-----BEGIN " + label + "-----";
+    String end = "-----END " + label + "-----";
+
+    String body;
+    int beginIndex = pem.indexOf(begin);
+    if (beginIndex == -1) {
+      body = pem;
+    } else {
+      int endIndex = pem.indexOf(end, beginIndex);
+      if (endIndex == -1)
+        throw new IllegalArgumentException("unterminated " + label);
+      body = pem.substring(beginIndex + begin.length(), endIndex);
+    }
+
+    try {
+      return Base64.getMimeDecoder().decode(body.trim());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("invalid base64 in " + label, e);
+    }
+  }
+
+  private static KeyFactory keyFactory() {
+    try {
+      return KeyFactory.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      // The spec stipulates JDKs must implement this algorithm
+      throw new AssertionError("Required algorithm is not supported", e);
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.authorizer;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assume.assumeTrue;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.authorizer.DefaultOAuthHttpRequestAuthorizer;
+import com.sigpwned.oauth4j.core.model.OAuthConsumer;
+import com.sigpwned.oauth4j.core.model.OAuthFormParameter;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.model.OAuthQueryParameter;
+import com.sigpwned.oauth4j.core.signer.HmacSha1OAuthHttpRequestSigner;
+
+/**
+ * Fails when signing or authorizing a representative request allocates more than its budget. Each
+ * shape is warmed up until the JIT has settled, and then the bytes the calling thread allocates
+ * over many calls are averaged. The budgets leave some headroom over what the current code
+ * allocates, so a failure here means a change added real per-request garbage. If that is
+ * intended, raise the budget in the same change.
+ *
+ * The budgets can be scaled with the oauth4j.allocationBudgetScale system property, e.g., for a
+ * JVM whose object layout differs from the usual 64-bit HotSpot with compressed oops. The test is
+ * skipped on JVMs that cannot count allocated bytes per thread.
+ */
+public class AllocationBudgetTest {
+  public static final String CONSUMER_KEY = "xvz1evFS4wEEPTGEFPHBog";
+  public static final String CONSUMER_SECRET = "kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw";
+  public static final String TOKEN = "370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb";
+  public static final String TOKEN_SECRET = "LswwdoUaIvS8ltyTt5jkRh4J50vUPVVHtR2YPi5kE";
+  public static final String NONCE = "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg";
+  public static final long TIMESTAMP = 1318622958L;
+
+  public static final OAuthHttpRequest GET_REQUEST = OAuthHttpRequest.of("GET",
+      "https://api.twitter.com/1.1/account/verify_credentials.json", emptyList(), emptyList(),
+      emptyList());
+
+  public static final OAuthHttpRequest POST_REQUEST = OAuthHttpRequest.of("POST",
+      "https://api.twitter.com/1.1/statuses/update.json",
+      singletonList(OAuthQueryParameter.of("include_entities", "true")), emptyList(),
+      singletonList(
+          OAuthFormParameter.of("status", "Hello Ladies + Gentlemen, a signed OAuth request!")));
+
+  public static final OAuthHttpRequest LARGE_POST_REQUEST = largePostRequest();
+
+  public static final int WARMUP_CALLS = 50000;
+
+  public static final int MEASURED_CALLS = 5000;
+
+  private static com.sun.management.ThreadMXBean threads;
+
+  private static double scale;
+
+  /**
+   * Keeps the JIT from discarding the results we are measuring
+   */
+  private static volatile Object sink;
+
+  @BeforeClass
+  public static void setupClass() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    threads = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+    scale = Double.parseDouble(System.getProperty("oauth4j.allocationBudgetScale", "1.0"));
+  }
+
+  @Test
+  public void signTest() {
+    HmacSha1OAuthHttpRequestSigner signer = HmacSha1OAuthHttpRequestSigner.INSTANCE;
+    assertBudget("sign POST", 2560, () -> signer.sign(POST_REQUEST, NONCE, TIMESTAMP, "1.0",
+        CONSUMER_KEY, CONSUMER_SECRET, TOKEN, TOKEN_SECRET));
+  }
+
+  @Test
+  public void authorizeGetTest() {
+    DefaultOAuthHttpRequestAuthorizer authorizer = DefaultOAuthHttpRequestAuthorizer.INSTANCE;
+    assertBudget("authorize GET", 4608, () -> authorizer.authorize(GET_REQUEST, CONSUMER_KEY,
+        CONSUMER_SECRET, TOKEN, TOKEN_SECRET));
+  }
+
+  @Test
+  public void authorizePostTest() {
+    DefaultOAuthHttpRequestAuthorizer authorizer = DefaultOAuthHttpRequestAuthorizer.INSTANCE;
+    assertBudget("authorize POST", 5120, () -> authorizer.authorize(POST_REQUEST, CONSUMER_KEY,
+        CONSUMER_SECRET, TOKEN, TOKEN_SECRET));
+  }
+
+  @Test
+  public void authorizePostWithConsumerTest() {
+    DefaultOAuthHttpRequestAuthorizer authorizer = DefaultOAuthHttpRequestAuthorizer.INSTANCE;
+    OAuthConsumer consumer = OAuthConsumer.of("test", CONSUMER_KEY, CONSUMER_SECRET);
+    assertBudget("authorize POST with consumer", 5120,
+        () -> authorizer.authorize(POST_REQUEST, consumer, TOKEN, TOKEN_SECRET));
+  }
+
+  @Test
+  public void authorizeLargePostTest() {
+    DefaultOAuthHttpRequestAuthorizer authorizer = DefaultOAuthHttpRequestAuthorizer.INSTANCE;
+    assertBudget("authorize large POST", 12800, () -> authorizer.authorize(LARGE_POST_REQUEST,
+        CONSUMER_KEY, CONSUMER_SECRET, TOKEN, TOKEN_SECRET));
+  }
+
+  private static void assertBudget(String shape, long budget, Supplier<?> call) {
+    for (int i = 0; i < WARMUP_CALLS; i++)
+      sink = call.get();
+
+    long threadId = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < MEASURED_CALLS; i++)
+      sink = call.get();
+    long after = threads.getThreadAllocatedBytes(threadId);
+
+    long bytesPerCall = (after - before) / MEASURED_CALLS;
+    long limit = (long) (budget * scale);
+    assertThat(shape + " allocated " + bytesPerCall + " bytes per call, budget is " + limit,
+        bytesPerCall <= limit, is(true));
+  }
+
+  private static OAuthHttpRequest largePostRequest() {
+    List<OAuthFormParameter> form = new ArrayList<>();
+    for (int i = 0; i < 20; i++)
+      form.add(OAuthFormParameter.of("field" + i, "value number " + i + ", with some text"));
+    return OAuthHttpRequest.of("POST", "https://api.twitter.com/1.1/statuses/update.json",
+        singletonList(OAuthQueryParameter.of("include_entities", "true")), emptyList(), form);
+  }
+}
@@ -0,0 +1,62 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.authorizer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.authorizer.ClockSkewEstimator;
+
+public class ClockSkewEstimatorTest {
+  public static final long NOW = 1318622958000L;
+
+  @Test
+  public void observeTest() {
+    ClockSkewEstimator unit = new ClockSkewEstimator(0.5);
+
+    unit.observe(NOW + 10000L, NOW);
+    assertThat(unit.getOffsetMillis(), is(10000L));
+
+    unit.observe(NOW + 20000L, NOW);
+    assertThat(unit.getOffsetMillis(), is(15000L));
+
+    unit.correct(NOW - 5000L, NOW);
+    assertThat(unit.getOffsetMillis(), is(-5000L));
+  }
+
+  @Test
+  public void dateTest() {
+    ClockSkewEstimator unit = new ClockSkewEstimator() {
+      @Override
+      protected long currentTimeMillis() {
+        return NOW;
+      }
+    };
+
+    // 2011-10-14T20:09:18Z is NOW, so this is an hour ahead
+    assertThat(unit.observe("Fri, 14 Oct 2011 21:09:18 GMT"), is(true));
+    assertThat(unit.getOffsetMillis(), is(3600000L));
+    assertThat(unit.currentTimeSeconds(), is(NOW / 1000L + 3600L));
+
+    assertThat(unit.observe("yesterday"), is(false));
+    assertThat(unit.observe(null), is(false));
+    assertThat(unit.getOffsetMillis(), is(3600000L));
+  }
+}
@@ -0,0 +1,324 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.authorizer;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.authorizer.DefaultOAuthHttpRequestAuthorizer;
+import com.sigpwned.oauth4j.core.consumer.ConsumerRegistry;
+import com.sigpwned.oauth4j.core.model.OAuthAuthorizationRequest;
+import com.sigpwned.oauth4j.core.model.OAuthConsumer;
+import com.sigpwned.oauth4j.core.model.OAuthCredentials;
+import com.sigpwned.oauth4j.core.model.OAuthFormParameter;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.model.OAuthQueryParameter;
+import com.sigpwned.oauth4j.core.signer.HmacSha1OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.signer.HmacSha256OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.util.Encodings;
+import com.sigpwned.oauth4j.core.util.OAuth;
+
+/**
+ * Hammers the shared singletons and caches from many threads at once. The signers keep keyed
+ * per-thread state, the authorizer shares one random source, and the consumer registry swaps
+ * copy-on-write maps, so each test interleaves different credentials and checks every result
+ * against what a single thread computes.
+ *
+ * Set the oauth4j.stressIterations system property to run longer, e.g., on a many-core machine.
+ */
+public class ConcurrencyStressTest {
+  public static final int THREADS = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+  public static final int ITERATIONS = Integer.getInteger("oauth4j.stressIterations", 2000);
+
+  public static final String NONCE = "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg";
+
+  public static final long TIMESTAMP = 1318622958L;
+
+  private static final Pattern PARAMETER = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+
+  @Test
+  public void signerTest() throws Exception {
+    for (OAuthHttpRequestSigner signer : new OAuthHttpRequestSigner[] {
+        HmacSha1OAuthHttpRequestSigner.INSTANCE, HmacSha256OAuthHttpRequestSigner.INSTANCE}) {
+      List<Case> cases = cases();
+
+      // A fresh signer on this thread gives the expected answers
+      OAuthHttpRequestSigner reference = signer instanceof HmacSha1OAuthHttpRequestSigner
+          ? new HmacSha1OAuthHttpRequestSigner()
+          : new HmacSha256OAuthHttpRequestSigner();
+      List<byte[]> expected = new ArrayList<>();
+      for (Case c : cases)
+        expected.add(c.sign(reference));
+
+      AtomicInteger mismatches = new AtomicInteger();
+      runConcurrently(THREADS, thread -> {
+        for (int i = 0; i < ITERATIONS; i++) {
+          // Stagger the threads so each one keeps switching keys
+          int index = (thread + i * (thread + 1)) % cases.size();
+          if (!Arrays.equals(cases.get(index).sign(signer), expected.get(index)))
+            mismatches.incrementAndGet();
+        }
+      });
+
+      assertThat(signer.getOAuthSignatureMethod(), mismatches.get(), is(0));
+    }
+  }
+
+  @Test
+  public void nonceTest() throws Exception {
+    NonceAuthorizer authorizer = new NonceAuthorizer();
+
+    Set<String> nonces = ConcurrentHashMap.newKeySet();
+    AtomicInteger count = new AtomicInteger();
+    runConcurrently(THREADS, thread -> {
+      for (int i = 0; i < ITERATIONS; i++) {
+        if (i % 2 == 0) {
+          nonces.add(authorizer.nextNonce());
+          count.incrementAndGet();
+        } else {
+          for (String nonce : authorizer.nextNonces(8)) {
+            nonces.add(nonce);
+            count.incrementAndGet();
+          }
+        }
+      }
+    });
+
+    assertThat(nonces.size(), is(count.get()));
+  }
+
+  /**
+   * Every authorized request must carry a signature that verifies for its own nonce and timestamp,
+   * whether it was authorized alone or as part of a batch
+   */
+  @Test
+  public void authorizeTest() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      DefaultOAuthHttpRequestAuthorizer authorizer = new DefaultOAuthHttpRequestAuthorizer(
+          DefaultOAuthHttpRequestAuthorizer.DEFAULT_SIGNER,
+          DefaultOAuthHttpRequestAuthorizer.DEFAULT_OAUTH_VERSION_VALUE, pool);
+      List<Case> cases = cases();
+      List<OAuthAuthorizationRequest> batch = new ArrayList<>();
+      for (int i = 0; i < 64; i++)
+        batch.add(cases.get(i % cases.size()).toAuthorizationRequest());
+
+      Set<String> nonces = ConcurrentHashMap.newKeySet();
+      AtomicInteger count = new AtomicInteger();
+      AtomicInteger invalid = new AtomicInteger();
+      runConcurrently(THREADS, thread -> {
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+          List<OAuthHttpRequest> authorized;
+          if (i % 4 == 0) {
+            authorized = authorizer.authorizeAll(batch);
+          } else {
+            OAuthAuthorizationRequest request = batch.get((thread + i) % batch.size());
+            OAuthCredentials credentials = request.getCredentials();
+            authorized = singletonList(authorizer.authorize(request.getRequest(),
+                credentials.getConsumerKey(), credentials.getConsumerSecret(),
+                credentials.getToken(), credentials.getTokenSecret()));
+          }
+
+          for (int j = 0; j < authorized.size(); j++) {
+            OAuthAuthorizationRequest request =
+                i % 4 == 0 ? batch.get(j) : batch.get((thread + i) % batch.size());
+            Map<String, String> parameters = authorizationParameters(authorized.get(j));
+            nonces.add(parameters.get(OAuth.OAUTH_NONCE_NAME));
+            count.incrementAndGet();
+            if (!verify(authorizer.getSigner(), request, parameters))
+              invalid.incrementAndGet();
+          }
+        }
+      });
+
+      assertThat(invalid.get(), is(0));
+      assertThat(nonces.size(), is(count.get()));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Concurrent registrations must never be lost, and readers must never see a torn registry
+   */
+  @Test
+  public void consumerRegistryTest() throws Exception {
+    ConsumerRegistry registry = new ConsumerRegistry();
+    int perThread = Math.max(1, ITERATIONS / 10);
+
+    AtomicInteger torn = new AtomicInteger();
+    runConcurrently(THREADS, thread -> {
+      for (int i = 0; i < perThread; i++) {
+        String id = thread + "-" + i;
+        registry.register(id, "key-" + id, "secret-" + id);
+        if (!registry.findConsumer(id).map(c -> c.getConsumerSecret().equals("secret-" + id))
+            .orElse(false))
+          torn.incrementAndGet();
+        for (Map.Entry<String, OAuthConsumer> e : registry.getConsumers().entrySet())
+          if (!e.getValue().getConsumerSecret().equals("secret-" + e.getKey()))
+            torn.incrementAndGet();
+        if (i % 2 == 1)
+          registry.unregister(thread + "-" + (i - 1));
+      }
+    });
+
+    assertThat(torn.get(), is(0));
+    assertThat(registry.getConsumers().size(), is(THREADS * (perThread - perThread / 2)));
+  }
+
+  /**
+   * Runs the given task on the given number of threads, all released at once, and rethrows the
+   * first failure
+   */
+  private static void runConcurrently(int threads, IntConsumer task) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      final int thread = t;
+      Thread worker = new Thread(() -> {
+        try {
+          start.await();
+          task.accept(thread);
+        } catch (Throwable e) {
+          failure.compareAndSet(null, e);
+        }
+      }, "stress-" + t);
+      worker.start();
+      workers.add(worker);
+    }
+    start.countDown();
+    for (Thread worker : workers)
+      worker.join();
+    if (failure.get() != null)
+      throw new AssertionError("stress task failed", failure.get());
+  }
+
+  private static Map<String, String> authorizationParameters(OAuthHttpRequest request) {
+    Map<String, String> result = new HashMap<>();
+    Matcher m = PARAMETER.matcher(request.getHeader("Authorization").get().getValue());
+    while (m.find())
+      result.put(m.group(1), Encodings.urldecode(m.group(2)));
+    return result;
+  }
+
+  private static boolean verify(OAuthHttpRequestSigner signer, OAuthAuthorizationRequest request,
+      Map<String, String> parameters) {
+    OAuthCredentials credentials = request.getCredentials();
+    byte[] signature = new HmacSha1OAuthHttpRequestSigner().sign(request.getRequest(),
+        parameters.get(OAuth.OAUTH_NONCE_NAME),
+        Long.parseLong(parameters.get(OAuth.OAUTH_TIMESTAMP)),
+        parameters.get(OAuth.OAUTH_VERSION_NAME), credentials.getConsumerKey(),
+        credentials.getConsumerSecret(), credentials.getToken(), credentials.getTokenSecret());
+    return signer.getOAuthSignatureMethod()
+        .equals(parameters.get(OAuth.OAUTH_SIGNATURE_METHOD_NAME))
+        && Base64.getEncoder().encodeToString(signature)
+            .equals(parameters.get(OAuth.OAUTH_SIGNATURE_NAME));
+  }
+
+  /**
+   * Two consumers, two tokens, and three requests, so consecutive signatures on a thread rarely
+   * share a key
+   */
+  private static List<Case> cases() {
+    List<OAuthHttpRequest> requests = Arrays.asList(
+        OAuthHttpRequest.of("GET", "https://api.twitter.com/1.1/account/verify_credentials.json",
+            emptyList(), emptyList(), emptyList()),
+        OAuthHttpRequest.of("POST", "https://api.twitter.com/1.1/statuses/update.json",
+            singletonList(OAuthQueryParameter.of("include_entities", "true")), emptyList(),
+            singletonList(OAuthFormParameter.of("status", "Hello Ladies + Gentlemen!"))),
+        OAuthHttpRequest.of("POST", "https://api.twitter.com/oauth/request_token", emptyList(),
+            emptyList(), singletonList(OAuthFormParameter.of("oauth_callback", "oob"))));
+
+    List<Case> result = new ArrayList<>();
+    for (OAuthHttpRequest request : requests) {
+      for (int consumer = 0; consumer < 2; consumer++) {
+        OAuthConsumer c =
+            OAuthConsumer.of("c" + consumer, "key" + consumer, "consumer secret " + consumer);
+        result.add(new Case(request, c, null, null));
+        result.add(new Case(request, c, "token" + consumer, "token secret " + consumer));
+      }
+    }
+    return result;
+  }
+
+  private static final class Case {
+    private final OAuthHttpRequest request;
+    private final OAuthConsumer consumer;
+    private final String token;
+    private final String tokenSecret;
+
+    public Case(OAuthHttpRequest request, OAuthConsumer consumer, String token,
+        String tokenSecret) {
+      this.request = request;
+      this.consumer = consumer;
+      this.token = token;
+      this.tokenSecret = tokenSecret;
+    }
+
+    /**
+     * Signs through the consumer's precomputed key for tokened cases, and through the raw secrets
+     * otherwise, so both of the signer's key caches get exercised
+     */
+    public byte[] sign(OAuthHttpRequestSigner signer) {
+      if (token != null)
+        return signer.sign(request, NONCE, TIMESTAMP, "1.0", consumer, token, tokenSecret, null);
+      return signer.sign(request, NONCE, TIMESTAMP, "1.0", consumer.getConsumerKey(),
+          consumer.getConsumerSecret(), token, tokenSecret);
+    }
+
+    public OAuthAuthorizationRequest toAuthorizationRequest() {
+      return OAuthAuthorizationRequest.of(request, OAuthCredentials.of(consumer.getConsumerKey(),
+          consumer.getConsumerSecret(), token, tokenSecret));
+    }
+  }
+
+  /**
+   * Exposes the authorizer's nonce source
+   */
+  private static final class NonceAuthorizer extends DefaultOAuthHttpRequestAuthorizer {
+    public String nextNonce() {
+      return nonce();
+    }
+
+    public String[] nextNonces(int count) {
+      return nonces(count);
+    }
+  }
+}
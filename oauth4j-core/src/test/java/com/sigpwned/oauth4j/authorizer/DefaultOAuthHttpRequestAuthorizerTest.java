@@ -21,15 +21,35 @@ package com.sigpwned.oauth4j.authorizer;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 import org.junit.Test;
 import com.sigpwned.oauth4j.core.OAuthHttpRequestAuthorizer;
+import com.sigpwned.oauth4j.core.authorizer.ClockSkewEstimator;
 import com.sigpwned.oauth4j.core.authorizer.DefaultOAuthHttpRequestAuthorizer;
+import com.sigpwned.oauth4j.core.model.OAuthAuthorizationRequest;
+import com.sigpwned.oauth4j.core.model.OAuthConsumer;
+import com.sigpwned.oauth4j.core.model.OAuthCredentials;
 import com.sigpwned.oauth4j.core.model.OAuthFormParameter;
 import com.sigpwned.oauth4j.core.model.OAuthHttpHeader;
 import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
 import com.sigpwned.oauth4j.core.model.OAuthQueryParameter;
+import com.sigpwned.oauth4j.core.signer.HmacSha1OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.util.BodyHashes;
+import com.sigpwned.oauth4j.core.util.OAuth;
 
 public class DefaultOAuthHttpRequestAuthorizerTest {
   /**
@@ -71,4 +91,294 @@ public class DefaultOAuthHttpRequestAuthorizerTest {
     assertThat(authorization, is(
         "OAuth oauth_consumer_key=\"xvz1evFS4wEEPTGEFPHBog\", oauth_nonce=\"kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg\", oauth_signature=\"hCtSmYh%2BiHYCEqBWrE7C7hYmtUk%3D\", oauth_signature_method=\"HMAC-SHA1\", oauth_timestamp=\"1318622958\", oauth_token=\"370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb\", oauth_version=\"1.0\""));
   }
+
+  /**
+   * Batch authorization must give the same results, in the same order, as one-at-a-time
+   * authorization
+   */
+  @Test
+  public void authorizeAllTest() throws Exception {
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final DefaultOAuthHttpRequestAuthorizer authorizer = new DefaultOAuthHttpRequestAuthorizer(
+          DefaultOAuthHttpRequestAuthorizer.DEFAULT_SIGNER,
+          DefaultOAuthHttpRequestAuthorizer.DEFAULT_OAUTH_VERSION_VALUE, pool) {
+        @Override
+        protected long now() {
+          return 1318622958L;
+        }
+
+        @Override
+        protected String nonce() {
+          return "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg";
+        }
+
+        @Override
+        protected String[] nonces(int count) {
+          String[] result = new String[count];
+          Arrays.fill(result, nonce());
+          return result;
+        }
+      };
+
+      final List<OAuthAuthorizationRequest> batch = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        batch.add(OAuthAuthorizationRequest.of(
+            OAuthHttpRequest.of("POST", "https://api.twitter.com/1.1/statuses/update.json",
+                singletonList(OAuthQueryParameter.of("include_entities", "true")), emptyList(),
+                singletonList(OAuthFormParameter.of("status", "Tweet #" + i))),
+            OAuthCredentials.of("consumerKey" + (i % 3), "consumerSecret" + (i % 3), "token",
+                "tokenSecret")));
+      }
+
+      final List<OAuthHttpRequest> expected = batch.stream()
+          .map(r -> authorizer.authorize(r.getRequest(), r.getCredentials())).collect(toList());
+
+      assertThat(authorizer.authorizeAll(batch), is(expected));
+      assertThat(authorizer.authorizeAll(batch.stream()).collect(toList()), is(expected));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Stream authorization must be lazy, so it works on an infinite stream and reads only as far
+   * ahead as one window
+   */
+  @Test
+  public void infiniteStreamTest() {
+    final OAuthAuthorizationRequest request = OAuthAuthorizationRequest.of(
+        OAuthHttpRequest.of("GET", "https://api.twitter.com/1.1/account/verify_credentials.json",
+            emptyList(), emptyList(), emptyList()),
+        OAuthCredentials.of("consumerKey", "consumerSecret"));
+
+    final AtomicInteger pulled = new AtomicInteger();
+    List<OAuthHttpRequest> signed = DefaultOAuthHttpRequestAuthorizer.INSTANCE
+        .authorizeAll(Stream.generate(() -> request).peek(r -> pulled.incrementAndGet()))
+        .limit(10L).collect(toList());
+
+    assertThat(signed.size(), is(10));
+    assertThat(signed.get(0).getHeaders().isEmpty(), is(false));
+    assertThat(pulled.get() < 1000000, is(true));
+  }
+
+  /**
+   * Nonces drawn in bulk must still be unique
+   */
+  @Test
+  public void noncesTest() {
+    final List<OAuthAuthorizationRequest> batch = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      batch.add(OAuthAuthorizationRequest.of(
+          OAuthHttpRequest.of("GET", "https://api.twitter.com/1.1/account/verify_credentials.json",
+              emptyList(), emptyList(), emptyList()),
+          OAuthCredentials.of("consumerKey", "consumerSecret")));
+    }
+
+    long distinct = DefaultOAuthHttpRequestAuthorizer.INSTANCE.authorizeAll(batch).stream()
+        .map(r -> r.getHeaders().get(0).getValue()).distinct().count();
+
+    assertThat(distinct, is(1000L));
+  }
+
+  /**
+   * The body hash must appear in the header and be covered by the signature. The expected signature
+   * was computed independently from the signature base string, and the body hash is the example
+   * from the body hash draft, the SHA-1 of "Hello World!".
+   */
+  @Test
+  public void authorizeWithBodyHashTest() {
+    final DefaultOAuthHttpRequestAuthorizer authorizer =
+        new DefaultOAuthHttpRequestAuthorizer() {
+      @Override
+      protected long now() {
+        return 1318622958L;
+      }
+
+      @Override
+      protected String nonce() {
+        return "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg";
+      }
+    };
+
+    final OAuthHttpRequest request =
+        OAuthHttpRequest.of("PUT", "https://www.example.com/upload", emptyList(), emptyList(),
+            emptyList());
+
+    // The body hash must use the hash function of the signer's signature method
+    final String bodyHash =
+        BodyHashes.hash(BodyHashes.digestAlgorithm(authorizer.getSigner().getOAuthSignatureMethod()),
+            ByteBuffer.wrap("Hello World!".getBytes(StandardCharsets.UTF_8)));
+    assertThat(bodyHash, is("Lve95gjOVATpfV8EL5X4nxwjKHE="));
+
+    String plain = authorizer.authorize(request, "consumerKey", "consumerSecret", "token",
+        "tokenSecret").getHeaders().get(0).getValue();
+    String hashed = authorizer.authorizeWithBodyHash(request, bodyHash, "consumerKey",
+        "consumerSecret", "token", "tokenSecret").getHeaders().get(0).getValue();
+
+    assertThat(hashed, is(
+        "OAuth oauth_body_hash=\"Lve95gjOVATpfV8EL5X4nxwjKHE%3D\", oauth_consumer_key=\"consumerKey\", oauth_nonce=\"kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg\", oauth_signature=\"%2Fq7dhpZPn0ZQNy%2F6Rb8%2FpdbgJIA%3D\", oauth_signature_method=\"HMAC-SHA1\", oauth_timestamp=\"1318622958\", oauth_token=\"token\", oauth_version=\"1.0\""));
+    assertThat(signature(hashed).equals(signature(plain)), is(false));
+  }
+
+  /**
+   * An authorizer that only implements the basic authorize method must still support the body hash
+   * extension, with the same result as the built-in implementation, and so must the consumer
+   * overload
+   */
+  @Test
+  public void defaultAuthorizeWithBodyHashTest() {
+    final DefaultOAuthHttpRequestAuthorizer fixed = new DefaultOAuthHttpRequestAuthorizer() {
+      @Override
+      protected long now() {
+        return 1318622958L;
+      }
+
+      @Override
+      protected String nonce() {
+        return "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg";
+      }
+    };
+    final OAuthHttpRequestAuthorizer minimal = new OAuthHttpRequestAuthorizer() {
+      @Override
+      public OAuthHttpRequest authorize(OAuthHttpRequest request, String consumerKey,
+          String consumerSecret, String token, String tokenSecret) {
+        return fixed.authorize(request, consumerKey, consumerSecret, token, tokenSecret);
+      }
+    };
+
+    final OAuthHttpRequest request = OAuthHttpRequest.of("PUT", "https://www.example.com/upload",
+        singletonList(OAuthQueryParameter.of("a", "b")), emptyList(), emptyList());
+    final OAuthConsumer consumer = OAuthConsumer.of("example", "consumerKey", "consumerSecret");
+
+    OAuthHttpRequest expected = fixed.authorizeWithBodyHash(request,
+        "Lve95gjOVATpfV8EL5X4nxwjKHE=", "consumerKey", "consumerSecret", "token", "tokenSecret");
+    assertThat(minimal.authorizeWithBodyHash(request, "Lve95gjOVATpfV8EL5X4nxwjKHE=",
+        "consumerKey", "consumerSecret", "token", "tokenSecret"), is(expected));
+    assertThat(minimal.authorizeWithBodyHash(request, "Lve95gjOVATpfV8EL5X4nxwjKHE=", consumer,
+        "token", "tokenSecret"), is(expected));
+    assertThat(fixed.authorizeWithBodyHash(request, "Lve95gjOVATpfV8EL5X4nxwjKHE=", consumer,
+        "token", "tokenSecret"), is(expected));
+    assertThat(expected.getCompactQueryParameters(), is(request.getCompactQueryParameters()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void authorizeWithBodyHashFormParametersTest() {
+    DefaultOAuthHttpRequestAuthorizer.INSTANCE.authorizeWithBodyHash(
+        OAuthHttpRequest.of("POST", "https://www.example.com/upload", emptyList(), emptyList(),
+            singletonList(OAuthFormParameter.of("status", "hello"))),
+        "Lve95gjOVATpfV8EL5X4nxwjKHE=", "consumerKey", "consumerSecret", "token", "tokenSecret");
+  }
+
+  private static String signature(String authorization) {
+    int start = authorization.indexOf("oauth_signature=\"") + "oauth_signature=\"".length();
+    return authorization.substring(start, authorization.indexOf('"', start));
+  }
+
+  /**
+   * Authorizing an already-authorized request must replace its Authorization header
+   */
+  @Test
+  public void reauthorizeTest() {
+    final OAuthHttpRequest request = OAuthHttpRequest.of("GET", "https://www.example.com/",
+        emptyList(), singletonList(OAuthHttpHeader.of("Accept", "application/json")),
+        emptyList());
+
+    OAuthHttpRequest once = DefaultOAuthHttpRequestAuthorizer.INSTANCE.authorize(request,
+        "consumerKey", "consumerSecret");
+    OAuthHttpRequest twice = DefaultOAuthHttpRequestAuthorizer.INSTANCE.authorize(once,
+        "consumerKey", "consumerSecret");
+
+    assertThat(twice.getHeaders().size(), is(2));
+    assertThat(twice.getHeaders("authorization").size(), is(1));
+  }
+
+  /**
+   * Authorizing with a consumer handle must give the same result as authorizing with strings, even
+   * when the same thread alternates between the two
+   */
+  @Test
+  public void consumerTest() {
+    final OAuthHttpRequestAuthorizer authorizer = new DefaultOAuthHttpRequestAuthorizer() {
+      @Override
+      protected long now() {
+        return 1318622958L;
+      }
+
+      @Override
+      protected String nonce() {
+        return "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg";
+      }
+    };
+
+    final OAuthConsumer consumer = OAuthConsumer.of("twitter", "xvz1evFS4wEEPTGEFPHBog",
+        "kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw");
+    final String token = "370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb";
+    final String tokenSecret = "LswwdoUaIvS8ltyTt5jkRh4J50vUPVVHtR2YPi5kE";
+
+    final OAuthHttpRequest request = OAuthHttpRequest.of("POST",
+        "https://api.twitter.com/1.1/statuses/update.json",
+        singletonList(OAuthQueryParameter.of("include_entities", "true")), emptyList(),
+        singletonList(
+            OAuthFormParameter.of("status", "Hello Ladies + Gentlemen, a signed OAuth request!")));
+
+    for (int i = 0; i < 2; i++) {
+      OAuthHttpRequest withStrings = authorizer.authorize(request, consumer.getConsumerKey(),
+          consumer.getConsumerSecret(), token, tokenSecret);
+      OAuthHttpRequest withConsumer = authorizer.authorize(request, consumer, token, tokenSecret);
+      assertThat(withConsumer, is(withStrings));
+    }
+  }
+
+  /**
+   * Timestamps must be in epoch seconds, on the provider's clock
+   */
+  @Test
+  public void clockSkewTest() {
+    ClockSkewEstimator clockSkewEstimator = new ClockSkewEstimator() {
+      @Override
+      protected long currentTimeMillis() {
+        return 1318622958000L;
+      }
+    };
+    clockSkewEstimator.correct(1318622958000L + 3600000L, 1318622958000L);
+
+    DefaultOAuthHttpRequestAuthorizer authorizer = new DefaultOAuthHttpRequestAuthorizer(
+        HmacSha1OAuthHttpRequestSigner.INSTANCE, OAuth.ONE_DOT_OH_OAUTH_VERSION_VALUE,
+        ForkJoinPool.commonPool(), clockSkewEstimator);
+
+    OAuthHttpRequest authorized = authorizer.authorize(
+        OAuthHttpRequest.of("GET", "https://www.example.com/", emptyList(), emptyList(),
+            emptyList()),
+        "consumerKey", "consumerSecret");
+
+    assertThat(authorized.getHeader("Authorization").get().getValue()
+        .contains("oauth_timestamp=\"1318626558\""), is(true));
+  }
+
+  /**
+   * Loading and initializing the authorizer must not create its random source, so startup stays
+   * fast and native image builds do not bake in a seed. Runs in a fresh class loader, since other
+   * tests in this JVM may already have used the random source.
+   */
+  @Test
+  public void lazyRandomTest() throws Exception {
+    URL classes =
+        DefaultOAuthHttpRequestAuthorizer.class.getProtectionDomain().getCodeSource().getLocation();
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {classes}, ClassLoader.getPlatformClassLoader())) {
+      Class<?> type =
+          Class.forName(DefaultOAuthHttpRequestAuthorizer.class.getName(), true, loader);
+
+      Field random = type.getDeclaredField("random");
+      random.setAccessible(true);
+      assertThat(random.get(null) == null, is(true));
+
+      Object instance = type.getField("INSTANCE").get(null);
+      Method nonce = type.getDeclaredMethod("nonce");
+      nonce.setAccessible(true);
+      assertThat(((String) nonce.invoke(instance)).length(), is(24));
+      assertThat(random.get(null) == null, is(false));
+    }
+  }
 }
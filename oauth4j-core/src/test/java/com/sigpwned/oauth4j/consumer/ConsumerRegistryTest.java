@@ -0,0 +1,67 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.consumer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.consumer.ConsumerRegistry;
+import com.sigpwned.oauth4j.core.model.OAuthConsumer;
+
+public class ConsumerRegistryTest {
+  @Test
+  public void registerTest() {
+    ConsumerRegistry registry = new ConsumerRegistry();
+
+    OAuthConsumer alpha = registry.register("alpha", "alpha key", "alpha+secret");
+    assertThat(registry.findConsumer("alpha"), is(Optional.of(alpha)));
+    assertThat(alpha.getEncodedConsumerKey(), is("alpha%20key"));
+    assertThat(alpha.getSigningKeyPrefix(), is("alpha%2Bsecret&"));
+
+    // Rotation replaces the handle, but leaves the old handle usable
+    OAuthConsumer rotated = OAuthConsumer.of("alpha", "alpha key", "new secret");
+    assertThat(registry.register(rotated), is(Optional.of(alpha)));
+    assertThat(registry.findConsumer("alpha"), is(Optional.of(rotated)));
+    assertThat(alpha.getConsumerSecret(), is("alpha+secret"));
+
+    assertThat(registry.unregister("alpha"), is(Optional.of(rotated)));
+    assertThat(registry.findConsumer("alpha"), is(Optional.empty()));
+  }
+
+  @Test
+  public void reloadTest() {
+    ConsumerRegistry registry = new ConsumerRegistry();
+    registry.register("alpha", "alpha", "alpha");
+
+    OAuthConsumer bravo = OAuthConsumer.of("bravo", "bravo", "bravo");
+    registry.reload(List.of(bravo));
+
+    assertThat(registry.findConsumer("alpha"), is(Optional.empty()));
+    assertThat(registry.findConsumer("bravo"), is(Optional.of(bravo)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void reloadDuplicateTest() {
+    new ConsumerRegistry().reload(
+        List.of(OAuthConsumer.of("alpha", "a", "a"), OAuthConsumer.of("alpha", "b", "b")));
+  }
+}
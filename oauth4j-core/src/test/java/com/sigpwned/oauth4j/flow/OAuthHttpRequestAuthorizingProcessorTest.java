@@ -0,0 +1,268 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.flow;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.authorizer.DefaultOAuthHttpRequestAuthorizer;
+import com.sigpwned.oauth4j.core.flow.OAuthHttpRequestAuthorizingProcessor;
+import com.sigpwned.oauth4j.core.model.OAuthCredentials;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.model.OAuthQueryParameter;
+
+public class OAuthHttpRequestAuthorizingProcessorTest {
+  public ExecutorService executor;
+
+  @Before
+  public void setupOAuthHttpRequestAuthorizingProcessorTest() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void cleanupOAuthHttpRequestAuthorizingProcessorTest() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Ordered processors should deliver every request, signed, in order
+   */
+  @Test
+  public void orderedTest() throws Exception {
+    OAuthHttpRequestAuthorizingProcessor unit = new OAuthHttpRequestAuthorizingProcessor(
+        DefaultOAuthHttpRequestAuthorizer.INSTANCE, r -> OAuthCredentials.of("key", "secret"),
+        executor, 8, true);
+
+    CollectingSubscriber subscriber = new CollectingSubscriber(3);
+    unit.subscribe(subscriber);
+
+    try (SubmissionPublisher<OAuthHttpRequest> publisher = new SubmissionPublisher<>()) {
+      publisher.subscribe(unit);
+      for (int i = 0; i < 500; i++)
+        publisher.submit(request(i));
+    }
+
+    List<OAuthHttpRequest> received = subscriber.done.get(30, TimeUnit.SECONDS);
+
+    assertThat(received.size(), is(500));
+    for (int i = 0; i < received.size(); i++) {
+      assertThat(received.get(i).getQueryParameters().get(0).getValue(), is(Integer.toString(i)));
+      assertThat(received.get(i).getHeaders().get(0).getName(), is("Authorization"));
+    }
+  }
+
+  /**
+   * Unordered processors should still deliver every request exactly once
+   */
+  @Test
+  public void unorderedTest() throws Exception {
+    OAuthHttpRequestAuthorizingProcessor unit = new OAuthHttpRequestAuthorizingProcessor(
+        DefaultOAuthHttpRequestAuthorizer.INSTANCE, r -> OAuthCredentials.of("key", "secret"),
+        executor, 8, false);
+
+    CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+    unit.subscribe(subscriber);
+
+    try (SubmissionPublisher<OAuthHttpRequest> publisher = new SubmissionPublisher<>()) {
+      publisher.subscribe(unit);
+      for (int i = 0; i < 500; i++)
+        publisher.submit(request(i));
+    }
+
+    List<OAuthHttpRequest> received = subscriber.done.get(30, TimeUnit.SECONDS);
+
+    assertThat(received.stream().map(r -> r.getQueryParameters().get(0).getValue()).distinct()
+        .count(), is(500L));
+  }
+
+  /**
+   * The processor must never request more from upstream than downstream has asked for
+   */
+  @Test
+  public void backpressureTest() throws Exception {
+    OAuthHttpRequestAuthorizingProcessor unit = new OAuthHttpRequestAuthorizingProcessor(
+        DefaultOAuthHttpRequestAuthorizer.INSTANCE, r -> OAuthCredentials.of("key", "secret"),
+        executor, 8, true);
+
+    final AtomicLong requested = new AtomicLong();
+    final List<Flow.Subscription> subscriptions = new ArrayList<>();
+    unit.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(long n) {
+        requested.addAndGet(n);
+      }
+
+      @Override
+      public void cancel() {}
+    });
+
+    unit.subscribe(new Flow.Subscriber<OAuthHttpRequest>() {
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        subscriptions.add(subscription);
+      }
+
+      @Override
+      public void onNext(OAuthHttpRequest item) {}
+
+      @Override
+      public void onError(Throwable throwable) {}
+
+      @Override
+      public void onComplete() {}
+    });
+
+    assertThat(requested.get(), is(0L));
+
+    subscriptions.get(0).request(2);
+    assertThat(requested.get(), is(2L));
+
+    subscriptions.get(0).request(100);
+    assertThat(requested.get(), is(8L));
+  }
+
+  /**
+   * A failed credentials lookup should fail the stream
+   */
+  @Test
+  public void failureTest() throws Exception {
+    OAuthHttpRequestAuthorizingProcessor unit = new OAuthHttpRequestAuthorizingProcessor(
+        DefaultOAuthHttpRequestAuthorizer.INSTANCE, r -> {
+          throw new IllegalStateException("no credentials");
+        }, executor);
+
+    CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+    unit.subscribe(subscriber);
+
+    try (SubmissionPublisher<OAuthHttpRequest> publisher = new SubmissionPublisher<>()) {
+      publisher.subscribe(unit);
+      publisher.submit(request(0));
+    }
+
+    Throwable failure = null;
+    try {
+      subscriber.done.get(30, TimeUnit.SECONDS);
+    } catch (ExecutionException e) {
+      failure = e.getCause();
+    }
+
+    assertThat(failure, instanceOf(IllegalStateException.class));
+  }
+
+  /**
+   * An Error while signing should fail the stream too, not leave an ordered stream waiting forever
+   */
+  @Test
+  public void errorTest() throws Exception {
+    OAuthHttpRequestAuthorizingProcessor unit = new OAuthHttpRequestAuthorizingProcessor(
+        DefaultOAuthHttpRequestAuthorizer.INSTANCE, r -> {
+          throw new AssertionError("no credentials");
+        }, executor);
+
+    CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+    unit.subscribe(subscriber);
+
+    try (SubmissionPublisher<OAuthHttpRequest> publisher = new SubmissionPublisher<>()) {
+      publisher.subscribe(unit);
+      publisher.submit(request(0));
+    }
+
+    Throwable failure = null;
+    try {
+      subscriber.done.get(30, TimeUnit.SECONDS);
+    } catch (ExecutionException e) {
+      failure = e.getCause();
+    }
+
+    assertThat(failure, instanceOf(AssertionError.class));
+  }
+
+  /**
+   * Reactive Streams rule 2.13: a null item must be rejected with a NullPointerException
+   */
+  @Test(expected = NullPointerException.class)
+  public void nullItemTest() {
+    OAuthHttpRequestAuthorizingProcessor unit = new OAuthHttpRequestAuthorizingProcessor(
+        DefaultOAuthHttpRequestAuthorizer.INSTANCE, r -> null, executor);
+    unit.onNext(null);
+  }
+
+  private static OAuthHttpRequest request(int i) {
+    return OAuthHttpRequest.of("GET", "https://api.example.com/items",
+        singletonList(OAuthQueryParameter.of("i", Integer.toString(i))), emptyList(),
+        emptyList());
+  }
+
+  /**
+   * Requests batchSize items at a time and collects everything it receives
+   */
+  private static class CollectingSubscriber implements Flow.Subscriber<OAuthHttpRequest> {
+    public final CompletableFuture<List<OAuthHttpRequest>> done = new CompletableFuture<>();
+    private final List<OAuthHttpRequest> received = new ArrayList<>();
+    private final long batchSize;
+    private Flow.Subscription subscription;
+    private long remaining;
+
+    public CollectingSubscriber(long batchSize) {
+      this.batchSize = batchSize;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      this.remaining = batchSize;
+      subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(OAuthHttpRequest item) {
+      received.add(item);
+      if (batchSize != Long.MAX_VALUE && --remaining == 0) {
+        remaining = batchSize;
+        subscription.request(batchSize);
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      done.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      done.complete(received);
+    }
+  }
+}
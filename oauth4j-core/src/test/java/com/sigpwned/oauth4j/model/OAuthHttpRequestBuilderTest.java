@@ -0,0 +1,73 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.model;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.util.List;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.model.OAuthFormParameter;
+import com.sigpwned.oauth4j.core.model.OAuthHttpHeader;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequestBuilder;
+import com.sigpwned.oauth4j.core.model.OAuthQueryParameter;
+
+public class OAuthHttpRequestBuilderTest {
+  public static final OAuthHttpRequest REQUEST = OAuthHttpRequest.of("POST",
+      "https://api.twitter.com/1.1/statuses/update.json",
+      List.of(OAuthQueryParameter.of("include_entities", "true")),
+      List.of(OAuthHttpHeader.of("Accept", "application/json")),
+      List.of(OAuthFormParameter.of("status", "Hello Ladies + Gentlemen, a signed OAuth request!")));
+
+  @Test
+  public void buildTest() {
+    OAuthHttpRequestBuilder builder = new OAuthHttpRequestBuilder(0, 0, 0);
+
+    OAuthHttpRequest built = builder.method("POST")
+        .url("https://api.twitter.com/1.1/statuses/update.json")
+        .queryParameter("include_entities", "true").header("Accept", "application/json")
+        .formParameter("status", "Hello Ladies + Gentlemen, a signed OAuth request!").build();
+    assertThat(built, is(REQUEST));
+
+    OAuthHttpRequest reused =
+        builder.reset().method("GET").url("https://www.example.com/").build();
+    assertThat(reused, is(OAuthHttpRequest.of("GET", "https://www.example.com/", List.of(),
+        List.of(), List.of())));
+
+    // Building again must not have changed the first request
+    assertThat(built, is(REQUEST));
+  }
+
+  @Test
+  public void fromTest() {
+    OAuthHttpHeader authorization = OAuthHttpHeader.of("Authorization", "OAuth");
+
+    assertThat(OAuthHttpRequestBuilder.from(REQUEST).build(), is(REQUEST));
+    assertThat(OAuthHttpRequestBuilder.from(REQUEST).buildWithHeader(authorization),
+        is(REQUEST.withHeader(authorization)));
+    assertThat(REQUEST.withHeader(authorization).getHeaders(),
+        is(List.of(OAuthHttpHeader.of("Accept", "application/json"), authorization)));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void noMethodTest() {
+    new OAuthHttpRequestBuilder().url("https://www.example.com/").build();
+  }
+}
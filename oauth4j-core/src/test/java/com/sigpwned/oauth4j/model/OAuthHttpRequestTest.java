@@ -0,0 +1,58 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.model;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.model.OAuthHttpHeader;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequestBuilder;
+
+public class OAuthHttpRequestTest {
+  @Test
+  public void getHeadersTest() {
+    // Few enough headers to scan, and enough to use the index
+    for (int padding : new int[] {0, 20}) {
+      OAuthHttpRequestBuilder builder =
+          new OAuthHttpRequestBuilder().method("GET").url("https://www.example.com/");
+      for (int i = 0; i < padding; i++)
+        builder.header("X-Padding-" + i, "x");
+      OAuthHttpRequest request = builder.header("Accept", "text/plain")
+          .header("accept", "application/json").header("Content-Type", "text/plain").build();
+
+      assertThat(request.getHeader("ACCEPT"),
+          is(Optional.of(OAuthHttpHeader.of("Accept", "text/plain"))));
+      assertThat(request.getHeaders("Accept"),
+          is(List.of(OAuthHttpHeader.of("Accept", "text/plain"),
+              OAuthHttpHeader.of("accept", "application/json"))));
+      assertThat(request.getHeader("Authorization"), is(Optional.empty()));
+      assertThat(request.getHeaders("Authorization"), is(List.of()));
+
+      OAuthHttpRequest replaced =
+          request.withReplacedHeader(OAuthHttpHeader.of("ACCEPT", "text/html"));
+      assertThat(replaced.getHeaders("accept"),
+          is(List.of(OAuthHttpHeader.of("ACCEPT", "text/html"))));
+      assertThat(replaced.getHeaders().size(), is(padding + 2));
+    }
+  }
+}
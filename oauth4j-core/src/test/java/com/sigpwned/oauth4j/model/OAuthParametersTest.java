@@ -0,0 +1,83 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.model;
+
+import static java.util.Collections.emptyList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.util.List;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.model.OAuthFormParameter;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.model.OAuthParameters;
+import com.sigpwned.oauth4j.core.model.OAuthQueryParameter;
+
+public class OAuthParametersTest {
+  @Test
+  public void viewsTest() {
+    OAuthParameters parameters = OAuthParameters.of("a", "1", "b", "2");
+
+    assertThat(parameters.size(), is(2));
+    assertThat(parameters.getKey(1), is("b"));
+    assertThat(parameters.getValue(1), is("2"));
+    assertThat(parameters.asQueryParameters(),
+        is(List.of(OAuthQueryParameter.of("a", "1"), OAuthQueryParameter.of("b", "2"))));
+    assertThat(parameters.asFormParameters(),
+        is(List.of(OAuthFormParameter.of("a", "1"), OAuthFormParameter.of("b", "2"))));
+    assertThat(OAuthParameters.ofQueryParameters(parameters.asQueryParameters()),
+        is(sameInstance(parameters)));
+    assertThat(parameters.with("c", "3"), is(OAuthParameters.of("a", "1", "b", "2", "c", "3")));
+  }
+
+  /**
+   * Requests built from lists and requests built from compact parameters must be interchangeable
+   */
+  @Test
+  public void requestTest() {
+    OAuthHttpRequest fromLists = OAuthHttpRequest.of("POST", "https://www.example.com/",
+        List.of(OAuthQueryParameter.of("q", "1")), emptyList(),
+        List.of(OAuthFormParameter.of("f", "2")));
+    OAuthHttpRequest fromCompact = OAuthHttpRequest.of("POST", "https://www.example.com/",
+        OAuthParameters.of("q", "1"), emptyList(), OAuthParameters.of("f", "2"));
+
+    assertThat(fromLists, is(fromCompact));
+    assertThat(fromLists.hashCode(), is(fromCompact.hashCode()));
+    assertThat(fromCompact.getFormParameters(), is(List.of(OAuthFormParameter.of("f", "2"))));
+  }
+
+  /**
+   * A partly filled buffer must yield just its filled part, and later writes must not leak in
+   */
+  @Test
+  public void prefixTest() {
+    String[] buffer = new String[] {"a", "1", "b", "2", null, null};
+    OAuthParameters parameters = OAuthParameters.of(buffer, 4);
+    buffer[0] = "c";
+
+    assertThat(parameters, is(OAuthParameters.of("a", "1", "b", "2")));
+    assertThat(OAuthParameters.of(buffer, 0), sameInstance(OAuthParameters.EMPTY));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unpairedTest() {
+    OAuthParameters.of("a", "1", "b");
+  }
+}
@@ -0,0 +1,179 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.signer;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.nio.charset.StandardCharsets;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.model.OAuthConsumer;
+import com.sigpwned.oauth4j.core.model.OAuthFormParameter;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.model.OAuthQueryParameter;
+import com.sigpwned.oauth4j.core.signer.HmacSha1OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.signer.HmacSha256OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.signer.HmacSha512OAuthHttpRequestSigner;
+
+public class HmacOAuthHttpRequestSignerTest {
+  public static final String CONSUMER_KEY = "xvz1evFS4wEEPTGEFPHBog";
+  public static final String CONSUMER_SECRET = "kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw";
+  public static final String TOKEN = "370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb";
+  public static final String TOKEN_SECRET = "LswwdoUaIvS8ltyTt5jkRh4J50vUPVVHtR2YPi5kE";
+  public static final String NONCE = "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg";
+  public static final long TIMESTAMP = 1318622958L;
+
+  public static final OAuthHttpRequest REQUEST = OAuthHttpRequest.of("POST",
+      "https://api.twitter.com/1.1/statuses/update.json",
+      singletonList(OAuthQueryParameter.of("include_entities", "true")), emptyList(),
+      singletonList(
+          OAuthFormParameter.of("status", "Hello Ladies + Gentlemen, a signed OAuth request!")));
+
+  /**
+   * @see <a href=
+   *      "https://developer.twitter.com/en/docs/authentication/oauth-1-0a/creating-a-signature">https://developer.twitter.com/en/docs/authentication/oauth-1-0a/creating-a-signature</a>
+   */
+  @Test
+  public void signatureBaseStringTest() {
+    final HmacSha1OAuthHttpRequestSigner signer = new HmacSha1OAuthHttpRequestSigner() {
+      @Override
+      public byte[] sign(OAuthHttpRequest request, String oAuthNonce, long oAuthTimestamp,
+          String oAuthVersion, String consumerKey, String consumerSecret, String token,
+          String tokenSecret) {
+        return computeSignatureBaseString(request, oAuthNonce, oAuthTimestamp, oAuthVersion,
+            consumerKey, token);
+      }
+    };
+
+    String baseString = new String(signer.sign(REQUEST, NONCE, TIMESTAMP, "1.0", CONSUMER_KEY,
+        CONSUMER_SECRET, TOKEN, TOKEN_SECRET), StandardCharsets.US_ASCII);
+
+    assertThat(baseString, is(
+        "POST&https%3A%2F%2Fapi.twitter.com%2F1.1%2Fstatuses%2Fupdate.json&include_entities%3Dtrue%26oauth_consumer_key%3Dxvz1evFS4wEEPTGEFPHBog%26oauth_nonce%3DkYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg%26oauth_signature_method%3DHMAC-SHA1%26oauth_timestamp%3D1318622958%26oauth_token%3D370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb%26oauth_version%3D1.0%26status%3DHello%2520Ladies%2520%252B%2520Gentlemen%252C%2520a%2520signed%2520OAuth%2520request%2521"));
+  }
+
+  @Test
+  public void hmacSha256Test() throws Exception {
+    assertSignature(HmacSha256OAuthHttpRequestSigner.INSTANCE, "HmacSHA256", "HMAC-SHA256");
+  }
+
+  @Test
+  public void hmacSha512Test() throws Exception {
+    assertSignature(HmacSha512OAuthHttpRequestSigner.INSTANCE, "HmacSHA512", "HMAC-SHA512");
+  }
+
+  /**
+   * The signer caches its keyed Mac per thread, so make sure changing secrets re-keys it
+   */
+  @Test
+  public void rekeyTest() {
+    final OAuthHttpRequestSigner signer = HmacSha1OAuthHttpRequestSigner.INSTANCE;
+
+    byte[] signature1 = signer.sign(REQUEST, NONCE, TIMESTAMP, "1.0", CONSUMER_KEY,
+        CONSUMER_SECRET, TOKEN, TOKEN_SECRET);
+    byte[] signature2 =
+        signer.sign(REQUEST, NONCE, TIMESTAMP, "1.0", CONSUMER_KEY, CONSUMER_SECRET, TOKEN, "x");
+    byte[] signature3 = signer.sign(REQUEST, NONCE, TIMESTAMP, "1.0", CONSUMER_KEY,
+        CONSUMER_SECRET, TOKEN, TOKEN_SECRET);
+
+    assertThat(signature2, not(is(signature1)));
+    assertThat(signature3, is(signature1));
+  }
+
+  /**
+   * The cached Mac is keyed by consumer identity, so a different consumer must re-key it, and an
+   * equal copy must still sign the same
+   */
+  @Test
+  public void consumerRekeyTest() {
+    final OAuthHttpRequestSigner signer = HmacSha1OAuthHttpRequestSigner.INSTANCE;
+    final OAuthConsumer consumer = OAuthConsumer.of("twitter", CONSUMER_KEY, CONSUMER_SECRET);
+    final OAuthConsumer other = OAuthConsumer.of("other", CONSUMER_KEY, "x");
+
+    byte[] signature1 =
+        signer.sign(REQUEST, NONCE, TIMESTAMP, "1.0", consumer, TOKEN, TOKEN_SECRET, null);
+    byte[] signature2 =
+        signer.sign(REQUEST, NONCE, TIMESTAMP, "1.0", other, TOKEN, TOKEN_SECRET, null);
+    byte[] signature3 = signer.sign(REQUEST, NONCE, TIMESTAMP, "1.0",
+        OAuthConsumer.of("twitter", CONSUMER_KEY, CONSUMER_SECRET), TOKEN, TOKEN_SECRET, null);
+
+    assertThat(signature2, not(is(signature1)));
+    assertThat(signature3, is(signature1));
+    assertThat(signature1, is(signer.sign(REQUEST, NONCE, TIMESTAMP, "1.0", CONSUMER_KEY,
+        CONSUMER_SECRET, TOKEN, TOKEN_SECRET)));
+  }
+
+  /**
+   * A signer that only implements the basic sign method must still sign a body hash, with the same
+   * signature as the built-in implementation
+   */
+  @Test
+  public void defaultBodyHashTest() {
+    final OAuthHttpRequestSigner minimal = new OAuthHttpRequestSigner() {
+      @Override
+      public String getOAuthSignatureMethod() {
+        return HmacSha1OAuthHttpRequestSigner.INSTANCE.getOAuthSignatureMethod();
+      }
+
+      @Override
+      public byte[] sign(OAuthHttpRequest request, String oAuthNonce, long oAuthTimestamp,
+          String oAuthVersion, String consumerKey, String consumerSecret, String token,
+          String tokenSecret) {
+        return HmacSha1OAuthHttpRequestSigner.INSTANCE.sign(request, oAuthNonce, oAuthTimestamp,
+            oAuthVersion, consumerKey, consumerSecret, token, tokenSecret);
+      }
+    };
+    final OAuthHttpRequest request = OAuthHttpRequest.of("PUT", "https://www.example.com/upload",
+        singletonList(OAuthQueryParameter.of("a", "b")), emptyList(), emptyList());
+
+    assertThat(
+        minimal.sign(request, NONCE, TIMESTAMP, "1.0", CONSUMER_KEY, CONSUMER_SECRET, TOKEN,
+            TOKEN_SECRET, "Lve95gjOVATpfV8EL5X4nxwjKHE="),
+        is(HmacSha1OAuthHttpRequestSigner.INSTANCE.sign(request, NONCE, TIMESTAMP, "1.0",
+            CONSUMER_KEY, CONSUMER_SECRET, TOKEN, TOKEN_SECRET, "Lve95gjOVATpfV8EL5X4nxwjKHE=")));
+  }
+
+  private static void assertSignature(OAuthHttpRequestSigner signer, String algorithm,
+      String signatureMethod) throws Exception {
+    assertThat(signer.getOAuthSignatureMethod(), is(signatureMethod));
+
+    String baseString = "POST&https%3A%2F%2Fapi.twitter.com%2F1.1%2Fstatuses%2Fupdate.json&"
+        + "include_entities%3Dtrue%26oauth_consumer_key%3Dxvz1evFS4wEEPTGEFPHBog%26oauth_nonce%3D"
+        + "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg%26oauth_signature_method%3D" + signatureMethod
+        + "%26oauth_timestamp%3D1318622958%26oauth_token%3D"
+        + "370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb%26oauth_version%3D1.0%26status%3D"
+        + "Hello%2520Ladies%2520%252B%2520Gentlemen%252C%2520a%2520signed%2520OAuth%2520request%2521";
+    String signingKey = CONSUMER_SECRET + "&" + TOKEN_SECRET;
+
+    Mac mac = Mac.getInstance(algorithm);
+    mac.init(new SecretKeySpec(signingKey.getBytes(StandardCharsets.US_ASCII), algorithm));
+    byte[] expected = mac.doFinal(baseString.getBytes(StandardCharsets.US_ASCII));
+
+    byte[] signature = signer.sign(REQUEST, NONCE, TIMESTAMP, "1.0", CONSUMER_KEY,
+        CONSUMER_SECRET, TOKEN, TOKEN_SECRET);
+
+    assertThat(signature, is(expected));
+  }
+}
@@ -0,0 +1,187 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.signer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Optional;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.signer.AbstractRsaOAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.signer.PrivateKeyProvider;
+import com.sigpwned.oauth4j.core.signer.RsaSha1OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.signer.RsaSha256OAuthHttpRequestSigner;
+
+public class RsaOAuthHttpRequestSignerTest {
+  public static KeyPair keyPair;
+
+  public static KeyPair otherKeyPair;
+
+  public static String privateKeyPem;
+
+  public static String publicKeyPem;
+
+  @BeforeClass
+  public static void setupRsaOAuthHttpRequestSignerTest() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    keyPair = generator.generateKeyPair();
+    otherKeyPair = generator.generateKeyPair();
+    privateKeyPem = pem("PRIVATE KEY", keyPair.getPrivate().getEncoded());
+    publicKeyPem = pem("PUBLIC KEY", keyPair.getPublic().getEncoded());
+  }
+
+  @Test
+  public void rsaSha1Test() throws Exception {
+    assertRoundTrip(new RsaSha1OAuthHttpRequestSigner(keyPair.getPrivate()), "SHA1withRSA",
+        "RSA-SHA1");
+  }
+
+  @Test
+  public void rsaSha256Test() throws Exception {
+    assertRoundTrip(new RsaSha256OAuthHttpRequestSigner(keyPair.getPrivate()), "SHA256withRSA",
+        "RSA-SHA256");
+  }
+
+  /**
+   * A malformed signature must not poison the thread's cached verifier
+   */
+  @Test
+  public void malformedSignatureTest() {
+    final AbstractRsaOAuthHttpRequestSigner signer =
+        new RsaSha1OAuthHttpRequestSigner(keyPair.getPrivate());
+    signer.registerPublicKey(HmacOAuthHttpRequestSignerTest.CONSUMER_KEY, publicKeyPem);
+
+    byte[] signature = sign(signer);
+
+    assertThat(verify(signer, new byte[] {1, 2, 3}), is(false));
+    assertThat(verify(signer, signature), is(true));
+  }
+
+  /**
+   * Registered keys take precedence over the provider
+   */
+  @Test
+  public void registeredPrivateKeyTest() {
+    final AbstractRsaOAuthHttpRequestSigner signer =
+        new RsaSha256OAuthHttpRequestSigner(otherKeyPair.getPrivate());
+    signer.registerPrivateKey(HmacOAuthHttpRequestSignerTest.CONSUMER_KEY, privateKeyPem);
+    signer.registerPublicKey(HmacOAuthHttpRequestSignerTest.CONSUMER_KEY, keyPair.getPublic());
+
+    assertThat(verify(signer, sign(signer)), is(true));
+  }
+
+  /**
+   * Signers do not share keys, even for the same consumer key
+   */
+  @Test
+  public void separateSignersTest() {
+    final AbstractRsaOAuthHttpRequestSigner signer1 = new RsaSha1OAuthHttpRequestSigner();
+    signer1.registerPrivateKey(HmacOAuthHttpRequestSignerTest.CONSUMER_KEY, keyPair.getPrivate());
+    signer1.registerPublicKey(HmacOAuthHttpRequestSignerTest.CONSUMER_KEY, keyPair.getPublic());
+
+    final AbstractRsaOAuthHttpRequestSigner signer2 = new RsaSha1OAuthHttpRequestSigner();
+    signer2.registerPrivateKey(HmacOAuthHttpRequestSignerTest.CONSUMER_KEY,
+        otherKeyPair.getPrivate());
+    signer2.registerPublicKey(HmacOAuthHttpRequestSignerTest.CONSUMER_KEY,
+        otherKeyPair.getPublic());
+
+    assertThat(verify(signer1, sign(signer1)), is(true));
+    assertThat(verify(signer2, sign(signer2)), is(true));
+    assertThat(verify(signer1, sign(signer2)), is(false));
+  }
+
+  /**
+   * The provider is asked by consumer key, and the consumer secret never carries a key
+   */
+  @Test
+  public void providerTest() {
+    final PrivateKeyProvider provider =
+        consumerKey -> consumerKey.equals(HmacOAuthHttpRequestSignerTest.CONSUMER_KEY)
+            ? Optional.of(keyPair.getPrivate())
+            : Optional.empty();
+    final AbstractRsaOAuthHttpRequestSigner signer = new RsaSha256OAuthHttpRequestSigner(provider);
+    signer.registerPublicKey(HmacOAuthHttpRequestSignerTest.CONSUMER_KEY, keyPair.getPublic());
+
+    byte[] signature = signer.sign(HmacOAuthHttpRequestSignerTest.REQUEST,
+        HmacOAuthHttpRequestSignerTest.NONCE, HmacOAuthHttpRequestSignerTest.TIMESTAMP, "1.0",
+        HmacOAuthHttpRequestSignerTest.CONSUMER_KEY, "not a key",
+        HmacOAuthHttpRequestSignerTest.TOKEN, null);
+
+    assertThat(verify(signer, signature), is(true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void missingPrivateKeyTest() {
+    sign(new RsaSha1OAuthHttpRequestSigner());
+  }
+
+  private static void assertRoundTrip(AbstractRsaOAuthHttpRequestSigner signer, String algorithm,
+      String signatureMethod) throws Exception {
+    assertThat(signer.getOAuthSignatureMethod(), is(signatureMethod));
+
+    signer.registerPublicKey(HmacOAuthHttpRequestSignerTest.CONSUMER_KEY, publicKeyPem);
+
+    byte[] signature1 = sign(signer);
+    byte[] signature2 = sign(signer);
+
+    // PKCS#1 v1.5 signatures are deterministic
+    assertThat(signature2, is(signature1));
+    assertThat(verify(signer, signature1), is(true));
+
+    String baseString = "POST&https%3A%2F%2Fapi.twitter.com%2F1.1%2Fstatuses%2Fupdate.json&"
+        + "include_entities%3Dtrue%26oauth_consumer_key%3Dxvz1evFS4wEEPTGEFPHBog%26oauth_nonce%3D"
+        + "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg%26oauth_signature_method%3D" + signatureMethod
+        + "%26oauth_timestamp%3D1318622958%26oauth_token%3D"
+        + "370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb%26oauth_version%3D1.0%26status%3D"
+        + "Hello%2520Ladies%2520%252B%2520Gentlemen%252C%2520a%2520signed%2520OAuth%2520request%2521";
+    Signature verifier = Signature.getInstance(algorithm);
+    verifier.initVerify(keyPair.getPublic());
+    verifier.update(baseString.getBytes("US-ASCII"));
+    assertThat(verifier.verify(signature1), is(true));
+
+    signature1[0] ^= 1;
+    assertThat(verify(signer, signature1), is(false));
+  }
+
+  private static byte[] sign(AbstractRsaOAuthHttpRequestSigner signer) {
+    return signer.sign(HmacOAuthHttpRequestSignerTest.REQUEST,
+        HmacOAuthHttpRequestSignerTest.NONCE, HmacOAuthHttpRequestSignerTest.TIMESTAMP, "1.0",
+        HmacOAuthHttpRequestSignerTest.CONSUMER_KEY, null,
+        HmacOAuthHttpRequestSignerTest.TOKEN, null);
+  }
+
+  private static boolean verify(AbstractRsaOAuthHttpRequestSigner signer, byte[] signature) {
+    return signer.verify(HmacOAuthHttpRequestSignerTest.REQUEST,
+        HmacOAuthHttpRequestSignerTest.NONCE, HmacOAuthHttpRequestSignerTest.TIMESTAMP, "1.0",
+        HmacOAuthHttpRequestSignerTest.CONSUMER_KEY, HmacOAuthHttpRequestSignerTest.TOKEN,
+        signature);
+  }
+
+  private static String pem(String label, byte[] der) {
+    return "-----BEGIN " + label + "-----\n"
+        + Base64.getMimeEncoder(64, new byte[] {'\n'}).encodeToString(der) + "\n-----END " + label
+        + "-----\n";
+  }
+}
@@ -0,0 +1,72 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-core
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.util.BodyHashes;
+
+public class BodyHashesTest {
+  /**
+   * @see <a href=
+   *      "https://datatracker.ietf.org/doc/html/draft-eaton-oauth-bodyhash-00#appendix-A">https://datatracker.ietf.org/doc/html/draft-eaton-oauth-bodyhash-00#appendix-A</a>
+   */
+  @Test
+  public void knownValueTest() throws Exception {
+    final byte[] body = "Hello World!".getBytes(StandardCharsets.UTF_8);
+    assertThat(BodyHashes.hash(BodyHashes.SHA1_DIGEST_ALGORITHM, ByteBuffer.wrap(body)),
+        is("Lve95gjOVATpfV8EL5X4nxwjKHE="));
+  }
+
+  /**
+   * Every source must give the same hash for the same bytes
+   */
+  @Test
+  public void sourcesTest() throws Exception {
+    final byte[] body = new byte[3 * 64 * 1024 + 17];
+    new Random(0L).nextBytes(body);
+
+    final String expected =
+        BodyHashes.hash(BodyHashes.SHA256_DIGEST_ALGORITHM, ByteBuffer.wrap(body));
+
+    assertThat(BodyHashes.hash(BodyHashes.SHA256_DIGEST_ALGORITHM, new ByteArrayInputStream(body)),
+        is(expected));
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(body.length);
+    direct.put(body).flip();
+    assertThat(BodyHashes.hash(BodyHashes.SHA256_DIGEST_ALGORITHM, direct), is(expected));
+    assertThat(direct.remaining(), is(body.length));
+
+    Path file = Files.createTempFile("body", ".bin");
+    try {
+      Files.write(file, body);
+      assertThat(BodyHashes.hash(BodyHashes.SHA256_DIGEST_ALGORITHM, file), is(expected));
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
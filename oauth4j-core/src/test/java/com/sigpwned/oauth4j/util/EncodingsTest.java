@@ -21,6 +21,8 @@ package com.sigpwned.oauth4j.util;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
 import org.junit.Test;
 import com.sigpwned.oauth4j.core.util.Encodings;
 
@@ -30,8 +32,123 @@ public class EncodingsTest {
     assertThat(Encodings.urlencode("hello, world!"), is("hello%2C%20world%21"));
   }
 
+  /**
+   * Strings with nothing to encode must come back as the same instance
+   */
+  @Test
+  public void urlencodeFastPathTest() {
+    String s = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-._~";
+    assertThat(Encodings.urlencode(s) == s, is(true));
+  }
+
+  /**
+   * The encoder checks eight bytes at a time, so put every kind of byte at every position of
+   * several words, and in the leftover tail, and compare against the byte-at-a-time definition
+   */
+  @Test
+  public void urlencodeWordBoundaryTest() {
+    StringBuilder alphabet = new StringBuilder();
+    for (char ch = 0; ch < 0x100; ch++)
+      alphabet.append(ch);
+    alphabet.append("\u20ac\ud83d\ude00\ud83d");
+
+    for (int length = 0; length <= 27; length++) {
+      for (int position = 0; position < length; position++) {
+        for (int i = 0; i < alphabet.length(); i++) {
+          StringBuilder b = new StringBuilder();
+          for (int j = 0; j < length; j++)
+            b.append(j == position ? alphabet.charAt(i) : (char) ('a' + j % 26));
+          String s = b.toString();
+          assertThat(s, Encodings.urlencode(s), is(referenceUrlencode(s)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void urlencodeLargeTest() {
+    Random random = new Random(0L);
+    for (int length : new int[] {1000, 65536, 300000}) {
+      StringBuilder b = new StringBuilder();
+      while (b.length() < length) {
+        int run = random.nextInt(64);
+        for (int i = 0; i < run; i++)
+          b.append((char) ('a' + random.nextInt(26)));
+        b.append(" {}\",:%&=+/\u00e9".charAt(random.nextInt(12)));
+      }
+      String s = b.toString();
+      assertThat(Encodings.urlencode(s), is(referenceUrlencode(s)));
+      assertThat(Encodings.urldecode(Encodings.urlencode(s)), is(s));
+    }
+  }
+
+  private static String referenceUrlencode(String s) {
+    StringBuilder result = new StringBuilder();
+    for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+      if ((b >= '0' && b <= '9') || (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || b == '-'
+          || b == '.' || b == '_' || b == '~')
+        result.append((char) b);
+      else
+        result.append(String.format("%%%02X", b & 0xFF));
+    }
+    return result.toString();
+  }
+
   @Test
   public void urldecodeTest() {
     assertThat(Encodings.urldecode("hello%2C%20world%21"), is("hello, world!"));
   }
+
+  /**
+   * Strings with nothing to decode must come back as the same instance
+   */
+  @Test
+  public void urldecodeFastPathTest() {
+    String s = "hello+world";
+    assertThat(Encodings.urldecode(s) == s, is(true));
+    assertThat(Encodings.urldecode(s), is("hello+world"));
+    assertThat(Encodings.urldecodeForm(s), is("hello world"));
+  }
+
+  @Test
+  public void urldecodeSliceTest() {
+    String s = "a=caf%C3%A9+au+lait&b=2";
+    assertThat(Encodings.urldecode(s, 2, 17), is("caf\u00e9+au+lait"));
+    assertThat(Encodings.urldecodeForm(s, 2, 17), is("caf\u00e9 au lait"));
+    assertThat(Encodings.urldecodeForm(s, 20, 3), is("b=2"));
+    assertThat(Encodings.urldecode(s, 0, 0), is(""));
+  }
+
+  /**
+   * Unencoded non-ASCII text before the first escape must survive decoding
+   */
+  @Test
+  public void urldecodeNonAsciiPrefixTest() {
+    assertThat(Encodings.urldecode("\u00e9%20x"), is("\u00e9 x"));
+    assertThat(Encodings.urldecodeForm("\ud83d\ude00 caf\u00e9+%E2%82%AC"),
+        is("\ud83d\ude00 caf\u00e9 \u20ac"));
+    assertThat(Encodings.urldecode("a=\u00e9%20x", 2, 5), is("\u00e9 x"));
+  }
+
+  @Test
+  public void urldecodeRoundTripTest() {
+    for (String s : new String[] {"", "hello, world!", "caf\u00e9 \u20ac", "\ud83d\ude00"})
+      assertThat(Encodings.urldecodeForm(Encodings.urlencode(s)), is(s));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void urldecodeIncompleteTest() {
+    Encodings.urldecode("100%2");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void urldecodeInvalidTest() {
+    Encodings.urldecode("100%G0");
+  }
+
+  @Test
+  public void urlencodedLengthTest() {
+    for (String s : new String[] {"", "hello, world!", "caf\u00e9 \u20ac", "\ud83d\ude00", "\ud83d!"})
+      assertThat(Encodings.urlencodedLength(s), is((long) Encodings.urlencode(s).length()));
+  }
 }
@@ -0,0 +1,308 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server;
+
+import java.time.Duration;
+import java.util.Objects;
+import com.sigpwned.oauth4j.core.OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.annotation.Generated;
+import com.sigpwned.oauth4j.core.signer.HmacSha1OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.server.circuit.CircuitBreakerPolicy;
+import com.sigpwned.oauth4j.server.hedge.HedgingPolicy;
+import com.sigpwned.oauth4j.server.ratelimit.RateLimitPolicy;
+
+/**
+ * Describes one OAuth 1.0a provider: where its endpoints live, how it signs, where we serve its
+ * flow, and how much of our capacity it may use.
+ */
+public class OAuth1ProviderDescriptor {
+  public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 16;
+
+  public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10L);
+
+  public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30L);
+
+  public static final OAuth1ProviderDescriptor TWITTER = of("twitter",
+      "https://api.twitter.com/oauth/request_token", "https://api.twitter.com/oauth/authenticate",
+      "https://api.twitter.com/oauth/access_token", HmacSha1OAuthHttpRequestSigner.INSTANCE);
+
+  /**
+   * @return the base path we serve a provider's flow under by default, e.g., oauth/twitter/1
+   */
+  public static String defaultBasePath(String name) {
+    return "oauth/" + name + "/1";
+  }
+
+  public static OAuth1ProviderDescriptor of(String name, String requestTokenUrl,
+      String authenticateUrl, String accessTokenUrl, OAuthHttpRequestSigner signer) {
+    return new OAuth1ProviderDescriptor(name, defaultBasePath(name), requestTokenUrl,
+        authenticateUrl, accessTokenUrl, signer, DEFAULT_MAX_CONCURRENT_REQUESTS,
+        DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, CircuitBreakerPolicy.DEFAULT,
+        HedgingPolicy.NONE, RateLimitPolicy.DEFAULT);
+  }
+
+  private final String name;
+  private final String basePath;
+  private final String requestTokenUrl;
+  private final String authenticateUrl;
+  private final String accessTokenUrl;
+  private final OAuthHttpRequestSigner signer;
+
+  /**
+   * The most requests we make to this provider at once. Requests beyond this fail immediately
+   * rather than waiting, so a slow provider cannot tie up our threads.
+   */
+  private final int maxConcurrentRequests;
+
+  private final Duration connectTimeout;
+  private final Duration requestTimeout;
+
+  /**
+   * When to stop calling this provider because it is failing
+   */
+  private final CircuitBreakerPolicy circuitBreakerPolicy;
+
+  /**
+   * When to send a backup request to a slow token endpoint. Off by default.
+   */
+  private final HedgingPolicy hedgingPolicy;
+
+  /**
+   * How often each of our clients may start this provider's flow
+   */
+  private final RateLimitPolicy clientRateLimitPolicy;
+
+  public OAuth1ProviderDescriptor(String name, String basePath, String requestTokenUrl,
+      String authenticateUrl, String accessTokenUrl, OAuthHttpRequestSigner signer,
+      int maxConcurrentRequests, Duration connectTimeout, Duration requestTimeout,
+      CircuitBreakerPolicy circuitBreakerPolicy, HedgingPolicy hedgingPolicy,
+      RateLimitPolicy clientRateLimitPolicy) {
+    if (name == null)
+      throw new NullPointerException();
+    if (basePath == null)
+      throw new NullPointerException();
+    if (requestTokenUrl == null)
+      throw new NullPointerException();
+    if (authenticateUrl == null)
+      throw new NullPointerException();
+    if (accessTokenUrl == null)
+      throw new NullPointerException();
+    if (signer == null)
+      throw new NullPointerException();
+    if (maxConcurrentRequests < 1)
+      throw new IllegalArgumentException("maxConcurrentRequests must be positive");
+    if (connectTimeout == null)
+      throw new NullPointerException();
+    if (requestTimeout == null)
+      throw new NullPointerException();
+    if (circuitBreakerPolicy == null)
+      throw new NullPointerException();
+    if (hedgingPolicy == null)
+      throw new NullPointerException();
+    if (clientRateLimitPolicy == null)
+      throw new NullPointerException();
+    this.name = name;
+    this.basePath = basePath;
+    this.requestTokenUrl = requestTokenUrl;
+    this.authenticateUrl = authenticateUrl;
+    this.accessTokenUrl = accessTokenUrl;
+    this.signer = signer;
+    this.maxConcurrentRequests = maxConcurrentRequests;
+    this.connectTimeout = connectTimeout;
+    this.requestTimeout = requestTimeout;
+    this.circuitBreakerPolicy = circuitBreakerPolicy;
+    this.hedgingPolicy = hedgingPolicy;
+    this.clientRateLimitPolicy = clientRateLimitPolicy;
+  }
+
+  /**
+   * @return a copy of this descriptor with the given endpoint URLs, e.g., for testing
+   */
+  public OAuth1ProviderDescriptor withUrls(String requestTokenUrl, String authenticateUrl,
+      String accessTokenUrl) {
+    return new OAuth1ProviderDescriptor(name, basePath, requestTokenUrl, authenticateUrl,
+        accessTokenUrl, signer, maxConcurrentRequests, connectTimeout, requestTimeout,
+        circuitBreakerPolicy, hedgingPolicy, clientRateLimitPolicy);
+  }
+
+  /**
+   * @return a copy of this descriptor with the given concurrency limit
+   */
+  public OAuth1ProviderDescriptor withMaxConcurrentRequests(int maxConcurrentRequests) {
+    return new OAuth1ProviderDescriptor(name, basePath, requestTokenUrl, authenticateUrl,
+        accessTokenUrl, signer, maxConcurrentRequests, connectTimeout, requestTimeout,
+        circuitBreakerPolicy, hedgingPolicy, clientRateLimitPolicy);
+  }
+
+  /**
+   * @return a copy of this descriptor with the given circuit breaker policy
+   */
+  public OAuth1ProviderDescriptor withCircuitBreakerPolicy(
+      CircuitBreakerPolicy circuitBreakerPolicy) {
+    return new OAuth1ProviderDescriptor(name, basePath, requestTokenUrl, authenticateUrl,
+        accessTokenUrl, signer, maxConcurrentRequests, connectTimeout, requestTimeout,
+        circuitBreakerPolicy, hedgingPolicy, clientRateLimitPolicy);
+  }
+
+  /**
+   * @return a copy of this descriptor with the given hedging policy
+   */
+  public OAuth1ProviderDescriptor withHedgingPolicy(HedgingPolicy hedgingPolicy) {
+    return new OAuth1ProviderDescriptor(name, basePath, requestTokenUrl, authenticateUrl,
+        accessTokenUrl, signer, maxConcurrentRequests, connectTimeout, requestTimeout,
+        circuitBreakerPolicy, hedgingPolicy, clientRateLimitPolicy);
+  }
+
+  /**
+   * @return a copy of this descriptor with the given per-client rate limit policy
+   */
+  public OAuth1ProviderDescriptor withClientRateLimitPolicy(
+      RateLimitPolicy clientRateLimitPolicy) {
+    return new OAuth1ProviderDescriptor(name, basePath, requestTokenUrl, authenticateUrl,
+        accessTokenUrl, signer, maxConcurrentRequests, connectTimeout, requestTimeout,
+        circuitBreakerPolicy, hedgingPolicy, clientRateLimitPolicy);
+  }
+
+  /**
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the basePath
+   */
+  public String getBasePath() {
+    return basePath;
+  }
+
+  /**
+   * @return the requestTokenUrl
+   */
+  public String getRequestTokenUrl() {
+    return requestTokenUrl;
+  }
+
+  /**
+   * @return the authenticateUrl
+   */
+  public String getAuthenticateUrl() {
+    return authenticateUrl;
+  }
+
+  /**
+   * @return the accessTokenUrl
+   */
+  public String getAccessTokenUrl() {
+    return accessTokenUrl;
+  }
+
+  /**
+   * @return the signer
+   */
+  public OAuthHttpRequestSigner getSigner() {
+    return signer;
+  }
+
+  /**
+   * @return the maxConcurrentRequests
+   */
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+
+  /**
+   * @return the connectTimeout
+   */
+  public Duration getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  /**
+   * @return the requestTimeout
+   */
+  public Duration getRequestTimeout() {
+    return requestTimeout;
+  }
+
+  /**
+   * @return the circuitBreakerPolicy
+   */
+  public CircuitBreakerPolicy getCircuitBreakerPolicy() {
+    return circuitBreakerPolicy;
+  }
+
+  /**
+   * @return the hedgingPolicy
+   */
+  public HedgingPolicy getHedgingPolicy() {
+    return hedgingPolicy;
+  }
+
+  /**
+   * @return the clientRateLimitPolicy
+   */
+  public RateLimitPolicy getClientRateLimitPolicy() {
+    return clientRateLimitPolicy;
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(accessTokenUrl, authenticateUrl, basePath, circuitBreakerPolicy,
+        clientRateLimitPolicy, connectTimeout, hedgingPolicy, maxConcurrentRequests, name,
+        requestTimeout, requestTokenUrl, signer);
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    OAuth1ProviderDescriptor other = (OAuth1ProviderDescriptor) obj;
+    return Objects.equals(accessTokenUrl, other.accessTokenUrl)
+        && Objects.equals(authenticateUrl, other.authenticateUrl)
+        && Objects.equals(basePath, other.basePath)
+        && Objects.equals(circuitBreakerPolicy, other.circuitBreakerPolicy)
+        && Objects.equals(clientRateLimitPolicy, other.clientRateLimitPolicy)
+        && Objects.equals(connectTimeout, other.connectTimeout)
+        && Objects.equals(hedgingPolicy, other.hedgingPolicy)
+        && maxConcurrentRequests == other.maxConcurrentRequests && Objects.equals(name, other.name)
+        && Objects.equals(requestTimeout, other.requestTimeout)
+        && Objects.equals(requestTokenUrl, other.requestTokenUrl)
+        && Objects.equals(signer, other.signer);
+  }
+
+  @Override
+  @Generated
+  public String toString() {
+    return "OAuth1ProviderDescriptor [name=" + name + ", basePath=" + basePath
+        + ", requestTokenUrl=" + requestTokenUrl + ", authenticateUrl=" + authenticateUrl
+        + ", accessTokenUrl=" + accessTokenUrl + ", signer=" + signer + ", maxConcurrentRequests="
+        + maxConcurrentRequests + ", connectTimeout=" + connectTimeout + ", requestTimeout="
+        + requestTimeout + ", circuitBreakerPolicy=" + circuitBreakerPolicy + ", hedgingPolicy="
+        + hedgingPolicy + ", clientRateLimitPolicy=" + clientRateLimitPolicy + "]";
+  }
+}
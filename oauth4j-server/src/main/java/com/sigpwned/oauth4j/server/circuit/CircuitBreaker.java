@@ -0,0 +1,248 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.circuit;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A circuit breaker for calls to one remote service. While closed, it lets every call through and
+ * tracks the failure rate over a rolling window. When the failure rate gets too high, it opens and
+ * rejects every call immediately, so callers stop waiting on a service that is down. After a while,
+ * it goes half-open and lets a few probe calls through. If they succeed, it closes again;
+ * otherwise, it opens again.
+ *
+ * Callers must ask for permission before each call and then report exactly one outcome for each
+ * permitted call: {@link #onSuccess()}, {@link #onFailure()}, or {@link #onIgnored()}.
+ *
+ * Every method is synchronized. The breaker guards remote calls, so the lock is never the
+ * bottleneck.
+ */
+public class CircuitBreaker {
+  public static enum State {
+    CLOSED, OPEN, HALF_OPEN;
+  }
+
+  /**
+   * Hears about every state change, e.g., to publish metrics. Listeners are called while the
+   * breaker is locked, so they should be quick.
+   */
+  @FunctionalInterface
+  public static interface Listener {
+    public void onStateChange(CircuitBreaker breaker, State from, State to);
+  }
+
+  private final String name;
+  private final CircuitBreakerPolicy policy;
+  private final List<Listener> listeners;
+  private final long bucketNanos;
+  private final long[] bucketEpochs;
+  private final int[] bucketCalls;
+  private final int[] bucketFailures;
+  private final Map<State, Long> stateChanges;
+  private State state;
+  private long openedAt;
+  private int probesInFlight;
+  private int probesSucceeded;
+  private long rejectedCalls;
+
+  public CircuitBreaker(String name, CircuitBreakerPolicy policy) {
+    if (name == null)
+      throw new NullPointerException();
+    if (policy == null)
+      throw new NullPointerException();
+    this.name = name;
+    this.policy = policy;
+    this.listeners = new CopyOnWriteArrayList<>();
+    this.bucketNanos = Math.max(1L, policy.getWindow().toNanos() / policy.getWindowBuckets());
+    this.bucketEpochs = new long[policy.getWindowBuckets()];
+    this.bucketCalls = new int[policy.getWindowBuckets()];
+    this.bucketFailures = new int[policy.getWindowBuckets()];
+    this.stateChanges = new EnumMap<>(State.class);
+    for (State s : State.values())
+      stateChanges.put(s, 0L);
+    this.state = State.CLOSED;
+  }
+
+  /**
+   * @return true if the caller may make the call, or false if it should fail fast
+   */
+  public synchronized boolean tryAcquirePermission() {
+    if (state == State.OPEN) {
+      if (nanoTime() - openedAt < policy.getOpenDuration().toNanos()) {
+        rejectedCalls = rejectedCalls + 1;
+        return false;
+      }
+      probesInFlight = 0;
+      probesSucceeded = 0;
+      transition(State.HALF_OPEN);
+    }
+    if (state == State.HALF_OPEN) {
+      if (probesInFlight + probesSucceeded >= policy.getHalfOpenProbes()) {
+        rejectedCalls = rejectedCalls + 1;
+        return false;
+      }
+      probesInFlight = probesInFlight + 1;
+    }
+    return true;
+  }
+
+  public synchronized void onSuccess() {
+    if (state == State.HALF_OPEN) {
+      if (probesInFlight > 0)
+        probesInFlight = probesInFlight - 1;
+      probesSucceeded = probesSucceeded + 1;
+      if (probesSucceeded >= policy.getHalfOpenProbes()) {
+        clearWindow();
+        transition(State.CLOSED);
+      }
+    } else if (state == State.CLOSED) {
+      record(false);
+    }
+  }
+
+  public synchronized void onFailure() {
+    if (state == State.HALF_OPEN) {
+      open();
+    } else if (state == State.CLOSED) {
+      record(true);
+      int calls = 0;
+      int failures = 0;
+      long epoch = nanoTime() / bucketNanos;
+      for (int i = 0; i < bucketEpochs.length; i++) {
+        if (epoch - bucketEpochs[i] < bucketEpochs.length) {
+          calls = calls + bucketCalls[i];
+          failures = failures + bucketFailures[i];
+        }
+      }
+      if (calls >= policy.getMinimumCalls()
+          && failures >= policy.getFailureRateThreshold() * calls)
+        open();
+    }
+  }
+
+  /**
+   * Reports a permitted call whose outcome says nothing about the remote service, e.g., because
+   * the caller was interrupted
+   */
+  public synchronized void onIgnored() {
+    if (state == State.HALF_OPEN && probesInFlight > 0)
+      probesInFlight = probesInFlight - 1;
+  }
+
+  /**
+   * @return how much longer the breaker will stay open, or zero if it is not open
+   */
+  public synchronized Duration getRemainingOpenDuration() {
+    if (state != State.OPEN)
+      return Duration.ZERO;
+    long remaining = policy.getOpenDuration().toNanos() - (nanoTime() - openedAt);
+    return remaining > 0L ? Duration.ofNanos(remaining) : Duration.ZERO;
+  }
+
+  public void addListener(Listener listener) {
+    if (listener == null)
+      throw new NullPointerException();
+    listeners.add(listener);
+  }
+
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the policy
+   */
+  public CircuitBreakerPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * @return the state
+   */
+  public synchronized State getState() {
+    return state;
+  }
+
+  /**
+   * @return how many times the breaker has entered the given state
+   */
+  public synchronized long getStateChangeCount(State to) {
+    return stateChanges.get(to);
+  }
+
+  /**
+   * @return how many calls the breaker has turned away
+   */
+  public synchronized long getRejectedCallCount() {
+    return rejectedCalls;
+  }
+
+  /**
+   * test hook
+   */
+  protected long nanoTime() {
+    return System.nanoTime();
+  }
+
+  private void record(boolean failure) {
+    long epoch = nanoTime() / bucketNanos;
+    int index = (int) Math.floorMod(epoch, (long) bucketEpochs.length);
+    if (bucketEpochs[index] != epoch) {
+      bucketEpochs[index] = epoch;
+      bucketCalls[index] = 0;
+      bucketFailures[index] = 0;
+    }
+    bucketCalls[index] = bucketCalls[index] + 1;
+    if (failure)
+      bucketFailures[index] = bucketFailures[index] + 1;
+  }
+
+  private void clearWindow() {
+    for (int i = 0; i < bucketEpochs.length; i++) {
+      bucketCalls[i] = 0;
+      bucketFailures[i] = 0;
+    }
+  }
+
+  private void open() {
+    openedAt = nanoTime();
+    clearWindow();
+    transition(State.OPEN);
+  }
+
+  private void transition(State to) {
+    State from = state;
+    state = to;
+    stateChanges.put(to, stateChanges.get(to) + 1L);
+    for (Listener listener : listeners)
+      listener.onStateChange(this, from, to);
+  }
+}
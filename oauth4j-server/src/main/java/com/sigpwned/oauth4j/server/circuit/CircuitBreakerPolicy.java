@@ -0,0 +1,176 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.circuit;
+
+import java.time.Duration;
+import java.util.Objects;
+import com.sigpwned.oauth4j.core.annotation.Generated;
+
+/**
+ * When a {@link CircuitBreaker} opens, and for how long.
+ */
+public class CircuitBreakerPolicy {
+  public static final int DEFAULT_WINDOW_BUCKETS = 10;
+
+  public static final int DEFAULT_HALF_OPEN_PROBES = 1;
+
+  /**
+   * Opens when at least half of at least 20 calls in the last 10 seconds failed, and stays open
+   * for 30 seconds before letting one probe through.
+   */
+  public static final CircuitBreakerPolicy DEFAULT =
+      of(Duration.ofSeconds(10L), 20, 0.5, Duration.ofSeconds(30L));
+
+  public static CircuitBreakerPolicy of(Duration window, int minimumCalls,
+      double failureRateThreshold, Duration openDuration) {
+    return new CircuitBreakerPolicy(window, DEFAULT_WINDOW_BUCKETS, minimumCalls,
+        failureRateThreshold, openDuration, DEFAULT_HALF_OPEN_PROBES);
+  }
+
+  /**
+   * How far back the failure rate looks
+   */
+  private final Duration window;
+
+  /**
+   * How many slices the window is divided into. The window rolls forward one slice at a time.
+   */
+  private final int windowBuckets;
+
+  /**
+   * The breaker never opens on fewer calls than this in the window, so a single early failure
+   * cannot open it
+   */
+  private final int minimumCalls;
+
+  /**
+   * The breaker opens when the fraction of failed calls in the window reaches this value
+   */
+  private final double failureRateThreshold;
+
+  /**
+   * How long the breaker fails fast before letting probes through
+   */
+  private final Duration openDuration;
+
+  /**
+   * How many probes must succeed in a row to close the breaker again
+   */
+  private final int halfOpenProbes;
+
+  public CircuitBreakerPolicy(Duration window, int windowBuckets, int minimumCalls,
+      double failureRateThreshold, Duration openDuration, int halfOpenProbes) {
+    if (window == null)
+      throw new NullPointerException();
+    if (window.isNegative() || window.isZero())
+      throw new IllegalArgumentException("window must be positive");
+    if (windowBuckets < 1)
+      throw new IllegalArgumentException("windowBuckets must be positive");
+    if (minimumCalls < 1)
+      throw new IllegalArgumentException("minimumCalls must be positive");
+    if (!(failureRateThreshold > 0.0 && failureRateThreshold <= 1.0))
+      throw new IllegalArgumentException("failureRateThreshold must be in (0, 1]");
+    if (openDuration == null)
+      throw new NullPointerException();
+    if (openDuration.isNegative())
+      throw new IllegalArgumentException("openDuration must not be negative");
+    if (halfOpenProbes < 1)
+      throw new IllegalArgumentException("halfOpenProbes must be positive");
+    this.window = window;
+    this.windowBuckets = windowBuckets;
+    this.minimumCalls = minimumCalls;
+    this.failureRateThreshold = failureRateThreshold;
+    this.openDuration = openDuration;
+    this.halfOpenProbes = halfOpenProbes;
+  }
+
+  /**
+   * @return the window
+   */
+  public Duration getWindow() {
+    return window;
+  }
+
+  /**
+   * @return the windowBuckets
+   */
+  public int getWindowBuckets() {
+    return windowBuckets;
+  }
+
+  /**
+   * @return the minimumCalls
+   */
+  public int getMinimumCalls() {
+    return minimumCalls;
+  }
+
+  /**
+   * @return the failureRateThreshold
+   */
+  public double getFailureRateThreshold() {
+    return failureRateThreshold;
+  }
+
+  /**
+   * @return the openDuration
+   */
+  public Duration getOpenDuration() {
+    return openDuration;
+  }
+
+  /**
+   * @return the halfOpenProbes
+   */
+  public int getHalfOpenProbes() {
+    return halfOpenProbes;
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(failureRateThreshold, halfOpenProbes, minimumCalls, openDuration, window,
+        windowBuckets);
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    CircuitBreakerPolicy other = (CircuitBreakerPolicy) obj;
+    return Double.doubleToLongBits(failureRateThreshold) == Double
+        .doubleToLongBits(other.failureRateThreshold) && halfOpenProbes == other.halfOpenProbes
+        && minimumCalls == other.minimumCalls && Objects.equals(openDuration, other.openDuration)
+        && Objects.equals(window, other.window) && windowBuckets == other.windowBuckets;
+  }
+
+  @Override
+  @Generated
+  public String toString() {
+    return "CircuitBreakerPolicy [window=" + window + ", windowBuckets=" + windowBuckets
+        + ", minimumCalls=" + minimumCalls + ", failureRateThreshold=" + failureRateThreshold
+        + ", openDuration=" + openDuration + ", halfOpenProbes=" + halfOpenProbes + "]";
+  }
+}
@@ -0,0 +1,250 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.hedge;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Sends a backup copy of a slow request and takes whichever copy answers first. Each copy comes
+ * from its own call to the attempt supplier, so callers can sign each one independently, e.g.,
+ * with a fresh nonce.
+ *
+ * Hedges are rationed by a budget: each request earns a fraction of a hedge, and each hedge spends
+ * one. When a provider is slow for everyone, the budget runs out and hedging stops, so hedging
+ * cannot multiply load during an outage.
+ *
+ * The losing attempt's future is cancelled, but cancelling does not necessarily stop the work
+ * behind it. In particular, on Java 11 through 15, cancelling a future from
+ * {@link java.net.http.HttpClient#sendAsync} does not abort the exchange (JDK-8245462), so a losing
+ * HTTP attempt runs until it finishes or its request times out. Give attempts a request timeout to
+ * bound how long a loser can hold its connection.
+ */
+public class Hedger {
+  /**
+   * How many recent latencies the percentile is computed over
+   */
+  public static final int LATENCY_SAMPLES = 256;
+
+  /**
+   * The percentile is recomputed after this many new latencies, not on every request
+   */
+  private static final int RECOMPUTE_INTERVAL = 16;
+
+  private final HedgingPolicy policy;
+  private final Executor executor;
+  private final long[] latencies;
+  /**
+   * How many latencies the window holds, up to its length
+   */
+  private int latencyCount;
+  private int latencyIndex;
+
+  /**
+   * How many latencies have been recorded since the percentile was last recomputed
+   */
+  private int newLatencyCount;
+  private volatile long delayNanos;
+  private double budget;
+  private long hedges;
+  private long hedgeWins;
+  private long budgetDenials;
+
+  /**
+   * @param executor runs the delayed hedges
+   */
+  public Hedger(HedgingPolicy policy, Executor executor) {
+    if (policy == null)
+      throw new NullPointerException();
+    if (executor == null)
+      throw new NullPointerException();
+    this.policy = policy;
+    this.executor = executor;
+    this.latencies = new long[LATENCY_SAMPLES];
+    this.delayNanos = policy.getDelay().toNanos();
+    this.budget = policy.getMaxBudget();
+  }
+
+  /**
+   * Starts the first attempt now, and a second attempt if the first has not finished by the current
+   * hedging delay and the budget allows. The returned future completes with the first successful
+   * result, or fails if every attempt fails. The losing attempt's future is cancelled.
+   */
+  public <T> CompletableFuture<T> execute(Supplier<? extends CompletableFuture<T>> attempt) {
+    if (!policy.isEnabled())
+      return attempt.get();
+
+    earn();
+
+    final long start = nanoTime();
+    final CompletableFuture<T> result = new CompletableFuture<>();
+    final AtomicInteger pending = new AtomicInteger(1);
+    final AtomicReference<CompletableFuture<T>> hedge = new AtomicReference<>();
+
+    final CompletableFuture<T> primary = attempt.get();
+    primary.whenComplete((value, error) -> {
+      if (error == null)
+        recordLatency(nanoTime() - start);
+      settle(result, pending, value, error);
+    });
+
+    CompletableFuture.delayedExecutor(delayNanos, NANOSECONDS, executor).execute(() -> {
+      if (result.isDone())
+        return;
+      if (!trySpend())
+        return;
+      pending.incrementAndGet();
+      if (result.isDone()) {
+        // The primary finished while we were spending, so this hedge would be cancelled at once
+        refund();
+        return;
+      }
+      CompletableFuture<T> second;
+      try {
+        second = attempt.get();
+      } catch (RuntimeException e) {
+        settle(result, pending, null, e);
+        return;
+      }
+      hedge.set(second);
+      second.whenComplete((value, error) -> {
+        if (error == null && !result.isDone()) {
+          synchronized (this) {
+            hedgeWins = hedgeWins + 1;
+          }
+          // The primary is slower than this, so this is a lower bound on its latency
+          recordLatency(nanoTime() - start);
+        }
+        settle(result, pending, value, error);
+      });
+      if (result.isDone())
+        second.cancel(true);
+    });
+
+    result.whenComplete((value, error) -> {
+      primary.cancel(true);
+      CompletableFuture<T> second = hedge.get();
+      if (second != null)
+        second.cancel(true);
+    });
+
+    return result;
+  }
+
+  /**
+   * @return the current hedging delay
+   */
+  public long getDelayNanos() {
+    return delayNanos;
+  }
+
+  /**
+   * @return how many hedges have been sent
+   */
+  public synchronized long getHedgeCount() {
+    return hedges;
+  }
+
+  /**
+   * @return how many hedges answered before the request they backed up
+   */
+  public synchronized long getHedgeWinCount() {
+    return hedgeWins;
+  }
+
+  /**
+   * @return how many hedges were not sent because the budget was spent
+   */
+  public synchronized long getBudgetDenialCount() {
+    return budgetDenials;
+  }
+
+  /**
+   * @return the policy
+   */
+  public HedgingPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * test hook
+   */
+  protected long nanoTime() {
+    return System.nanoTime();
+  }
+
+  private static <T> void settle(CompletableFuture<T> result, AtomicInteger pending, T value,
+      Throwable error) {
+    if (error == null) {
+      result.complete(value);
+    } else if (pending.decrementAndGet() == 0) {
+      result.completeExceptionally(error);
+    }
+  }
+
+  private synchronized void earn() {
+    budget = Math.min(policy.getMaxBudget(), budget + policy.getBudgetRatio());
+  }
+
+  private synchronized boolean trySpend() {
+    if (budget < 1.0) {
+      budgetDenials = budgetDenials + 1;
+      return false;
+    }
+    budget = budget - 1.0;
+    hedges = hedges + 1;
+    return true;
+  }
+
+  private synchronized void refund() {
+    budget = Math.min(policy.getMaxBudget(), budget + 1.0);
+    hedges = hedges - 1;
+  }
+
+  private void recordLatency(long nanos) {
+    if (policy.getPercentile() <= 0.0)
+      return;
+
+    long[] snapshot = null;
+    synchronized (this) {
+      latencies[latencyIndex] = nanos;
+      latencyIndex = (latencyIndex + 1) % latencies.length;
+      if (latencyCount < latencies.length)
+        latencyCount = latencyCount + 1;
+      newLatencyCount = newLatencyCount + 1;
+      if (newLatencyCount == RECOMPUTE_INTERVAL) {
+        newLatencyCount = 0;
+        snapshot = Arrays.copyOf(latencies, latencyCount);
+      }
+    }
+
+    if (snapshot != null) {
+      Arrays.sort(snapshot);
+      int index =
+          Math.min(snapshot.length - 1, (int) (policy.getPercentile() * snapshot.length));
+      delayNanos = Math.max(policy.getMinDelay().toNanos(), snapshot[index]);
+    }
+  }
+}
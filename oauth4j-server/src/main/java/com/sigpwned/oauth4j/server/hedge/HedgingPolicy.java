@@ -0,0 +1,185 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.hedge;
+
+import java.time.Duration;
+import java.util.Objects;
+import com.sigpwned.oauth4j.core.annotation.Generated;
+
+/**
+ * When a {@link Hedger} sends a backup request, and how many it may send.
+ */
+public class HedgingPolicy {
+  public static final double DEFAULT_BUDGET_RATIO = 0.1;
+
+  public static final int DEFAULT_MAX_BUDGET = 10;
+
+  /**
+   * Never hedge
+   */
+  public static final HedgingPolicy NONE =
+      new HedgingPolicy(false, Duration.ZERO, 0.0, Duration.ZERO, 0.0, 0);
+
+  /**
+   * Hedge any request that has not answered after the given delay
+   */
+  public static HedgingPolicy fixed(Duration delay) {
+    return new HedgingPolicy(true, delay, 0.0, delay, DEFAULT_BUDGET_RATIO, DEFAULT_MAX_BUDGET);
+  }
+
+  /**
+   * Hedge any request that has not answered by the given percentile of recent latencies, e.g., 0.95
+   * for p95. The initial delay applies until enough latencies have been seen, and the delay never
+   * drops below the minimum delay.
+   */
+  public static HedgingPolicy percentile(double percentile, Duration initialDelay,
+      Duration minDelay) {
+    return new HedgingPolicy(true, initialDelay, percentile, minDelay, DEFAULT_BUDGET_RATIO,
+        DEFAULT_MAX_BUDGET);
+  }
+
+  private final boolean enabled;
+
+  /**
+   * The fixed delay, or the initial delay if hedging at a percentile
+   */
+  private final Duration delay;
+
+  /**
+   * The percentile of recent latencies to hedge at, or zero to always use the fixed delay
+   */
+  private final double percentile;
+
+  private final Duration minDelay;
+
+  /**
+   * Each request earns this fraction of a hedge, so hedges never exceed this fraction of requests
+   * over time, even when the provider is slow for everyone
+   */
+  private final double budgetRatio;
+
+  /**
+   * The most hedges that can be saved up for a burst
+   */
+  private final int maxBudget;
+
+  public HedgingPolicy(boolean enabled, Duration delay, double percentile, Duration minDelay,
+      double budgetRatio, int maxBudget) {
+    if (delay == null)
+      throw new NullPointerException();
+    if (delay.isNegative())
+      throw new IllegalArgumentException("delay must not be negative");
+    if (!(percentile >= 0.0 && percentile < 1.0))
+      throw new IllegalArgumentException("percentile must be in [0, 1)");
+    if (minDelay == null)
+      throw new NullPointerException();
+    if (minDelay.isNegative())
+      throw new IllegalArgumentException("minDelay must not be negative");
+    if (!(budgetRatio >= 0.0 && budgetRatio <= 1.0))
+      throw new IllegalArgumentException("budgetRatio must be in [0, 1]");
+    if (maxBudget < 0)
+      throw new IllegalArgumentException("maxBudget must not be negative");
+    this.enabled = enabled;
+    this.delay = delay;
+    this.percentile = percentile;
+    this.minDelay = minDelay;
+    this.budgetRatio = budgetRatio;
+    this.maxBudget = maxBudget;
+  }
+
+  /**
+   * @return a copy of this policy with the given budget
+   */
+  public HedgingPolicy withBudget(double budgetRatio, int maxBudget) {
+    return new HedgingPolicy(enabled, delay, percentile, minDelay, budgetRatio, maxBudget);
+  }
+
+  /**
+   * @return the enabled
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return the delay
+   */
+  public Duration getDelay() {
+    return delay;
+  }
+
+  /**
+   * @return the percentile
+   */
+  public double getPercentile() {
+    return percentile;
+  }
+
+  /**
+   * @return the minDelay
+   */
+  public Duration getMinDelay() {
+    return minDelay;
+  }
+
+  /**
+   * @return the budgetRatio
+   */
+  public double getBudgetRatio() {
+    return budgetRatio;
+  }
+
+  /**
+   * @return the maxBudget
+   */
+  public int getMaxBudget() {
+    return maxBudget;
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(budgetRatio, delay, enabled, maxBudget, minDelay, percentile);
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    HedgingPolicy other = (HedgingPolicy) obj;
+    return Double.doubleToLongBits(budgetRatio) == Double.doubleToLongBits(other.budgetRatio)
+        && Objects.equals(delay, other.delay) && enabled == other.enabled
+        && maxBudget == other.maxBudget && Objects.equals(minDelay, other.minDelay)
+        && Double.doubleToLongBits(percentile) == Double.doubleToLongBits(other.percentile);
+  }
+
+  @Override
+  @Generated
+  public String toString() {
+    return "HedgingPolicy [enabled=" + enabled + ", delay=" + delay + ", percentile=" + percentile
+        + ", minDelay=" + minDelay + ", budgetRatio=" + budgetRatio + ", maxBudget=" + maxBudget
+        + "]";
+  }
+}
@@ -0,0 +1,157 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket per client, implemented as the generic cell rate algorithm: each client's whole
+ * bucket is one long, the time at which its bucket will be full again, updated by compare-and-set.
+ * Checking a client never takes a lock.
+ *
+ * Clients are spread over independent stripes, each holding at most its share of the policy's
+ * maximum number of clients. A client whose bucket has refilled is indistinguishable from one never
+ * seen, so a full stripe first forgets those. If a stripe is still full, new clients share that
+ * stripe's overflow bucket until room opens up, so a flood of distinct clients can neither grow
+ * memory without bound nor push out the buckets of clients already being limited.
+ */
+public class ClientRateLimiter {
+  private static final int MAX_STRIPES = 64;
+
+  private final RateLimitPolicy policy;
+  private final LongSupplier nanoTime;
+  private final long intervalNanos;
+  private final long toleranceNanos;
+  private final int maxClientsPerStripe;
+  private final Stripe[] stripes;
+
+  public ClientRateLimiter(RateLimitPolicy policy) {
+    this(policy, System::nanoTime);
+  }
+
+  /**
+   * @param nanoTime the clock, in the manner of {@link System#nanoTime()}
+   */
+  public ClientRateLimiter(RateLimitPolicy policy, LongSupplier nanoTime) {
+    if (policy == null)
+      throw new NullPointerException();
+    if (nanoTime == null)
+      throw new NullPointerException();
+    this.policy = policy;
+    this.nanoTime = nanoTime;
+    this.intervalNanos = Math.max(1L, (long) (1000000000.0 / policy.getPermitsPerSecond()));
+    this.toleranceNanos = intervalNanos * (policy.getBurst() - 1);
+
+    int stripeCount = Math.min(MAX_STRIPES, Integer.highestOneBit(policy.getMaxClients()));
+    this.maxClientsPerStripe = Math.max(1, policy.getMaxClients() / stripeCount);
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripes.length; i++)
+      stripes[i] = new Stripe();
+  }
+
+  /**
+   * Takes one permit for the given client, if it has one.
+   *
+   * @return {@link Duration#ZERO} if the client may proceed, or else how long until it may
+   */
+  public Duration tryAcquire(String client) {
+    if (!policy.isEnabled())
+      return Duration.ZERO;
+
+    long now = nanoTime.getAsLong();
+    AtomicLong bucket = bucket(client, now);
+    while (true) {
+      long tat = bucket.get();
+      long start = tat - now > 0L ? tat : now;
+      long wait = start - toleranceNanos - now;
+      if (wait > 0L)
+        return Duration.ofNanos(wait);
+      if (bucket.compareAndSet(tat, start + intervalNanos))
+        return Duration.ZERO;
+    }
+  }
+
+  /**
+   * @return how many clients are being tracked right now
+   */
+  public int getTrackedClientCount() {
+    int result = 0;
+    for (Stripe stripe : stripes)
+      result = result + stripe.buckets.size();
+    return result;
+  }
+
+  /**
+   * @return the policy
+   */
+  public RateLimitPolicy getPolicy() {
+    return policy;
+  }
+
+  private AtomicLong bucket(String client, long now) {
+    Stripe stripe = stripes[spread(client.hashCode()) & (stripes.length - 1)];
+
+    AtomicLong result = stripe.buckets.get(client);
+    if (result != null)
+      return result;
+
+    if (stripe.buckets.size() >= maxClientsPerStripe) {
+      stripe.sweep(now);
+      if (stripe.buckets.size() >= maxClientsPerStripe)
+        return stripe.overflow;
+    }
+
+    return stripe.buckets.computeIfAbsent(client, k -> new AtomicLong(now));
+  }
+
+  private static int spread(int h) {
+    return h ^ (h >>> 16);
+  }
+
+  private final class Stripe {
+    private final ConcurrentHashMap<String, AtomicLong> buckets;
+    private final AtomicLong overflow;
+
+    /**
+     * When this stripe was last swept, so a flood of new clients sweeps at most once per interval
+     */
+    private final AtomicLong lastSweep;
+
+    public Stripe() {
+      this.buckets = new ConcurrentHashMap<>();
+      long now = nanoTime.getAsLong();
+      this.overflow = new AtomicLong(now);
+      this.lastSweep = new AtomicLong(now - intervalNanos);
+    }
+
+    /**
+     * Forgets every client whose bucket is full again
+     */
+    public void sweep(long now) {
+      long last = lastSweep.get();
+      if (now - last < intervalNanos || !lastSweep.compareAndSet(last, now))
+        return;
+      buckets.values().removeIf(bucket -> bucket.get() - now <= 0L);
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of sending a request that a provider's published rate limit says it will reject.
+ */
+public class QuotaExhaustedException extends RuntimeException {
+  private static final long serialVersionUID = 3390624521565389214L;
+
+  private final String endpoint;
+  private final Duration retryAfter;
+
+  public QuotaExhaustedException(String endpoint, Duration retryAfter) {
+    super("rate limit quota exhausted for " + endpoint + ", retry after " + retryAfter);
+    if (retryAfter == null)
+      throw new NullPointerException();
+    this.endpoint = endpoint;
+    this.retryAfter = retryAfter;
+  }
+
+  /**
+   * @return the endpoint
+   */
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  /**
+   * @return how long until the provider's quota resets
+   */
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
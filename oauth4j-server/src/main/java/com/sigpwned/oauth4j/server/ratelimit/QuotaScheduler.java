@@ -0,0 +1,275 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.ratelimit;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import com.sigpwned.oauth4j.core.authorizer.ClockSkewEstimator;
+
+/**
+ * Tracks the quota a provider publishes for each of its endpoints in the x-rate-limit-limit,
+ * x-rate-limit-remaining, and x-rate-limit-reset response headers, and schedules outbound requests
+ * against it. While plenty of quota remains, requests go immediately. Once the remaining quota
+ * drops below the pacing threshold, requests are spread evenly over the time left until the reset.
+ * Once the quota is gone, or pacing would need too long a wait, requests fail immediately with a
+ * {@link QuotaExhaustedException} instead of being sent only to be rejected.
+ *
+ * Each request reserves its share of the quota before it is sent, so concurrent requests cannot
+ * overshoot it. Endpoints that have not published a quota, or whose quota has reset since, are not
+ * limited. The reset time comes from the provider's clock, so given a {@link ClockSkewEstimator}
+ * for that provider, the scheduler compares it against the provider's estimated current time
+ * instead of ours.
+ */
+public class QuotaScheduler {
+  public static final String LIMIT_HEADER = "x-rate-limit-limit";
+
+  public static final String REMAINING_HEADER = "x-rate-limit-remaining";
+
+  /**
+   * When the quota resets, in epoch seconds
+   */
+  public static final String RESET_HEADER = "x-rate-limit-reset";
+
+  public static final double DEFAULT_PACING_THRESHOLD = 0.1;
+
+  public static final Duration DEFAULT_MAX_PACING_DELAY = Duration.ofSeconds(5L);
+
+  private final double pacingThreshold;
+  private final long maxPacingDelayMillis;
+  private final Optional<ClockSkewEstimator> clockSkewEstimator;
+  private final ConcurrentHashMap<String, Quota> quotas;
+
+  public QuotaScheduler() {
+    this(DEFAULT_PACING_THRESHOLD, DEFAULT_MAX_PACING_DELAY);
+  }
+
+  public QuotaScheduler(ClockSkewEstimator clockSkewEstimator) {
+    this(DEFAULT_PACING_THRESHOLD, DEFAULT_MAX_PACING_DELAY, clockSkewEstimator);
+  }
+
+  /**
+   * @param pacingThreshold the fraction of the quota below which requests are paced
+   * @param maxPacingDelay the longest a request may wait for its turn before failing instead
+   */
+  public QuotaScheduler(double pacingThreshold, Duration maxPacingDelay) {
+    this(pacingThreshold, maxPacingDelay, Optional.empty());
+  }
+
+  /**
+   * @param clockSkewEstimator the estimate of how far the provider's clock is from ours
+   */
+  public QuotaScheduler(double pacingThreshold, Duration maxPacingDelay,
+      ClockSkewEstimator clockSkewEstimator) {
+    this(pacingThreshold, maxPacingDelay, Optional.of(clockSkewEstimator));
+  }
+
+  private QuotaScheduler(double pacingThreshold, Duration maxPacingDelay,
+      Optional<ClockSkewEstimator> clockSkewEstimator) {
+    if (!(pacingThreshold >= 0.0 && pacingThreshold <= 1.0))
+      throw new IllegalArgumentException("pacingThreshold must be in [0, 1]");
+    if (maxPacingDelay == null)
+      throw new NullPointerException();
+    if (maxPacingDelay.isNegative())
+      throw new IllegalArgumentException("maxPacingDelay must not be negative");
+    this.pacingThreshold = pacingThreshold;
+    this.maxPacingDelayMillis = maxPacingDelay.toMillis();
+    this.clockSkewEstimator = clockSkewEstimator;
+    this.quotas = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Records the quota published in the given response headers, if any
+   */
+  public void observe(String endpoint, HttpHeaders headers) {
+    OptionalLong limit = headers.firstValueAsLong(LIMIT_HEADER);
+    OptionalLong remaining = headers.firstValueAsLong(REMAINING_HEADER);
+    OptionalLong reset = headers.firstValueAsLong(RESET_HEADER);
+    if (limit.isPresent() && remaining.isPresent() && reset.isPresent())
+      observe(endpoint, limit.getAsLong(), remaining.getAsLong(), reset.getAsLong());
+  }
+
+  /**
+   * Records the given quota for the given endpoint
+   *
+   * @param resetEpochSeconds when the quota resets, in epoch seconds
+   */
+  public void observe(String endpoint, long limit, long remaining, long resetEpochSeconds) {
+    quotas.computeIfAbsent(endpoint, k -> new Quota()).observe(limit, remaining,
+        resetEpochSeconds * 1000L);
+  }
+
+  /**
+   * Reserves quota for one request to the given endpoint.
+   *
+   * @return how long to wait before sending the request
+   * @throws QuotaExhaustedException if the request should not be sent
+   */
+  public Duration reserve(String endpoint) {
+    Quota quota = quotas.get(endpoint);
+    if (quota == null)
+      return Duration.ZERO;
+    return Duration.ofMillis(quota.reserve(endpoint, providerTimeMillis()));
+  }
+
+  /**
+   * Reserves quota for one request to the given endpoint only if it may be sent right away, e.g.,
+   * for a caller that must not wait while it holds other resources.
+   *
+   * @throws QuotaExhaustedException if the request should not be sent now
+   */
+  public void tryAcquire(String endpoint) {
+    Duration wait = reserve(endpoint);
+    if (!wait.isZero()) {
+      release(endpoint);
+      throw new QuotaExhaustedException(endpoint, wait);
+    }
+  }
+
+  /**
+   * Gives back the quota reserved for one request to the given endpoint that was never sent
+   */
+  public void release(String endpoint) {
+    Quota quota = quotas.get(endpoint);
+    if (quota != null)
+      quota.release(providerTimeMillis());
+  }
+
+  /**
+   * Reserves quota for one request to the given endpoint, and waits for its turn
+   *
+   * @throws QuotaExhaustedException if the request should not be sent
+   */
+  public void acquire(String endpoint) throws InterruptedException {
+    Duration wait = reserve(endpoint);
+    if (!wait.isZero())
+      Thread.sleep(wait.toMillis());
+  }
+
+  /**
+   * Reserves quota for one request to the given endpoint, without blocking.
+   *
+   * @return a future that completes when the request may be sent, or fails with a
+   *         {@link QuotaExhaustedException} if it should not be sent
+   */
+  public CompletableFuture<Void> acquireAsync(String endpoint, Executor executor) {
+    Duration wait;
+    try {
+      wait = reserve(endpoint);
+    } catch (QuotaExhaustedException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    if (wait.isZero())
+      return CompletableFuture.completedFuture(null);
+    return CompletableFuture.runAsync(() -> {
+    }, CompletableFuture.delayedExecutor(wait.toNanos(), NANOSECONDS, executor));
+  }
+
+  /**
+   * @return the quota we believe remains for the given endpoint, if it has published one
+   */
+  public OptionalLong getRemaining(String endpoint) {
+    Quota quota = quotas.get(endpoint);
+    if (quota == null)
+      return OptionalLong.empty();
+    return quota.getRemaining(providerTimeMillis());
+  }
+
+  /**
+   * @return the estimated current time on the provider's clock, in epoch milliseconds
+   */
+  private long providerTimeMillis() {
+    long result = currentTimeMillis();
+    if (clockSkewEstimator.isPresent())
+      result = result + clockSkewEstimator.get().getOffsetMillis();
+    return result;
+  }
+
+  /**
+   * test hook
+   */
+  protected long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+  private final class Quota {
+    private long limit;
+    private long remaining;
+    private long resetMillis;
+
+    /**
+     * The earliest time the next paced request may go
+     */
+    private long nextSlotMillis;
+
+    public synchronized void observe(long limit, long remaining, long resetMillis) {
+      if (resetMillis > this.resetMillis) {
+        this.limit = limit;
+        this.remaining = remaining;
+        this.resetMillis = resetMillis;
+        this.nextSlotMillis = 0L;
+      } else if (resetMillis == this.resetMillis) {
+        // Responses can arrive out of order, and we have reserved quota for requests in flight
+        this.remaining = Math.min(this.remaining, remaining);
+      }
+    }
+
+    public synchronized long reserve(String endpoint, long now) {
+      if (resetMillis <= now)
+        return 0L;
+
+      if (remaining <= 0L)
+        throw new QuotaExhaustedException(endpoint, Duration.ofMillis(resetMillis - now));
+
+      remaining = remaining - 1L;
+      if (remaining >= pacingThreshold * limit)
+        return 0L;
+
+      long slotMillis = Math.max(now, nextSlotMillis);
+      long waitMillis = slotMillis - now;
+      if (waitMillis > maxPacingDelayMillis) {
+        remaining = remaining + 1L;
+        throw new QuotaExhaustedException(endpoint, Duration.ofMillis(waitMillis));
+      }
+
+      // Spread this request and the rest of the quota evenly over the rest of the window
+      nextSlotMillis = slotMillis + (resetMillis - slotMillis) / (remaining + 1L);
+
+      return waitMillis;
+    }
+
+    public synchronized void release(long now) {
+      // Quota reserved before a reset was spent in a window that is gone
+      if (resetMillis > now && remaining < limit)
+        remaining = remaining + 1L;
+    }
+
+    public synchronized OptionalLong getRemaining(long now) {
+      if (resetMillis <= now)
+        return OptionalLong.empty();
+      return OptionalLong.of(remaining);
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.ratelimit;
+
+import java.util.Objects;
+import com.sigpwned.oauth4j.core.annotation.Generated;
+
+/**
+ * How often each client may start a flow, and how many clients to remember.
+ */
+public class RateLimitPolicy {
+  public static final int DEFAULT_MAX_CLIENTS = 65536;
+
+  /**
+   * Never limit
+   */
+  public static final RateLimitPolicy NONE = new RateLimitPolicy(false, 1.0, 1, 1);
+
+  /**
+   * A burst of 10, then one every 6 seconds
+   */
+  public static final RateLimitPolicy DEFAULT = of(10.0 / 60.0, 10);
+
+  public static RateLimitPolicy of(double permitsPerSecond, int burst) {
+    return new RateLimitPolicy(true, permitsPerSecond, burst, DEFAULT_MAX_CLIENTS);
+  }
+
+  private final boolean enabled;
+
+  /**
+   * The steady rate each client may make requests at
+   */
+  private final double permitsPerSecond;
+
+  /**
+   * How many requests a client that has been quiet may make at once
+   */
+  private final int burst;
+
+  /**
+   * The most clients to track at once. Beyond this, clients share a bucket until idle clients can
+   * be forgotten, so memory stays bounded no matter how many distinct clients appear.
+   */
+  private final int maxClients;
+
+  public RateLimitPolicy(boolean enabled, double permitsPerSecond, int burst, int maxClients) {
+    if (!(permitsPerSecond > 0.0))
+      throw new IllegalArgumentException("permitsPerSecond must be positive");
+    if (burst < 1)
+      throw new IllegalArgumentException("burst must be positive");
+    if (maxClients < 1)
+      throw new IllegalArgumentException("maxClients must be positive");
+    this.enabled = enabled;
+    this.permitsPerSecond = permitsPerSecond;
+    this.burst = burst;
+    this.maxClients = maxClients;
+  }
+
+  /**
+   * @return a copy of this policy that tracks the given number of clients
+   */
+  public RateLimitPolicy withMaxClients(int maxClients) {
+    return new RateLimitPolicy(enabled, permitsPerSecond, burst, maxClients);
+  }
+
+  /**
+   * @return the enabled
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return the permitsPerSecond
+   */
+  public double getPermitsPerSecond() {
+    return permitsPerSecond;
+  }
+
+  /**
+   * @return the burst
+   */
+  public int getBurst() {
+    return burst;
+  }
+
+  /**
+   * @return the maxClients
+   */
+  public int getMaxClients() {
+    return maxClients;
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(burst, enabled, maxClients, permitsPerSecond);
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    RateLimitPolicy other = (RateLimitPolicy) obj;
+    return burst == other.burst && enabled == other.enabled && maxClients == other.maxClients
+        && Double.doubleToLongBits(permitsPerSecond) == Double
+            .doubleToLongBits(other.permitsPerSecond);
+  }
+
+  @Override
+  @Generated
+  public String toString() {
+    return "RateLimitPolicy [enabled=" + enabled + ", permitsPerSecond=" + permitsPerSecond
+        + ", burst=" + burst + ", maxClients=" + maxClients + "]";
+  }
+}
@@ -0,0 +1,653 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.resource;
+
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import javax.ws.rs.GET;
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import com.sigpwned.oauth4j.core.OAuthHttpRequestAuthorizer;
+import com.sigpwned.oauth4j.core.authorizer.ClockSkewEstimator;
+import com.sigpwned.oauth4j.core.authorizer.DefaultOAuthHttpRequestAuthorizer;
+import com.sigpwned.oauth4j.core.model.OAuthConsumer;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.model.OAuthParameters;
+import com.sigpwned.oauth4j.core.model.OAuthQueryParameter;
+import com.sigpwned.oauth4j.core.model.OAuthTokenResponse;
+import com.sigpwned.oauth4j.core.util.OAuth;
+import com.sigpwned.oauth4j.server.AuthenticatedHandler;
+import com.sigpwned.oauth4j.server.OAuth1ProviderDescriptor;
+import com.sigpwned.oauth4j.server.TokenStore;
+import com.sigpwned.oauth4j.server.circuit.CircuitBreaker;
+import com.sigpwned.oauth4j.server.hedge.Hedger;
+import com.sigpwned.oauth4j.server.ratelimit.ClientRateLimiter;
+import com.sigpwned.oauth4j.server.ratelimit.QuotaExhaustedException;
+import com.sigpwned.oauth4j.server.ratelimit.QuotaScheduler;
+import com.sigpwned.oauth4j.server.util.FormBodyHandler;
+import com.sigpwned.oauth4j.server.util.HttpRequests;
+import com.sigpwned.oauth4j.server.util.WarmUpResult;
+
+/**
+ * A fully-baked implementation of the OAuth 1.0a flow for any provider, as described by an
+ * {@link OAuth1ProviderDescriptor}. This class has no class-level {@link Path}, so it can be served
+ * either by a subclass that adds one, like {@link TwitterOAuth1Resource}, or through
+ * {@link OAuth1ProvidersResource}.
+ *
+ * Each instance has its own HTTP client, client executor, and limit on concurrent requests to its
+ * provider, so an instance must live as long as the application, not one request. Register a
+ * subclass with a scope of {@link javax.inject.Singleton}, like {@link TwitterOAuth1Resource}, or
+ * register an instance, and close it at shutdown. Requests beyond the limit fail immediately with
+ * a 503, so a slow or failing provider can never hold more than its share of our request threads.
+ * Each instance also has its own {@link CircuitBreaker}, so when the provider is failing,
+ * requests fail fast instead of waiting out the timeout. When the authorizer is a
+ * {@link DefaultOAuthHttpRequestAuthorizer} of its own, the provider's Date headers feed its
+ * {@link ClockSkewEstimator}, and a call refused for its timestamp or nonce is re-signed and
+ * retried once. The shared {@link DefaultOAuthHttpRequestAuthorizer#INSTANCE} is never corrected,
+ * since one provider's clock must not shift the timestamps of every other caller in the JVM.
+ * If the descriptor has a {@link com.sigpwned.oauth4j.server.hedge.HedgingPolicy},
+ * slow request token calls are hedged with a second, independently signed request. Access token
+ * calls are never hedged, since the provider may reject the second use of a verifier. Call
+ * {@link #close()} to release the client's threads.
+ *
+ * Each client may only start the flow as often as the descriptor's client rate limit allows, so one
+ * client cannot spend the provider's rate limit or fill the token store. Clients over their limit
+ * get a 429 before any provider call or token store write. Clients are identified by
+ * {@link #identifyClient(HttpHeaders)}; the concurrency limit above already bounds requests in
+ * flight across all clients.
+ *
+ * Outbound requests follow the quota the provider publishes in its x-rate-limit-* headers, as
+ * scheduled by a {@link QuotaScheduler}, and fail fast with a 503 once the quota is gone. A request
+ * waits for its turn under the quota before it takes a concurrency permit, so paced requests never
+ * hold permits that requests ready to go could use. Call
+ * {@link #warmUp()} at startup to open connections to the provider before the first login.
+ */
+public class OAuth1ProviderResource implements AutoCloseable {
+  /* default */ static final String AUTHENTICATE = "authenticate";
+
+  /* default */ static final String CALLBACK = "callback";
+
+  /**
+   * The identity shared by every client that {@link #identifyClient(HttpHeaders)} cannot tell apart
+   */
+  private static final String ANONYMOUS_CLIENT = "anonymous";
+
+  private static final String DATE = "Date";
+
+  private static final String WWW_AUTHENTICATE = "WWW-Authenticate";
+
+  private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+  private static final String X_REAL_IP = "X-Real-IP";
+
+  /**
+   * The error code Twitter uses instead of oauth_problem for a timestamp out of bounds
+   */
+  private static final String TWITTER_TIMESTAMP_OUT_OF_BOUNDS = "\"code\":135";
+
+  private final String baseUrl;
+  private final OAuth1ProviderDescriptor descriptor;
+  private final OAuthConsumer consumer;
+  private final TokenStore store;
+  private final AuthenticatedHandler handler;
+  private final OAuthHttpRequestAuthorizer authorizer;
+  private final ExecutorService executor;
+  private final HttpClient httpClient;
+  private final Semaphore bulkhead;
+  private final CircuitBreaker circuitBreaker;
+  private final Hedger hedger;
+  private final Optional<ClockSkewEstimator> clockSkewEstimator;
+  private final ClientRateLimiter clientRateLimiter;
+  private final QuotaScheduler quotaScheduler;
+  private volatile List<WarmUpResult> warmUpResults;
+
+  public OAuth1ProviderResource(String baseUrl, OAuth1ProviderDescriptor descriptor,
+      OAuthConsumer consumer, TokenStore store, AuthenticatedHandler handler) {
+    this(baseUrl, descriptor, consumer, store, handler, new DefaultOAuthHttpRequestAuthorizer(
+        descriptor.getSigner(), OAuth.ONE_DOT_OH_OAUTH_VERSION_VALUE));
+  }
+
+  public OAuth1ProviderResource(String baseUrl, OAuth1ProviderDescriptor descriptor,
+      OAuthConsumer consumer, TokenStore store, AuthenticatedHandler handler,
+      OAuthHttpRequestAuthorizer authorizer) {
+    if (baseUrl == null)
+      throw new NullPointerException();
+    if (descriptor == null)
+      throw new NullPointerException();
+    if (consumer == null)
+      throw new NullPointerException();
+    if (store == null)
+      throw new NullPointerException();
+    if (handler == null)
+      throw new NullPointerException();
+    if (authorizer == null)
+      throw new NullPointerException();
+    this.baseUrl = baseUrl;
+    this.descriptor = descriptor;
+    this.consumer = consumer;
+    this.store = store;
+    this.handler = handler;
+    this.authorizer = authorizer;
+    this.executor = newExecutor(descriptor);
+    this.httpClient = HttpClient.newBuilder().executor(executor)
+        .connectTimeout(descriptor.getConnectTimeout()).build();
+    this.bulkhead = new Semaphore(descriptor.getMaxConcurrentRequests());
+    this.circuitBreaker =
+        new CircuitBreaker(descriptor.getName(), descriptor.getCircuitBreakerPolicy());
+    this.hedger = new Hedger(descriptor.getHedgingPolicy(), executor);
+    this.clockSkewEstimator = authorizer instanceof DefaultOAuthHttpRequestAuthorizer
+        && authorizer != DefaultOAuthHttpRequestAuthorizer.INSTANCE
+            ? Optional.of(((DefaultOAuthHttpRequestAuthorizer) authorizer).getClockSkewEstimator())
+            : Optional.empty();
+    this.clientRateLimiter = new ClientRateLimiter(descriptor.getClientRateLimitPolicy());
+    this.quotaScheduler =
+        clockSkewEstimator.map(QuotaScheduler::new).orElseGet(QuotaScheduler::new);
+    this.warmUpResults = emptyList();
+  }
+
+  /**
+   * Starts the flow for a caller with no client identity, so only the concurrency limit applies
+   */
+  public Response authenticate() throws IOException {
+    return authenticate(null);
+  }
+
+  @GET
+  @Path(AUTHENTICATE)
+  public Response authenticate(@Context HttpHeaders headers) throws IOException {
+    if (headers != null) {
+      Optional<String> client = identifyClient(headers);
+      if (client.isPresent()) {
+        Duration retryAfter = clientRateLimiter.tryAcquire(client.get());
+        if (!retryAfter.isZero())
+          throw newRateLimitedException(retryAfter);
+      }
+    }
+
+    List<OAuthQueryParameter> queryParameters = new ArrayList<>();
+    queryParameters.add(OAuthQueryParameter.of(OAuth.OAUTH_CALLBACK_NAME, getCallbackUrl()));
+
+    OAuthHttpRequest unsignedRequest = OAuthHttpRequest.of(OAuthHttpRequest.POST_METHOD,
+        getDescriptor().getRequestTokenUrl(), queryParameters, emptyList(), emptyList());
+
+    // Each call signs anew, so a hedged request gets its own nonce
+    OAuthTokenResponse tokens = send(getDescriptor().getRequestTokenUrl(),
+        () -> getAuthorizer().authorize(unsignedRequest, getConsumer()), true);
+
+    String oauthToken = tokens.getToken().orElseThrow(InternalServerErrorException::new);
+
+    String oauthTokenSecret =
+        tokens.getTokenSecret().orElseThrow(InternalServerErrorException::new);
+
+    getStore().putTokenSecret(oauthToken, oauthTokenSecret);
+
+    return Response.temporaryRedirect(URI.create(getDescriptor().getAuthenticateUrl())).build();
+  }
+
+  /**
+   * Returns the local URL for the authenticate endpoint
+   */
+  public String getAuthenticateUrl() {
+    return String.format("%s/%s/%s", getBaseUrl(), getDescriptor().getBasePath(), AUTHENTICATE);
+  }
+
+  @GET
+  @Path(CALLBACK)
+  public Response callback(@QueryParam(OAuth.OAUTH_TOKEN_NAME) String oauthToken,
+      @QueryParam(OAuth.OAUTH_VERIFIER_NAME) String oauthVerifier) throws IOException {
+    String oauthTokenSecret =
+        getStore().getTokenSecret(oauthToken).orElseThrow(NotFoundException::new);
+
+    List<OAuthQueryParameter> queryParameters = new ArrayList<>();
+    queryParameters.add(OAuthQueryParameter.of(OAuth.OAUTH_TOKEN_NAME, oauthToken));
+    queryParameters.add(OAuthQueryParameter.of(OAuth.OAUTH_VERIFIER_NAME, oauthVerifier));
+
+    OAuthHttpRequest unsignedRequest = OAuthHttpRequest.of(OAuthHttpRequest.POST_METHOD,
+        getDescriptor().getAccessTokenUrl(), queryParameters, emptyList(), emptyList());
+
+    OAuthTokenResponse tokens = send(getDescriptor().getAccessTokenUrl(), () -> getAuthorizer()
+        .authorize(unsignedRequest, getConsumer(), oauthToken, oauthTokenSecret), false);
+
+    String accessToken = tokens.getToken().orElseThrow(InternalServerErrorException::new);
+
+    String accessTokenSecret =
+        tokens.getTokenSecret().orElseThrow(InternalServerErrorException::new);
+
+    return getHandler().authenticated(accessToken, accessTokenSecret);
+  }
+
+  /**
+   * Returns the local URL for the callback endpoint
+   */
+  public String getCallbackUrl() {
+    return String.format("%s/%s/%s", getBaseUrl(), getDescriptor().getBasePath(), CALLBACK);
+  }
+
+  /**
+   * Sends a signed request from the given signer to the provider within this provider's concurrency
+   * limit, and returns the parsed form-encoded response body. Fails fast while the provider's
+   * circuit breaker is open. Only I/O errors and 5xx responses count as provider failures; any
+   * other non-200 response still fails this request, but says nothing about the provider's health.
+   * If the provider refuses the request's timestamp or nonce and the authorizer can be corrected,
+   * then the request is signed again against the provider's clock and retried once.
+   *
+   * The request waits for its turn under the endpoint's published quota before it takes a
+   * concurrency permit, and gives its reserved quota back if it is turned away. The retry already
+   * holds a permit, so it fails fast instead of waiting if the quota does not allow it right away.
+   *
+   * @param hedgeable whether the request may be sent twice, if hedging is enabled. A hedge shares
+   *        its request's concurrency permit and circuit breaker outcome.
+   */
+  private OAuthTokenResponse send(String endpoint, Supplier<OAuthHttpRequest> signer,
+      boolean hedgeable) throws IOException {
+    Duration wait;
+    try {
+      wait = quotaScheduler.reserve(endpoint);
+    } catch (QuotaExhaustedException e) {
+      throw newFastFailException(e.getRetryAfter());
+    }
+    if (!wait.isZero()) {
+      try {
+        Thread.sleep(wait.toMillis());
+      } catch (InterruptedException e) {
+        quotaScheduler.release(endpoint);
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+    }
+
+    if (!bulkhead.tryAcquire()) {
+      quotaScheduler.release(endpoint);
+      throw new ServiceUnavailableException();
+    }
+    try {
+      if (!circuitBreaker.tryAcquirePermission()) {
+        quotaScheduler.release(endpoint);
+        throw newFastFailException(circuitBreaker.getRemainingOpenDuration());
+      }
+
+      HttpResponse<OAuthTokenResponse> response;
+      try {
+        response = exchange(endpoint, signer, hedgeable);
+        if (clockSkewEstimator.isPresent() && isClockRejection(response)) {
+          response.headers().firstValue(DATE).ifPresent(clockSkewEstimator.get()::correct);
+          quotaScheduler.tryAcquire(endpoint);
+          response = exchange(endpoint, signer, hedgeable);
+        }
+      } catch (QuotaExhaustedException e) {
+        circuitBreaker.onIgnored();
+        throw newFastFailException(e.getRetryAfter());
+      } catch (IOException e) {
+        circuitBreaker.onFailure();
+        throw e;
+      } catch (InterruptedException e) {
+        circuitBreaker.onIgnored();
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      } catch (RuntimeException e) {
+        circuitBreaker.onIgnored();
+        throw e;
+      }
+
+      if (response.statusCode() >= 500)
+        circuitBreaker.onFailure();
+      else
+        circuitBreaker.onSuccess();
+
+      if (response.statusCode() != HttpURLConnection.HTTP_OK)
+        throw new InternalServerErrorException();
+
+      return response.body();
+    } finally {
+      bulkhead.release();
+    }
+  }
+
+  /**
+   * Sends one signed request from the given signer, hedged if allowed, and records the provider's
+   * clock and quota from the response. The caller must already have reserved the request's quota.
+   * Requests are signed only once they may go, so their timestamps are fresh.
+   */
+  private HttpResponse<OAuthTokenResponse> exchange(String endpoint,
+      Supplier<OAuthHttpRequest> signer, boolean hedgeable)
+      throws IOException, InterruptedException {
+    HttpResponse<OAuthTokenResponse> response;
+    if (hedgeable && hedger.getPolicy().isEnabled())
+      response = sendHedged(endpoint, signer);
+    else
+      response = newHttpClient().send(
+          HttpRequests.prepare(signer.get(), getDescriptor().getRequestTimeout()),
+          FormBodyHandler.ofTokenResponse());
+    if (clockSkewEstimator.isPresent())
+      response.headers().firstValue(DATE).ifPresent(clockSkewEstimator.get()::observe);
+    quotaScheduler.observe(endpoint, response.headers());
+    return response;
+  }
+
+  /**
+   * @return true if the provider refused the request because of its timestamp or nonce, which
+   *         signing again with a corrected clock could fix
+   */
+  /* default */ static boolean isClockRejection(HttpResponse<OAuthTokenResponse> response) {
+    if (response.statusCode() != HttpURLConnection.HTTP_UNAUTHORIZED)
+      return false;
+    StringBuilder problem =
+        new StringBuilder(response.headers().firstValue(WWW_AUTHENTICATE).orElse(""));
+    OAuthParameters fields = response.body().getExtraParameters();
+    for (int i = 0; i < fields.size(); i++)
+      problem.append(' ').append(fields.getKey(i)).append('=').append(fields.getValue(i));
+    String text = problem.toString();
+    return text.contains(OAuth.TIMESTAMP_REFUSED_OAUTH_PROBLEM_VALUE)
+        || text.contains(OAuth.NONCE_USED_OAUTH_PROBLEM_VALUE)
+        || text.replace(" ", "").contains(TWITTER_TIMESTAMP_OUT_OF_BOUNDS);
+  }
+
+  /**
+   * Sends the request with a hedge. The first attempt's quota is already reserved; a hedge must
+   * reserve its own, and is dropped if the quota does not allow it.
+   */
+  private HttpResponse<OAuthTokenResponse> sendHedged(String endpoint,
+      Supplier<OAuthHttpRequest> signer) throws IOException, InterruptedException {
+    final AtomicInteger attempts = new AtomicInteger();
+    CompletableFuture<HttpResponse<OAuthTokenResponse>> response = hedger.execute(() -> {
+      CompletableFuture<Void> turn = attempts.getAndIncrement() == 0
+          ? CompletableFuture.completedFuture(null)
+          : quotaScheduler.acquireAsync(endpoint, executor);
+      return turn.thenCompose(x -> newHttpClient().sendAsync(
+          HttpRequests.prepare(signer.get(), getDescriptor().getRequestTimeout()),
+          FormBodyHandler.ofTokenResponse()));
+    });
+    try {
+      return response.get();
+    } catch (InterruptedException e) {
+      response.cancel(true);
+      throw e;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof CompletionException && cause.getCause() != null)
+        cause = cause.getCause();
+      if (cause instanceof IOException)
+        throw (IOException) cause;
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      if (cause instanceof Error)
+        throw (Error) cause;
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Returns the exception to throw instead of calling the provider while its circuit breaker is
+   * open. By default, a 503 with a Retry-After header. Override to customize the response.
+   *
+   * @param retryAfter how much longer the circuit breaker will stay open
+   */
+  protected WebApplicationException newFastFailException(Duration retryAfter) {
+    return new ServiceUnavailableException(retryAfterSeconds(retryAfter));
+  }
+
+  /**
+   * Returns the exception to throw when a client starts the flow more often than its rate limit
+   * allows. By default, a 429 with a Retry-After header. Override to customize the response.
+   *
+   * @param retryAfter how long until the client may start the flow again
+   */
+  protected WebApplicationException newRateLimitedException(Duration retryAfter) {
+    return new WebApplicationException(Response.status(Response.Status.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(retryAfter)).build());
+  }
+
+  /**
+   * Returns the identity of the client making a request, for rate limiting, or empty to skip the
+   * per-client limit. By default, the last address in the X-Forwarded-For header, or else the
+   * X-Real-IP header, or else one identity shared by all requests with neither, so requests that
+   * reach us without a proxy are still limited, if only as a group. Proxies append the address they
+   * received a request from to X-Forwarded-For, so the last address is the one our own proxy saw,
+   * while the ones before it came from the client and may be anything. This default is right for
+   * exactly one proxy in front of the application that appends to X-Forwarded-For or overwrites
+   * X-Real-IP. Override it for any other setup, e.g., to skip the addresses added by more trusted
+   * proxies, or to use a session or API key.
+   */
+  protected Optional<String> identifyClient(HttpHeaders headers) {
+    String forwardedFor = headers.getHeaderString(X_FORWARDED_FOR);
+    if (forwardedFor != null) {
+      String client = forwardedFor.substring(forwardedFor.lastIndexOf(',') + 1).trim();
+      if (!client.isEmpty())
+        return Optional.of(client);
+    }
+    String realIp = headers.getHeaderString(X_REAL_IP);
+    if (realIp != null && !realIp.trim().isEmpty())
+      return Optional.of(realIp.trim());
+    return Optional.of(ANONYMOUS_CLIENT);
+  }
+
+  private static long retryAfterSeconds(Duration retryAfter) {
+    long seconds = retryAfter.getSeconds() + (retryAfter.getNano() > 0 ? 1L : 0L);
+    return Math.max(1L, seconds);
+  }
+
+  public String getBaseUrl() {
+    return baseUrl;
+  }
+
+  /**
+   * @return the descriptor
+   */
+  public OAuth1ProviderDescriptor getDescriptor() {
+    return descriptor;
+  }
+
+  /**
+   * @return the consumer
+   */
+  public OAuthConsumer getConsumer() {
+    return consumer;
+  }
+
+  /**
+   * @return the store
+   */
+  public TokenStore getStore() {
+    return store;
+  }
+
+  /**
+   * @return the handler
+   */
+  public AuthenticatedHandler getHandler() {
+    return handler;
+  }
+
+  /**
+   * @return the authorizer
+   */
+  public OAuthHttpRequestAuthorizer getAuthorizer() {
+    return authorizer;
+  }
+
+  /**
+   * @return the circuit breaker guarding this provider, e.g., to add a listener for metrics
+   */
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * @return the estimate of the provider's clock that signed requests are corrected by, or empty if
+   *         the authorizer cannot be corrected
+   */
+  public Optional<ClockSkewEstimator> getClockSkewEstimator() {
+    return clockSkewEstimator;
+  }
+
+  /**
+   * @return the scheduler that paces requests against the provider's published quotas
+   */
+  public QuotaScheduler getQuotaScheduler() {
+    return quotaScheduler;
+  }
+
+  /**
+   * @return the per-client rate limiter for the authenticate endpoint
+   */
+  public ClientRateLimiter getClientRateLimiter() {
+    return clientRateLimiter;
+  }
+
+  /**
+   * @return the hedger for this provider's request token calls, e.g., to read its counts
+   */
+  public Hedger getHedger() {
+    return hedger;
+  }
+
+  /**
+   * @return the number of requests to this provider that could start right now
+   */
+  public int getAvailableConcurrentRequests() {
+    return bulkhead.availablePermits();
+  }
+
+  /**
+   * Opens connections to this provider's token endpoints ahead of the first login, so that login
+   * does not pay for DNS, connect, and TLS. Sends a HEAD request to each endpoint and waits for all
+   * of them. Any response counts as success. Warm-up requests bypass the concurrency limit, circuit
+   * breaker, and quota, and failures are reported rather than thrown.
+   *
+   * @return the outcome for each endpoint, also available from {@link #getWarmUpResults()}
+   */
+  public List<WarmUpResult> warmUp() throws InterruptedException {
+    try {
+      return warmUpAsync().get();
+    } catch (ExecutionException e) {
+      // warmUpAsync reports failures in its results
+      throw new AssertionError("warm up failed unexpectedly", e.getCause());
+    }
+  }
+
+  /**
+   * As {@link #warmUp()}, but without blocking, e.g., to warm up in the background during startup
+   */
+  public CompletableFuture<List<WarmUpResult>> warmUpAsync() {
+    Set<String> urls = new LinkedHashSet<>();
+    urls.add(getDescriptor().getRequestTokenUrl());
+    urls.add(getDescriptor().getAccessTokenUrl());
+
+    List<CompletableFuture<WarmUpResult>> results = new ArrayList<>(urls.size());
+    for (String url : urls)
+      results.add(warmUpAsync(url));
+
+    return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).thenApply(x -> {
+      List<WarmUpResult> result =
+          results.stream().map(CompletableFuture::join).collect(toList());
+      warmUpResults = result;
+      return result;
+    });
+  }
+
+  private CompletableFuture<WarmUpResult> warmUpAsync(String url) {
+    final long start = System.nanoTime();
+    try {
+      HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+          .method(OAuthHttpRequest.HEAD_METHOD, HttpRequest.BodyPublishers.noBody())
+          .timeout(getDescriptor().getRequestTimeout()).build();
+      return newHttpClient().sendAsync(request, BodyHandlers.discarding())
+          .handle((response, error) -> {
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            if (error != null) {
+              Throwable cause = error instanceof CompletionException && error.getCause() != null
+                  ? error.getCause()
+                  : error;
+              return WarmUpResult.failure(url, cause.toString(), elapsed);
+            }
+            return WarmUpResult.success(url, response.statusCode(), elapsed);
+          });
+    } catch (RuntimeException e) {
+      return CompletableFuture.completedFuture(
+          WarmUpResult.failure(url, e.toString(), Duration.ofNanos(System.nanoTime() - start)));
+    }
+  }
+
+  /**
+   * @return the outcome of the most recent warm-up, or empty if there has not been one
+   */
+  public List<WarmUpResult> getWarmUpResults() {
+    return warmUpResults;
+  }
+
+  /**
+   * Stops this provider's client threads. Requests already in flight may fail. Containers call this
+   * at shutdown for singleton resources they created.
+   */
+  @Override
+  @PreDestroy
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * test hook
+   * 
+   * @return this provider's client
+   */
+  protected HttpClient newHttpClient() {
+    return httpClient;
+  }
+
+  private static ExecutorService newExecutor(OAuth1ProviderDescriptor descriptor) {
+    AtomicInteger count = new AtomicInteger();
+    return Executors.newFixedThreadPool(descriptor.getMaxConcurrentRequests(), r -> {
+      Thread result = new Thread(r,
+          "oauth4j-" + descriptor.getName() + "-" + count.incrementAndGet());
+      result.setDaemon(true);
+      return result;
+    });
+  }
+}
@@ -0,0 +1,76 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.resource;
+
+import static java.util.Collections.unmodifiableMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import com.sigpwned.oauth4j.server.OAuth1ProviderDescriptor;
+
+/**
+ * Serves the flows of any number of OAuth 1.0a providers side by side, each under its default base
+ * path, e.g., oauth/twitter/1/authenticate. Adding a provider takes only a descriptor, not a new
+ * resource class.
+ */
+@Path(OAuth1ProvidersResource.BASE_PATH)
+public class OAuth1ProvidersResource implements AutoCloseable {
+  /* default */ static final String BASE_PATH = "oauth";
+
+  private final Map<String, OAuth1ProviderResource> providers;
+
+  public OAuth1ProvidersResource(Collection<OAuth1ProviderResource> providers) {
+    Map<String, OAuth1ProviderResource> result = new LinkedHashMap<>();
+    for (OAuth1ProviderResource provider : providers) {
+      OAuth1ProviderDescriptor descriptor = provider.getDescriptor();
+      if (!descriptor.getBasePath()
+          .equals(OAuth1ProviderDescriptor.defaultBasePath(descriptor.getName())))
+        throw new IllegalArgumentException(
+            "provider " + descriptor.getName() + " does not use its default base path");
+      if (result.put(descriptor.getName(), provider) != null)
+        throw new IllegalArgumentException("duplicate provider " + descriptor.getName());
+    }
+    this.providers = unmodifiableMap(result);
+  }
+
+  @Path("{provider}/1")
+  public OAuth1ProviderResource provider(@PathParam("provider") String name) {
+    OAuth1ProviderResource result = providers.get(name);
+    if (result == null)
+      throw new NotFoundException();
+    return result;
+  }
+
+  /**
+   * @return the providers, by name
+   */
+  public Map<String, OAuth1ProviderResource> getProviders() {
+    return providers;
+  }
+
+  @Override
+  public void close() {
+    for (OAuth1ProviderResource provider : providers.values())
+      provider.close();
+  }
+}
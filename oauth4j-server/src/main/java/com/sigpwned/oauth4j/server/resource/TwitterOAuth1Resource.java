@@ -19,251 +19,91 @@
  */
 package com.sigpwned.oauth4j.server.resource;
 
-import static java.util.Collections.emptyList;
-import static java.util.stream.Collectors.toList;
-import java.io.IOException;
-import java.io.InterruptedIOException;
-import java.net.HttpURLConnection;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpResponse;
-import java.net.http.HttpResponse.BodyHandlers;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.inject.Named;
-import javax.ws.rs.InternalServerErrorException;
-import javax.ws.rs.NotFoundException;
+import javax.inject.Singleton;
 import javax.ws.rs.Path;
-import javax.ws.rs.QueryParam;
-import javax.ws.rs.core.Response;
 import com.sigpwned.oauth4j.core.OAuthHttpRequestAuthorizer;
 import com.sigpwned.oauth4j.core.authorizer.DefaultOAuthHttpRequestAuthorizer;
-import com.sigpwned.oauth4j.core.model.OAuthFormParameter;
-import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
-import com.sigpwned.oauth4j.core.model.OAuthQueryParameter;
+import com.sigpwned.oauth4j.core.model.OAuthConsumer;
 import com.sigpwned.oauth4j.core.util.OAuth;
 import com.sigpwned.oauth4j.server.AuthenticatedHandler;
+import com.sigpwned.oauth4j.server.OAuth1ProviderDescriptor;
 import com.sigpwned.oauth4j.server.TokenStore;
-import com.sigpwned.oauth4j.server.util.HttpRequests;
 
 /**
- * A fully-baked implementation of the Twitter OAuth 1.0a flow.
+ * A fully-baked implementation of the Twitter OAuth 1.0a flow. The container creates one instance
+ * for the whole application, since each instance owns its HTTP client and limits, and closes it at
+ * shutdown.
  */
+@Singleton
 @Path(TwitterOAuth1Resource.BASE_PATH)
-public class TwitterOAuth1Resource {
+public class TwitterOAuth1Resource extends OAuth1ProviderResource {
   /* default */ static final String DEFAULT_TWITTER_REQUEST_TOKEN_URL =
-      "https://api.twitter.com/oauth/request_token";
+      OAuth1ProviderDescriptor.TWITTER.getRequestTokenUrl();
 
   /* default */ static final String DEFAULT_TWITTER_AUTHENTICATE_URL =
-      "https://api.twitter.com/oauth/authenticate";
+      OAuth1ProviderDescriptor.TWITTER.getAuthenticateUrl();
 
   /* default */ static final String DEFAULT_TWITTER_ACCESS_TOKEN_URL =
-      "https://api.twitter.com/oauth/access_token";
+      OAuth1ProviderDescriptor.TWITTER.getAccessTokenUrl();
 
   /* default */ static final String BASE_PATH = "oauth/twitter/1";
 
-  /* default */ static final String AUTHENTICATE = "authenticate";
-
-  /* default */ static final String CALLBACK = "callback";
-
-  private final String baseUrl;
-  private final String consumerKey;
-  private final String consumerSecret;
-  private final TokenStore store;
-  private final AuthenticatedHandler handler;
-  private final OAuthHttpRequestAuthorizer authorizer;
-  private final String twitterRequestTokenUrl;
-  private final String twitterAuthenticateUrl;
-  private final String twitterAccessTokenUrl;
-
   @Inject
   public TwitterOAuth1Resource(@Named("oauth4jBaseUrl") String baseUrl,
       @Named("oauth4jTwitterConsumerKey") String consumerKey,
       @Named("oauth4jTwitterConsumerSecret") String consumerSecret, TokenStore store,
       AuthenticatedHandler handler) {
     this(baseUrl, consumerKey, consumerSecret, store, handler,
-        DefaultOAuthHttpRequestAuthorizer.INSTANCE, DEFAULT_TWITTER_REQUEST_TOKEN_URL,
-        DEFAULT_TWITTER_AUTHENTICATE_URL, DEFAULT_TWITTER_ACCESS_TOKEN_URL);
+        new DefaultOAuthHttpRequestAuthorizer(OAuth1ProviderDescriptor.TWITTER.getSigner(),
+            OAuth.ONE_DOT_OH_OAUTH_VERSION_VALUE),
+        DEFAULT_TWITTER_REQUEST_TOKEN_URL, DEFAULT_TWITTER_AUTHENTICATE_URL,
+        DEFAULT_TWITTER_ACCESS_TOKEN_URL);
   }
 
   /* default */ TwitterOAuth1Resource(String baseUrl, String consumerKey, String consumerSecret,
       TokenStore store, AuthenticatedHandler handler, OAuthHttpRequestAuthorizer authorizer,
       String twitterRequestTokenUrl, String twitterAuthenticateUrl, String twitterAccessTokenUrl) {
-    this.baseUrl = baseUrl;
-    this.consumerKey = consumerKey;
-    this.consumerSecret = consumerSecret;
-    this.store = store;
-    this.handler = handler;
-    this.authorizer = authorizer;
-    this.twitterRequestTokenUrl = twitterRequestTokenUrl;
-    this.twitterAuthenticateUrl = twitterAuthenticateUrl;
-    this.twitterAccessTokenUrl = twitterAccessTokenUrl;
-  }
-
-  @Path(AUTHENTICATE)
-  public Response authenticate() throws IOException {
-    List<OAuthQueryParameter> queryParameters = new ArrayList<>();
-    queryParameters.add(OAuthQueryParameter.of(OAuth.OAUTH_CALLBACK_NAME, getCallbackUrl()));
-
-    OAuthHttpRequest unsignedRequest = OAuthHttpRequest.of(OAuthHttpRequest.POST_METHOD,
-        getTwitterRequestTokenUrl(), queryParameters, emptyList(), emptyList());
-
-    OAuthHttpRequest signedRequest =
-        authorizer.authorize(unsignedRequest, getConsumerKey(), getConsumerSecret());
-
-    HttpResponse<String> response;
-    try {
-      response = newHttpClient().send(HttpRequests.prepare(signedRequest),
-          BodyHandlers.ofString(StandardCharsets.UTF_8));
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      throw new InterruptedIOException();
-    }
-    if (response.statusCode() != HttpURLConnection.HTTP_OK)
-      throw new InternalServerErrorException();
-
-    List<OAuthFormParameter> forms = Stream.of(response.body().split("&")).filter(s -> !s.isEmpty())
-        .map(OAuthFormParameter::fromString).collect(toList());
-
-    String oauthToken = forms.stream().filter(p -> p.getKey().equals(OAuth.OAUTH_TOKEN_NAME))
-        .map(OAuthFormParameter::getValue).findFirst()
-        .orElseThrow(InternalServerErrorException::new);
-
-    String oauthTokenSecret =
-        forms.stream().filter(p -> p.getKey().equals(OAuth.OAUTH_TOKEN_SECRET_NAME))
-            .map(OAuthFormParameter::getValue).findFirst()
-            .orElseThrow(InternalServerErrorException::new);
-
-    getStore().putTokenSecret(oauthToken, oauthTokenSecret);
-
-    return Response.temporaryRedirect(URI.create(getTwitterAuthenticateUrl())).build();
-  }
-
-  /**
-   * Returns the local URL for the authenticate endpoint
-   */
-  public String getAuthenticateUrl() {
-    return String.format("%s/%s/%s", getBaseUrl(), BASE_PATH, AUTHENTICATE);
-  }
-
-  @Path(CALLBACK)
-  public Response callback(@QueryParam(OAuth.OAUTH_TOKEN_NAME) String oauthToken,
-      @QueryParam(OAuth.OAUTH_VERIFIER_NAME) String oauthVerifier) throws IOException {
-    String oauthTokenSecret =
-        getStore().getTokenSecret(oauthToken).orElseThrow(NotFoundException::new);
-
-    List<OAuthQueryParameter> queryParameters = new ArrayList<>();
-    queryParameters.add(OAuthQueryParameter.of(OAuth.OAUTH_TOKEN_NAME, oauthToken));
-    queryParameters.add(OAuthQueryParameter.of(OAuth.OAUTH_VERIFIER_NAME, oauthVerifier));
-
-    OAuthHttpRequest unsignedRequest = OAuthHttpRequest.of(OAuthHttpRequest.POST_METHOD,
-        getTwitterAccessTokenUrl(), queryParameters, emptyList(), emptyList());
-
-    OAuthHttpRequest signedRequest = getAuthorizer().authorize(unsignedRequest, getConsumerKey(),
-        getConsumerSecret(), oauthToken, oauthTokenSecret);
-
-    HttpResponse<String> response;
-    try {
-      response = newHttpClient().send(HttpRequests.prepare(signedRequest),
-          BodyHandlers.ofString(StandardCharsets.UTF_8));
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      throw new InterruptedIOException();
-    }
-    if (response.statusCode() != HttpURLConnection.HTTP_OK)
-      throw new InternalServerErrorException();
-
-    List<OAuthFormParameter> forms = Stream.of(response.body().split("&")).filter(s -> !s.isEmpty())
-        .map(OAuthFormParameter::fromString).collect(toList());
-
-    String accessToken = forms.stream().filter(p -> p.getKey().equals(OAuth.OAUTH_TOKEN_NAME))
-        .map(OAuthFormParameter::getValue).findFirst()
-        .orElseThrow(InternalServerErrorException::new);
-
-    String accessTokenSecret =
-        forms.stream().filter(p -> p.getKey().equals(OAuth.OAUTH_TOKEN_SECRET_NAME))
-            .map(OAuthFormParameter::getValue).findFirst()
-            .orElseThrow(InternalServerErrorException::new);
-
-    return getHandler().authenticated(accessToken, accessTokenSecret);
-  }
-
-  /**
-   * Returns the local URL for the callback endpoint
-   */
-  public String getCallbackUrl() {
-    return String.format("%s/%s/%s", getBaseUrl(), BASE_PATH, CALLBACK);
-  }
-
-  public String getBaseUrl() {
-    return baseUrl;
-  }
-
-  /**
-   * @return the store
-   */
-  public TokenStore getStore() {
-    return store;
-  }
-
-  /**
-   * @return the handler
-   */
-  public AuthenticatedHandler getHandler() {
-    return handler;
+    super(baseUrl,
+        OAuth1ProviderDescriptor.TWITTER.withUrls(twitterRequestTokenUrl, twitterAuthenticateUrl,
+            twitterAccessTokenUrl),
+        OAuthConsumer.of(OAuth1ProviderDescriptor.TWITTER.getName(), consumerKey, consumerSecret),
+        store, handler, authorizer);
   }
 
   /**
    * @return the consumerKey
    */
   public String getConsumerKey() {
-    return consumerKey;
+    return getConsumer().getConsumerKey();
   }
 
   /**
    * @return the consumerSecret
    */
   public String getConsumerSecret() {
-    return consumerSecret;
-  }
-
-  /**
-   * @return the authorizer
-   */
-  public OAuthHttpRequestAuthorizer getAuthorizer() {
-    return authorizer;
+    return getConsumer().getConsumerSecret();
   }
 
   /**
    * @return the twitterRequestTokenUrl
    */
   public String getTwitterRequestTokenUrl() {
-    return twitterRequestTokenUrl;
+    return getDescriptor().getRequestTokenUrl();
   }
 
   /**
    * @return the twitterAuthenticateUrl
    */
   public String getTwitterAuthenticateUrl() {
-    return twitterAuthenticateUrl;
+    return getDescriptor().getAuthenticateUrl();
   }
 
   /**
    * @return the twitterAccessTokenUrl
    */
   public String getTwitterAccessTokenUrl() {
-    return twitterAccessTokenUrl;
-  }
-
-  /**
-   * test hook
-   * 
-   * @return
-   */
-  protected HttpClient newHttpClient() {
-    return HttpClient.newHttpClient();
+    return getDescriptor().getAccessTokenUrl();
   }
 }
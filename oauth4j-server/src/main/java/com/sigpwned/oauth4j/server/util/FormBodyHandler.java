@@ -0,0 +1,264 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.util;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import com.sigpwned.oauth4j.core.model.OAuthParameters;
+import com.sigpwned.oauth4j.core.model.OAuthTokenResponse;
+
+/**
+ * A body handler for an application/x-www-form-urlencoded response. Parameters are form-decoded,
+ * i.e., percent escapes and "+" for space, straight from the incoming buffers as they arrive, so
+ * the body never exists on the heap as one String or byte array. A 200 body longer than the limit
+ * fails with an {@link IOException} as soon as the limit is passed, or before reading anything if
+ * the Content-Length says so, and the rest of the body is never read. A malformed 200 body fails
+ * the same way.
+ *
+ * Any other response is parsed leniently, since providers report problems like
+ * oauth_problem=timestamp_refused in form-encoded error bodies, but just as often send an HTML or
+ * JSON error page. An error body that is too long or malformed parses to no parameters instead of
+ * failing, so the caller still sees the response and its status. A body that is not form-encoded
+ * at all but happens to parse, e.g., JSON, parses to a single key.
+ */
+public class FormBodyHandler implements BodyHandler<OAuthParameters> {
+  /**
+   * Token responses are a few hundred bytes
+   */
+  public static final int DEFAULT_MAX_BODY_LENGTH = 16 * 1024;
+
+  public static final FormBodyHandler INSTANCE = new FormBodyHandler(DEFAULT_MAX_BODY_LENGTH);
+
+  /**
+   * @return a handler that parses the token and secret out of a token response
+   */
+  public static BodyHandler<OAuthTokenResponse> ofTokenResponse() {
+    return ofTokenResponse(DEFAULT_MAX_BODY_LENGTH);
+  }
+
+  public static BodyHandler<OAuthTokenResponse> ofTokenResponse(int maxBodyLength) {
+    FormBodyHandler forms = new FormBodyHandler(maxBodyLength);
+    return info -> BodySubscribers.mapping(forms.apply(info), OAuthTokenResponse::of);
+  }
+
+  private final int maxBodyLength;
+
+  public FormBodyHandler(int maxBodyLength) {
+    if (maxBodyLength < 0)
+      throw new IllegalArgumentException("maxBodyLength must not be negative");
+    this.maxBodyLength = maxBodyLength;
+  }
+
+  @Override
+  public BodySubscriber<OAuthParameters> apply(ResponseInfo responseInfo) {
+    boolean lenient = responseInfo.statusCode() != HttpURLConnection.HTTP_OK;
+    OptionalLong contentLength = responseInfo.headers().firstValueAsLong("Content-Length");
+    if (contentLength.isPresent() && contentLength.getAsLong() > maxBodyLength)
+      return new FormBodySubscriber(maxBodyLength, contentLength.getAsLong(), lenient);
+    return new FormBodySubscriber(maxBodyLength, 0L, lenient);
+  }
+
+  /**
+   * @return the maxBodyLength
+   */
+  public int getMaxBodyLength() {
+    return maxBodyLength;
+  }
+
+  /* default */ static class FormBodySubscriber implements BodySubscriber<OAuthParameters> {
+    private final int maxBodyLength;
+    private final long declaredLength;
+    private final boolean lenient;
+    private final CompletableFuture<OAuthParameters> result;
+    private Flow.Subscription subscription;
+    private long length;
+
+    /**
+     * Alternating decoded keys and values of the parameters completed so far
+     */
+    private String[] packed;
+    private int packedLength;
+
+    /**
+     * The decoded bytes of the key or value in progress
+     */
+    private byte[] field;
+    private int fieldLength;
+    private boolean inValue;
+
+    /**
+     * How many hex digits of a percent escape are still to come, and the value so far
+     */
+    private int escapeDigits;
+    private int escapeValue;
+
+    /**
+     * @param declaredLength the declared content length, if it is already known to be too long,
+     *        or else 0
+     */
+    public FormBodySubscriber(int maxBodyLength, long declaredLength) {
+      this(maxBodyLength, declaredLength, false);
+    }
+
+    /**
+     * @param lenient whether a body that is too long or malformed completes with no parameters
+     *        instead of failing
+     */
+    public FormBodySubscriber(int maxBodyLength, long declaredLength, boolean lenient) {
+      this.maxBodyLength = maxBodyLength;
+      this.declaredLength = declaredLength;
+      this.lenient = lenient;
+      this.result = new CompletableFuture<>();
+      this.packed = new String[8];
+      this.field = new byte[64];
+    }
+
+    @Override
+    public CompletionStage<OAuthParameters> getBody() {
+      return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (declaredLength > maxBodyLength) {
+        subscription.cancel();
+        reject(tooLong(declaredLength));
+        return;
+      }
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+      if (result.isDone())
+        return;
+      try {
+        for (ByteBuffer buffer : buffers) {
+          length = length + buffer.remaining();
+          if (length > maxBodyLength)
+            throw tooLong(length);
+          while (buffer.hasRemaining())
+            accept(buffer.get());
+        }
+      } catch (IOException e) {
+        subscription.cancel();
+        reject(e);
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      if (result.isDone())
+        return;
+      if (escapeDigits != 0) {
+        reject(new IOException("incomplete percent encoding"));
+        return;
+      }
+      if (inValue || fieldLength != 0)
+        endParameter();
+      result.complete(OAuthParameters.of(packed, packedLength));
+    }
+
+    /**
+     * Fails the body, or in lenient mode completes it with no parameters
+     */
+    private void reject(IOException e) {
+      if (lenient)
+        result.complete(OAuthParameters.EMPTY);
+      else
+        result.completeExceptionally(e);
+    }
+
+    private void accept(byte b) throws IOException {
+      if (escapeDigits != 0) {
+        escapeValue = (escapeValue << 4) | hex(b);
+        escapeDigits = escapeDigits - 1;
+        if (escapeDigits == 0)
+          append((byte) escapeValue);
+      } else if (b == '%') {
+        escapeDigits = 2;
+        escapeValue = 0;
+      } else if (b == '&') {
+        if (inValue || fieldLength != 0)
+          endParameter();
+      } else if (b == '+') {
+        append((byte) ' ');
+      } else if (b == '=' && !inValue) {
+        endField();
+        inValue = true;
+      } else {
+        append(b);
+      }
+    }
+
+    private void append(byte b) {
+      if (fieldLength == field.length)
+        field = Arrays.copyOf(field, 2 * field.length);
+      field[fieldLength++] = b;
+    }
+
+    private void endField() {
+      if (packedLength == packed.length)
+        packed = Arrays.copyOf(packed, 2 * packed.length);
+      packed[packedLength++] = new String(field, 0, fieldLength, StandardCharsets.UTF_8);
+      fieldLength = 0;
+    }
+
+    private void endParameter() {
+      if (!inValue)
+        endField();
+      endField();
+      inValue = false;
+    }
+
+    private IOException tooLong(long length) {
+      return new IOException(
+          "response body length " + length + " exceeds maximum " + maxBodyLength);
+    }
+
+    private static int hex(byte b) throws IOException {
+      if (b >= '0' && b <= '9')
+        return b - '0';
+      if (b >= 'A' && b <= 'F')
+        return b - 'A' + 10;
+      if (b >= 'a' && b <= 'f')
+        return b - 'a' + 10;
+      throw new IOException("invalid percent encoding");
+    }
+  }
+}
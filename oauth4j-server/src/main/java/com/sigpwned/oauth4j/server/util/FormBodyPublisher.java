@@ -0,0 +1,303 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.util;
+
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import com.sigpwned.oauth4j.core.model.OAuthFormParameter;
+import com.sigpwned.oauth4j.core.model.OAuthParameters;
+import com.sigpwned.oauth4j.core.util.Encodings;
+
+/**
+ * A body publisher for an application/x-www-form-urlencoded body. Parameters are percent-encoded
+ * straight into the outgoing buffers one chunk at a time as the client asks for data, so the body
+ * never exists on the heap as one String or byte array. The exact content length is computed up
+ * front, so the request is sent with a Content-Length instead of chunked.
+ *
+ * Each buffer is handed off to the client, which may hold onto it, so buffers are not reused.
+ */
+public class FormBodyPublisher implements BodyPublisher {
+  public static final String CONTENT_TYPE = "application/x-www-form-urlencoded; charset=utf-8";
+
+  public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+  /**
+   * The most bytes one char can encode to, i.e., a supplementary code point as four percent-encoded
+   * UTF-8 bytes
+   */
+  private static final int MAX_ENCODED_CHAR_LENGTH = 12;
+
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+  public static FormBodyPublisher of(OAuthParameters parameters) {
+    return new FormBodyPublisher(parameters, DEFAULT_CHUNK_SIZE);
+  }
+
+  public static FormBodyPublisher of(List<OAuthFormParameter> parameters) {
+    return of(OAuthParameters.ofFormParameters(parameters));
+  }
+
+  private final OAuthParameters parameters;
+  private final int chunkSize;
+  private final long contentLength;
+
+  public FormBodyPublisher(OAuthParameters parameters, int chunkSize) {
+    if (parameters == null)
+      throw new NullPointerException();
+    if (chunkSize < MAX_ENCODED_CHAR_LENGTH)
+      throw new IllegalArgumentException("chunkSize must be at least " + MAX_ENCODED_CHAR_LENGTH);
+    this.parameters = parameters;
+    this.chunkSize = chunkSize;
+    this.contentLength = computeContentLength(this.parameters);
+  }
+
+  /**
+   * @return the parameters
+   */
+  public OAuthParameters getParameters() {
+    return parameters;
+  }
+
+  /**
+   * @return the chunkSize
+   */
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  @Override
+  public long contentLength() {
+    return contentLength;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+    if (subscriber == null)
+      throw new NullPointerException();
+    FormSubscription subscription = new FormSubscription(subscriber);
+    subscriber.onSubscribe(subscription);
+    subscription.drain();
+  }
+
+  private static long computeContentLength(OAuthParameters parameters) {
+    long result = 0L;
+    for (int i = 0; i < parameters.size(); i++) {
+      if (i != 0)
+        result = result + 1;
+      result = result + Encodings.urlencodedLength(parameters.getKey(i)) + 1
+          + Encodings.urlencodedLength(parameters.getValue(i));
+    }
+    return result;
+  }
+
+  /**
+   * One pass over the parameters. Each subscriber gets its own, so the publisher can be resent,
+   * e.g., on redirect.
+   */
+  private final class FormSubscription implements Flow.Subscription {
+    private static final int NAME = 0;
+    private static final int VALUE = 1;
+
+    private final Flow.Subscriber<? super ByteBuffer> subscriber;
+    private final AtomicLong demand;
+    private final AtomicInteger wip;
+    private volatile boolean cancelled;
+    private volatile Throwable error;
+
+    /**
+     * Only touched inside drain
+     */
+    private int parameterIndex;
+    private int part;
+    private int charIndex;
+    private long remaining;
+    private boolean terminated;
+
+    public FormSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+      this.subscriber = subscriber;
+      this.demand = new AtomicLong();
+      this.wip = new AtomicInteger();
+      this.remaining = contentLength;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0L) {
+        error = new IllegalArgumentException("non-positive request: " + n);
+      } else {
+        demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+    }
+
+    public void drain() {
+      if (wip.getAndIncrement() != 0)
+        return;
+      int missed = 1;
+      do {
+        emit();
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void emit() {
+      long requested = demand.get();
+      long emitted = 0L;
+      while (!terminated) {
+        if (cancelled) {
+          terminated = true;
+          return;
+        }
+        if (error != null) {
+          terminated = true;
+          subscriber.onError(error);
+          return;
+        }
+        if (remaining == 0L) {
+          terminated = true;
+          subscriber.onComplete();
+          return;
+        }
+        if (emitted == requested) {
+          requested = demand.addAndGet(-emitted);
+          emitted = 0L;
+          if (requested == 0L)
+            return;
+        }
+        ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(chunkSize, remaining));
+        fill(chunk);
+        chunk.flip();
+        remaining = remaining - chunk.remaining();
+        emitted = emitted + 1;
+        subscriber.onNext(chunk);
+      }
+    }
+
+    /**
+     * Encodes as much of the remaining body into the given buffer as will fit. A char is never
+     * split across buffers, so a buffer may come up a few bytes short of full.
+     */
+    private void fill(ByteBuffer chunk) {
+      while (chunk.hasRemaining()) {
+        String s = part == NAME ? parameters.getKey(parameterIndex)
+            : parameters.getValue(parameterIndex);
+        if (charIndex < s.length()) {
+          if (chunk.remaining() < MAX_ENCODED_CHAR_LENGTH && !fits(s, chunk.remaining()))
+            return;
+          charIndex = encode(s, charIndex, chunk);
+        } else if (part == NAME) {
+          chunk.put((byte) '=');
+          part = VALUE;
+          charIndex = 0;
+        } else {
+          chunk.put((byte) '&');
+          parameterIndex = parameterIndex + 1;
+          part = NAME;
+          charIndex = 0;
+        }
+      }
+    }
+
+    /**
+     * Whether the next char of s fits in the given number of bytes
+     */
+    private boolean fits(String s, int available) {
+      return encodedLength(s, charIndex) <= available;
+    }
+  }
+
+  /**
+   * Returns the encoded length of the char (or surrogate pair) at the given index
+   */
+  private static int encodedLength(String s, int index) {
+    char ch = s.charAt(index);
+    if (isUnreserved(ch))
+      return 1;
+    if (ch < 0x80)
+      return 3;
+    if (ch < 0x800)
+      return 6;
+    if (Character.isHighSurrogate(ch) && index + 1 < s.length()
+        && Character.isLowSurrogate(s.charAt(index + 1)))
+      return 12;
+    if (Character.isSurrogate(ch))
+      return 3;
+    return 9;
+  }
+
+  /**
+   * Percent-encodes the char (or surrogate pair) at the given index into the buffer, and returns
+   * the index of the next char. Matches {@link Encodings#urlencode(String)} byte for byte.
+   */
+  private static int encode(String s, int index, ByteBuffer out) {
+    char ch = s.charAt(index);
+    if (isUnreserved(ch)) {
+      out.put((byte) ch);
+      return index + 1;
+    }
+    if (ch < 0x80) {
+      put(out, ch);
+      return index + 1;
+    }
+    if (ch < 0x800) {
+      put(out, 0xC0 | (ch >>> 6));
+      put(out, 0x80 | (ch & 0x3F));
+      return index + 1;
+    }
+    if (Character.isHighSurrogate(ch) && index + 1 < s.length()
+        && Character.isLowSurrogate(s.charAt(index + 1))) {
+      int cp = Character.toCodePoint(ch, s.charAt(index + 1));
+      put(out, 0xF0 | (cp >>> 18));
+      put(out, 0x80 | ((cp >>> 12) & 0x3F));
+      put(out, 0x80 | ((cp >>> 6) & 0x3F));
+      put(out, 0x80 | (cp & 0x3F));
+      return index + 2;
+    }
+    if (Character.isSurrogate(ch)) {
+      // Unpaired surrogates become "?" in UTF-8, just like String#getBytes
+      put(out, '?');
+      return index + 1;
+    }
+    put(out, 0xE0 | (ch >>> 12));
+    put(out, 0x80 | ((ch >>> 6) & 0x3F));
+    put(out, 0x80 | (ch & 0x3F));
+    return index + 1;
+  }
+
+  private static boolean isUnreserved(char ch) {
+    return (ch >= '0' && ch <= '9') || (ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z')
+        || ch == '-' || ch == '.' || ch == '_' || ch == '~';
+  }
+
+  private static void put(ByteBuffer out, int b) {
+    out.put((byte) '%');
+    out.put((byte) HEX[(b >>> 4) & 0x0F]);
+    out.put((byte) HEX[b & 0x0F]);
+  }
+}
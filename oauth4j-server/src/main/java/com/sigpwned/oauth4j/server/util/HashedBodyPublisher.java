@@ -0,0 +1,98 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+import com.sigpwned.oauth4j.core.util.BodyHashes;
+
+/**
+ * A body publisher that knows its oauth_body_hash. The body is hashed once up front and then
+ * streamed from its source when the request is sent, so neither step holds the whole body on the
+ * heap. Use the body hash to authorize the request, and then pass this publisher to
+ * {@link HttpRequests#prepare(com.sigpwned.oauth4j.core.model.OAuthHttpRequest, String,
+ * BodyPublisher)}.
+ */
+public class HashedBodyPublisher implements BodyPublisher {
+  /**
+   * Hashes the file by memory-mapping it, and streams it from disk when sent.
+   *
+   * @param digestAlgorithm the digest algorithm, e.g., from
+   *        {@link BodyHashes#digestAlgorithm(String)}
+   */
+  public static HashedBodyPublisher ofFile(Path file, String digestAlgorithm) throws IOException {
+    String bodyHash = BodyHashes.hash(digestAlgorithm, file);
+    return new HashedBodyPublisher(BodyPublishers.ofFile(file), bodyHash);
+  }
+
+  /**
+   * Hashes one stream from the given supplier, and streams another from it when sent. The supplier
+   * must return a stream with the same contents each time.
+   */
+  public static HashedBodyPublisher ofInputStream(Supplier<? extends InputStream> streamSupplier,
+      String digestAlgorithm) throws IOException {
+    String bodyHash;
+    try (InputStream in = streamSupplier.get()) {
+      bodyHash = BodyHashes.hash(digestAlgorithm, in);
+    }
+    return new HashedBodyPublisher(BodyPublishers.ofInputStream(streamSupplier), bodyHash);
+  }
+
+  public static HashedBodyPublisher ofByteArray(byte[] body, String digestAlgorithm) {
+    return new HashedBodyPublisher(BodyPublishers.ofByteArray(body),
+        BodyHashes.hash(digestAlgorithm, ByteBuffer.wrap(body)));
+  }
+
+  private final BodyPublisher delegate;
+
+  private final String bodyHash;
+
+  public HashedBodyPublisher(BodyPublisher delegate, String bodyHash) {
+    if (delegate == null)
+      throw new NullPointerException();
+    if (bodyHash == null)
+      throw new NullPointerException();
+    this.delegate = delegate;
+    this.bodyHash = bodyHash;
+  }
+
+  /**
+   * @return the base64-encoded oauth_body_hash of the body
+   */
+  public String getBodyHash() {
+    return bodyHash;
+  }
+
+  @Override
+  public long contentLength() {
+    return delegate.contentLength();
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+    delegate.subscribe(subscriber);
+  }
+}
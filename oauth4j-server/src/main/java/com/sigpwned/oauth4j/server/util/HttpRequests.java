@@ -19,40 +19,159 @@
  */
 package com.sigpwned.oauth4j.server.util;
 
-import static java.util.stream.Collectors.joining;
 import java.net.URI;
 import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
 import java.net.http.HttpRequest.BodyPublishers;
-import java.nio.charset.StandardCharsets;
-import java.util.Objects;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import com.sigpwned.oauth4j.core.model.OAuthHttpHeader;
 import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.model.OAuthParameters;
+import com.sigpwned.oauth4j.core.util.Encodings;
 
 public final class HttpRequests {
   private HttpRequests() {}
 
+  /**
+   * We send many requests to a small, fixed set of endpoints, so each endpoint's parsed URI and
+   * encoded query prefix are cached. The key is the request's URL without its query parameters,
+   * since those usually change with every request. The cache is simply cleared when it fills up,
+   * which keeps it bounded even if callers send every request to a different URL.
+   */
+  private static final int MAX_CACHED_ENDPOINTS = 1024;
+
+  private static final ConcurrentMap<String, Endpoint> ENDPOINTS = new ConcurrentHashMap<>();
+
+  /**
+   * A parsed endpoint URL, and the prefix that its query parameters are appended to
+   */
+  /* default */ static final class Endpoint {
+    private final URI uri;
+    private final String prefix;
+
+    public Endpoint(URI uri, String prefix) {
+      this.uri = uri;
+      this.prefix = prefix;
+    }
+
+    /**
+     * @return the URI of the endpoint with no query parameters added
+     */
+    public URI getUri() {
+      return uri;
+    }
+
+    /**
+     * @return the URL followed by the separator for the first added query parameter
+     */
+    public String getPrefix() {
+      return prefix;
+    }
+  }
+
+  /**
+   * Prepares the given request. POST, PUT, and PATCH requests send their form parameters as a form
+   * body. GET, DELETE, and HEAD requests have no body, and so must not have form parameters.
+   */
   public static HttpRequest prepare(OAuthHttpRequest request) {
-    StringBuilder uri = new StringBuilder().append(request.getUrl());
-    if (!request.getQueryParameters().isEmpty()) {
-      uri.append("?").append(
-          request.getQueryParameters().stream().map(Objects::toString).collect(joining("&")));
+    return prepare(request, null);
+  }
+
+  /**
+   * As {@link #prepare(OAuthHttpRequest)}, but the request fails with an
+   * {@link java.net.http.HttpTimeoutException} if no response arrives within the given timeout. A
+   * null timeout means no timeout.
+   */
+  public static HttpRequest prepare(OAuthHttpRequest request, Duration timeout) {
+    String method = request.getMethod().toUpperCase(Locale.ROOT);
+
+    HttpRequest.Builder result = newBuilder(request);
+    if (timeout != null)
+      result.timeout(timeout);
+    switch (method) {
+      case OAuthHttpRequest.POST_METHOD:
+      case OAuthHttpRequest.PUT_METHOD:
+      case OAuthHttpRequest.PATCH_METHOD:
+        result.method(method, FormBodyPublisher.of(request.getCompactFormParameters()))
+            .header("Content-Type", FormBodyPublisher.CONTENT_TYPE);
+        break;
+      case OAuthHttpRequest.GET_METHOD:
+      case OAuthHttpRequest.DELETE_METHOD:
+      case OAuthHttpRequest.HEAD_METHOD:
+        if (!request.getCompactFormParameters().isEmpty())
+          throw new IllegalArgumentException(method + " request has form parameters");
+        result.method(method, BodyPublishers.noBody());
+        break;
+      default:
+        throw new IllegalArgumentException("unrecognized method " + request.getMethod());
     }
 
-    HttpRequest.Builder result = HttpRequest.newBuilder().uri(URI.create(uri.toString()));
+    return result.build();
+  }
+
+  /**
+   * Prepares a request with an arbitrary body, e.g., one authorized with an oauth_body_hash. The
+   * request must not have form parameters, since those are only allowed in form-encoded bodies.
+   */
+  public static HttpRequest prepare(OAuthHttpRequest request, String contentType,
+      BodyPublisher body) {
+    if (contentType == null)
+      throw new NullPointerException();
+    if (body == null)
+      throw new NullPointerException();
+    if (!request.getCompactFormParameters().isEmpty())
+      throw new IllegalArgumentException("request has form parameters");
+    return newBuilder(request).method(request.getMethod().toUpperCase(Locale.ROOT), body)
+        .header("Content-Type", contentType).build();
+  }
 
+  private static HttpRequest.Builder newBuilder(OAuthHttpRequest request) {
+    HttpRequest.Builder result = HttpRequest.newBuilder().uri(uri(request));
     for (OAuthHttpHeader header : request.getHeaders())
       result.header(header.getName(), header.getValue());
+    return result;
+  }
 
-    if (request.getMethod().equalsIgnoreCase(OAuthHttpRequest.POST_METHOD)) {
-      result = result
-          .POST(BodyPublishers.ofString(
-              request.getFormParameters().stream().map(Objects::toString).collect(joining("&")),
-              StandardCharsets.UTF_8))
-          .header("Content-Type", "application/x-ww-form-urlencoded; charset=utf-8");
-    } else {
-      throw new IllegalArgumentException("unrecognized method " + request.getMethod());
+  /**
+   * Returns the full URI of the given request, including its query string. A request without query
+   * parameters gets its endpoint's cached URI. Otherwise, only the query parameters are encoded
+   * and appended to the endpoint's cached prefix. The result is still parsed once, since
+   * {@link URI} has no way to add an encoded query to a parsed URI.
+   */
+  /* default */ static URI uri(OAuthHttpRequest request) {
+    Endpoint endpoint = endpoint(request.getUrl());
+
+    OAuthParameters queryParameters = request.getCompactQueryParameters();
+    if (queryParameters.isEmpty())
+      return endpoint.getUri();
+
+    String prefix = endpoint.getPrefix();
+    StringBuilder buf =
+        new StringBuilder(prefix.length() + 64 * queryParameters.size()).append(prefix);
+    for (int i = 0; i < queryParameters.size(); i++) {
+      if (i != 0)
+        buf.append('&');
+      buf.append(Encodings.urlencode(queryParameters.getKey(i))).append('=')
+          .append(Encodings.urlencode(queryParameters.getValue(i)));
     }
+    return URI.create(buf.toString());
+  }
 
-    return result.build();
+  /**
+   * Returns the cached endpoint for the given URL, parsing it on first use
+   */
+  /* default */ static Endpoint endpoint(String url) {
+    Endpoint result = ENDPOINTS.get(url);
+    if (result == null) {
+      URI uri = URI.create(url);
+      result = new Endpoint(uri, url + (uri.getRawQuery() == null ? "?" : "&"));
+      if (ENDPOINTS.size() >= MAX_CACHED_ENDPOINTS)
+        ENDPOINTS.clear();
+      ENDPOINTS.put(url, result);
+    }
+    return result;
   }
 }
@@ -0,0 +1,126 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.util;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import com.sigpwned.oauth4j.core.annotation.Generated;
+
+/**
+ * The outcome of opening a connection to one provider endpoint ahead of the first real request.
+ */
+public class WarmUpResult {
+  public static WarmUpResult success(String url, int statusCode, Duration elapsed) {
+    return new WarmUpResult(url, true, statusCode, null, elapsed);
+  }
+
+  public static WarmUpResult failure(String url, String error, Duration elapsed) {
+    return new WarmUpResult(url, false, 0, error, elapsed);
+  }
+
+  private final String url;
+
+  /**
+   * Whether the endpoint answered at all. Any status counts, since the goal is only to have
+   * resolved the host and completed the handshake.
+   */
+  private final boolean success;
+
+  private final int statusCode;
+  private final String error;
+  private final Duration elapsed;
+
+  public WarmUpResult(String url, boolean success, int statusCode, String error,
+      Duration elapsed) {
+    if (url == null)
+      throw new NullPointerException();
+    if (elapsed == null)
+      throw new NullPointerException();
+    this.url = url;
+    this.success = success;
+    this.statusCode = statusCode;
+    this.error = error;
+    this.elapsed = elapsed;
+  }
+
+  /**
+   * @return the url
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * @return the success
+   */
+  public boolean isSuccess() {
+    return success;
+  }
+
+  /**
+   * @return the status code of the response, or 0 if there was none
+   */
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  /**
+   * @return why the endpoint could not be reached, if it could not
+   */
+  public Optional<String> getError() {
+    return Optional.ofNullable(error);
+  }
+
+  /**
+   * @return how long the warm-up request took, including DNS, connect, and TLS
+   */
+  public Duration getElapsed() {
+    return elapsed;
+  }
+
+  @Override
+  @Generated
+  public int hashCode() {
+    return Objects.hash(elapsed, error, statusCode, success, url);
+  }
+
+  @Override
+  @Generated
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    WarmUpResult other = (WarmUpResult) obj;
+    return Objects.equals(elapsed, other.elapsed) && Objects.equals(error, other.error)
+        && statusCode == other.statusCode && success == other.success
+        && Objects.equals(url, other.url);
+  }
+
+  @Override
+  @Generated
+  public String toString() {
+    return "WarmUpResult [url=" + url + ", success=" + success + ", statusCode=" + statusCode
+        + ", error=" + error + ", elapsed=" + elapsed + "]";
+  }
+}
@@ -0,0 +1,96 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.circuit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.time.Duration;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+  public static class TestCircuitBreaker extends CircuitBreaker {
+    public long now = 1_000_000_000L;
+
+    public TestCircuitBreaker(CircuitBreakerPolicy policy) {
+      super("test", policy);
+    }
+
+    @Override
+    protected long nanoTime() {
+      return now;
+    }
+  }
+
+  public static final CircuitBreakerPolicy POLICY =
+      CircuitBreakerPolicy.of(Duration.ofSeconds(10L), 4, 0.5, Duration.ofSeconds(30L));
+
+  /**
+   * Failures that fall out of the rolling window must not count
+   */
+  @Test
+  public void windowTest() {
+    TestCircuitBreaker unit = new TestCircuitBreaker(POLICY);
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(unit.tryAcquirePermission(), is(true));
+      unit.onFailure();
+    }
+    unit.now = unit.now + Duration.ofSeconds(11L).toNanos();
+
+    assertThat(unit.tryAcquirePermission(), is(true));
+    unit.onFailure();
+    assertThat(unit.getState(), is(CircuitBreaker.State.CLOSED));
+  }
+
+  /**
+   * A failed probe must reopen the breaker for another full open period
+   */
+  @Test
+  public void halfOpenTest() {
+    TestCircuitBreaker unit = new TestCircuitBreaker(POLICY);
+
+    for (int i = 0; i < 2; i++) {
+      unit.tryAcquirePermission();
+      unit.onSuccess();
+    }
+    for (int i = 0; i < 2; i++) {
+      unit.tryAcquirePermission();
+      unit.onFailure();
+    }
+    assertThat(unit.getState(), is(CircuitBreaker.State.OPEN));
+    assertThat(unit.tryAcquirePermission(), is(false));
+    assertThat(unit.getRemainingOpenDuration(), is(Duration.ofSeconds(30L)));
+
+    unit.now = unit.now + Duration.ofSeconds(30L).toNanos();
+    assertThat(unit.tryAcquirePermission(), is(true));
+    assertThat(unit.getState(), is(CircuitBreaker.State.HALF_OPEN));
+    // Only one probe at a time
+    assertThat(unit.tryAcquirePermission(), is(false));
+    unit.onFailure();
+    assertThat(unit.getState(), is(CircuitBreaker.State.OPEN));
+    assertThat(unit.getStateChangeCount(CircuitBreaker.State.OPEN), is(2L));
+
+    unit.now = unit.now + Duration.ofSeconds(30L).toNanos();
+    assertThat(unit.tryAcquirePermission(), is(true));
+    unit.onSuccess();
+    assertThat(unit.getState(), is(CircuitBreaker.State.CLOSED));
+    assertThat(unit.getRejectedCallCount(), is(2L));
+  }
+}
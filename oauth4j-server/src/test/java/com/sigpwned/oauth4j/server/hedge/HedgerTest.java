@@ -0,0 +1,141 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.hedge;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HedgerTest {
+  public ExecutorService executor;
+
+  @Before
+  public void setupHedgerTest() {
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void cleanupHedgerTest() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Once the budget is spent, slow requests must not be hedged
+   */
+  @Test
+  public void budgetTest() throws Exception {
+    Hedger unit =
+        new Hedger(HedgingPolicy.fixed(Duration.ofMillis(10L)).withBudget(0.0, 1), executor);
+
+    AtomicInteger attempts = new AtomicInteger();
+    for (int i = 0; i < 5; i++)
+      unit.execute(() -> {
+        attempts.incrementAndGet();
+        return new CompletableFuture<String>();
+      });
+
+    Thread.sleep(200L);
+
+    assertThat(attempts.get(), is(6));
+    assertThat(unit.getHedgeCount(), is(1L));
+    assertThat(unit.getBudgetDenialCount(), is(4L));
+  }
+
+  /**
+   * The loser of a hedged race must be cancelled
+   */
+  @Test
+  public void cancelTest() throws Exception {
+    Hedger unit = new Hedger(HedgingPolicy.fixed(Duration.ofMillis(10L)), executor);
+
+    CompletableFuture<String> primary = new CompletableFuture<>();
+    CompletableFuture<String> hedge = CompletableFuture.completedFuture("hedge");
+    AtomicInteger attempts = new AtomicInteger();
+    CompletableFuture<String> result =
+        unit.execute(() -> attempts.getAndIncrement() == 0 ? primary : hedge);
+
+    assertThat(result.get(1L, TimeUnit.SECONDS), is("hedge"));
+    assertThat(primary.isCancelled(), is(true));
+    assertThat(unit.getHedgeWinCount(), is(1L));
+  }
+
+  /**
+   * A failure must not fail the request while another attempt is still running
+   */
+  @Test
+  public void failureTest() throws Exception {
+    Hedger unit = new Hedger(HedgingPolicy.fixed(Duration.ofMillis(10L)), executor);
+
+    CompletableFuture<String> primary = new CompletableFuture<>();
+    CompletableFuture<String> hedge = new CompletableFuture<>();
+    AtomicInteger attempts = new AtomicInteger();
+    CompletableFuture<String> result =
+        unit.execute(() -> attempts.getAndIncrement() == 0 ? primary : hedge);
+    while (attempts.get() < 2)
+      Thread.sleep(5L);
+
+    hedge.completeExceptionally(new IOException("hedge"));
+    assertThat(result.isDone(), is(false));
+
+    primary.completeExceptionally(new IOException("primary"));
+    try {
+      result.get(1L, TimeUnit.SECONDS);
+      throw new AssertionError("expected failure");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause().getMessage(), is("primary"));
+    }
+  }
+
+  /**
+   * With a percentile policy, the delay must follow recent latencies
+   */
+  @Test
+  public void percentileTest() throws Exception {
+    final long[] now = new long[1];
+    Hedger unit = new Hedger(
+        HedgingPolicy.percentile(0.9, Duration.ofSeconds(1L), Duration.ofMillis(1L)), executor) {
+      @Override
+      protected long nanoTime() {
+        return now[0];
+      }
+    };
+    assertThat(unit.getDelayNanos(), is(TimeUnit.SECONDS.toNanos(1L)));
+
+    for (int i = 1; i <= 100; i++) {
+      CompletableFuture<String> attempt = new CompletableFuture<>();
+      unit.execute(() -> attempt);
+      now[0] = now[0] + TimeUnit.MILLISECONDS.toNanos(i);
+      attempt.complete("ok");
+    }
+
+    // Latencies 1..96ms seen at the last recompute, so p90 is 87ms
+    assertThat(unit.getDelayNanos(), is(TimeUnit.MILLISECONDS.toNanos(87L)));
+  }
+}
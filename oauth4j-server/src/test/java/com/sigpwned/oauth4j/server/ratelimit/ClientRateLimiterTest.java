@@ -0,0 +1,91 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.ratelimit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import org.junit.Test;
+
+public class ClientRateLimiterTest {
+  public static class TestClock implements LongSupplier {
+    public long now;
+
+    @Override
+    public long getAsLong() {
+      return now;
+    }
+  }
+
+  @Test
+  public void burstTest() {
+    TestClock clock = new TestClock();
+    ClientRateLimiter unit = new ClientRateLimiter(RateLimitPolicy.of(1.0, 3), clock);
+
+    for (int i = 0; i < 3; i++)
+      assertThat(unit.tryAcquire("alpha"), is(Duration.ZERO));
+    assertThat(unit.tryAcquire("alpha"), is(Duration.ofSeconds(1L)));
+
+    // Other clients have their own buckets
+    assertThat(unit.tryAcquire("bravo"), is(Duration.ZERO));
+
+    clock.now = clock.now + Duration.ofMillis(500L).toNanos();
+    assertThat(unit.tryAcquire("alpha"), is(Duration.ofMillis(500L)));
+
+    clock.now = clock.now + Duration.ofMillis(500L).toNanos();
+    assertThat(unit.tryAcquire("alpha"), is(Duration.ZERO));
+    assertThat(unit.tryAcquire("alpha"), is(Duration.ofSeconds(1L)));
+  }
+
+  /**
+   * However many clients appear, the limiter must track no more than its maximum, and must forget
+   * idle clients to make room for new ones
+   */
+  @Test
+  public void boundedTest() {
+    TestClock clock = new TestClock();
+    ClientRateLimiter unit =
+        new ClientRateLimiter(RateLimitPolicy.of(1.0, 1).withMaxClients(256), clock);
+
+    for (int i = 0; i < 100000; i++)
+      unit.tryAcquire("client" + i);
+    assertThat(unit.getTrackedClientCount() <= 256, is(true));
+
+    // New clients beyond the limit share a bucket while every tracked client is still limited
+    int rejected = 0;
+    for (int i = 0; i < 1000; i++)
+      if (!unit.tryAcquire("flood" + i).isZero())
+        rejected = rejected + 1;
+    assertThat(rejected > 900, is(true));
+
+    clock.now = clock.now + Duration.ofSeconds(2L).toNanos();
+    assertThat(unit.tryAcquire("newcomer"), is(Duration.ZERO));
+    assertThat(unit.getTrackedClientCount() <= 256, is(true));
+  }
+
+  @Test
+  public void disabledTest() {
+    ClientRateLimiter unit = new ClientRateLimiter(RateLimitPolicy.NONE);
+    for (int i = 0; i < 100; i++)
+      assertThat(unit.tryAcquire("alpha"), is(Duration.ZERO));
+    assertThat(unit.getTrackedClientCount(), is(0));
+  }
+}
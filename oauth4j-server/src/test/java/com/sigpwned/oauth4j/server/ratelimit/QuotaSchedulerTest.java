@@ -0,0 +1,175 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.ratelimit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.authorizer.ClockSkewEstimator;
+
+public class QuotaSchedulerTest {
+  public static final String ENDPOINT = "https://api.twitter.com/oauth/request_token";
+
+  public static final long NOW = 1318622958000L;
+
+  public static class TestQuotaScheduler extends QuotaScheduler {
+    public long now = NOW;
+
+    public TestQuotaScheduler() {
+      super(0.5, Duration.ofSeconds(5L));
+    }
+
+    public TestQuotaScheduler(ClockSkewEstimator clockSkewEstimator) {
+      super(0.5, Duration.ofSeconds(5L), clockSkewEstimator);
+    }
+
+    @Override
+    protected long currentTimeMillis() {
+      return now;
+    }
+  }
+
+  @Test
+  public void unknownTest() {
+    QuotaScheduler unit = new TestQuotaScheduler();
+    assertThat(unit.reserve(ENDPOINT), is(Duration.ZERO));
+    assertThat(unit.getRemaining(ENDPOINT), is(OptionalLong.empty()));
+  }
+
+  @Test
+  public void observeTest() {
+    QuotaScheduler unit = new TestQuotaScheduler();
+    unit.observe(ENDPOINT,
+        HttpHeaders.of(Map.of("x-rate-limit-limit", List.of("15"), "x-rate-limit-remaining",
+            List.of("14"), "x-rate-limit-reset", List.of(Long.toString(NOW / 1000L + 900L))),
+            (k, v) -> true));
+    assertThat(unit.getRemaining(ENDPOINT), is(OptionalLong.of(14L)));
+  }
+
+  /**
+   * Requests must go immediately while quota is plentiful, be spread over the rest of the window
+   * once it runs low, and fail fast once it is gone or once pacing would wait too long
+   */
+  @Test
+  public void pacingTest() {
+    TestQuotaScheduler unit = new TestQuotaScheduler();
+    unit.observe(ENDPOINT, 8L, 4L, NOW / 1000L + 8L);
+
+    // 4 -> 3 is below half, so pacing starts, with 8s left for 4 requests
+    assertThat(unit.reserve(ENDPOINT), is(Duration.ZERO));
+    assertThat(unit.reserve(ENDPOINT), is(Duration.ofSeconds(2L)));
+    assertThat(unit.reserve(ENDPOINT), is(Duration.ofSeconds(4L)));
+    try {
+      unit.reserve(ENDPOINT);
+      throw new AssertionError("expected pacing to give up");
+    } catch (QuotaExhaustedException e) {
+      assertThat(e.getRetryAfter(), is(Duration.ofSeconds(6L)));
+    }
+    assertThat(unit.getRemaining(ENDPOINT), is(OptionalLong.of(1L)));
+
+    unit.now = NOW + 6000L;
+    assertThat(unit.reserve(ENDPOINT), is(Duration.ZERO));
+    try {
+      unit.reserve(ENDPOINT);
+      throw new AssertionError("expected exhausted quota");
+    } catch (QuotaExhaustedException e) {
+      assertThat(e.getRetryAfter(), is(Duration.ofSeconds(2L)));
+    }
+
+    // Once the window resets, requests go until the provider tells us otherwise
+    unit.now = NOW + 8000L;
+    assertThat(unit.reserve(ENDPOINT), is(Duration.ZERO));
+  }
+
+  /**
+   * The reset comes from the provider's clock, so it must be compared against the provider's time
+   */
+  @Test
+  public void clockSkewTest() {
+    ClockSkewEstimator clockSkewEstimator = new ClockSkewEstimator();
+    clockSkewEstimator.correct(NOW + 10000L, NOW);
+
+    TestQuotaScheduler unit = new TestQuotaScheduler(clockSkewEstimator);
+    unit.observe(ENDPOINT, 10L, 0L, NOW / 1000L + 5L);
+
+    // Our clock says the window has 5s left, but the provider's says it reset 5s ago
+    assertThat(unit.reserve(ENDPOINT), is(Duration.ZERO));
+    assertThat(unit.getRemaining(ENDPOINT), is(OptionalLong.empty()));
+  }
+
+  /**
+   * Quota reserved for a request that never went must be available again, but only up to the limit
+   */
+  @Test
+  public void releaseTest() {
+    TestQuotaScheduler unit = new TestQuotaScheduler();
+    unit.observe(ENDPOINT, 10L, 10L, NOW / 1000L + 10L);
+
+    assertThat(unit.reserve(ENDPOINT), is(Duration.ZERO));
+    assertThat(unit.getRemaining(ENDPOINT), is(OptionalLong.of(9L)));
+    unit.release(ENDPOINT);
+    assertThat(unit.getRemaining(ENDPOINT), is(OptionalLong.of(10L)));
+    unit.release(ENDPOINT);
+    assertThat(unit.getRemaining(ENDPOINT), is(OptionalLong.of(10L)));
+  }
+
+  /**
+   * A caller that cannot wait must fail fast instead of being paced, without spending quota
+   */
+  @Test
+  public void tryAcquireTest() {
+    TestQuotaScheduler unit = new TestQuotaScheduler();
+    unit.observe(ENDPOINT, 8L, 4L, NOW / 1000L + 8L);
+
+    unit.tryAcquire(ENDPOINT);
+    try {
+      unit.tryAcquire(ENDPOINT);
+      throw new AssertionError("expected pacing to fail fast");
+    } catch (QuotaExhaustedException e) {
+      assertThat(e.getRetryAfter(), is(Duration.ofSeconds(2L)));
+    }
+    assertThat(unit.getRemaining(ENDPOINT), is(OptionalLong.of(3L)));
+  }
+
+  @Test
+  public void asyncTest() throws Exception {
+    TestQuotaScheduler unit = new TestQuotaScheduler();
+    unit.observe(ENDPOINT, 10L, 1L, NOW / 1000L + 1L);
+
+    CompletableFuture<Void> first = unit.acquireAsync(ENDPOINT, ForkJoinPool.commonPool());
+    first.get();
+
+    CompletableFuture<Void> second = unit.acquireAsync(ENDPOINT, ForkJoinPool.commonPool());
+    try {
+      second.get();
+      throw new AssertionError("expected exhausted quota");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause() instanceof QuotaExhaustedException, is(true));
+    }
+  }
+}
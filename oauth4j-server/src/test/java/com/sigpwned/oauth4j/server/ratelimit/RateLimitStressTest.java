@@ -0,0 +1,138 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.ratelimit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+import org.junit.Test;
+import com.sigpwned.oauth4j.server.ratelimit.ClientRateLimiterTest.TestClock;
+
+/**
+ * Hammers the rate limiters from many threads with the clock frozen, so exactly as many permits
+ * must be granted as the policy or quota allows. Any lost update shows up as an extra grant.
+ *
+ * Set the oauth4j.stressIterations system property to run longer, e.g., on a many-core machine.
+ */
+public class RateLimitStressTest {
+  public static final int THREADS = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+  public static final int ITERATIONS = Integer.getInteger("oauth4j.stressIterations", 2000);
+
+  @Test
+  public void clientRateLimiterOneClientTest() throws Exception {
+    ClientRateLimiter unit = new ClientRateLimiter(RateLimitPolicy.of(1.0, 100), new TestClock());
+
+    AtomicInteger granted = new AtomicInteger();
+    runConcurrently(THREADS, thread -> {
+      for (int i = 0; i < ITERATIONS; i++)
+        if (unit.tryAcquire("alpha").equals(Duration.ZERO))
+          granted.incrementAndGet();
+    });
+
+    assertThat(granted.get(), is(100));
+  }
+
+  @Test
+  public void clientRateLimiterManyClientsTest() throws Exception {
+    final int clients = 500;
+    ClientRateLimiter unit = new ClientRateLimiter(RateLimitPolicy.of(1.0, 3), new TestClock());
+
+    AtomicIntegerArray granted = new AtomicIntegerArray(clients);
+    runConcurrently(THREADS, thread -> {
+      for (int i = 0; i < ITERATIONS; i++) {
+        int client = (thread * 31 + i) % clients;
+        if (unit.tryAcquire("client-" + client).equals(Duration.ZERO))
+          granted.incrementAndGet(client);
+      }
+    });
+
+    for (int client = 0; client < clients; client++)
+      assertThat("client-" + client, granted.get(client), is(3));
+    assertThat(unit.getTrackedClientCount(), is(clients));
+  }
+
+  @Test
+  public void quotaSchedulerTest() throws Exception {
+    // Pacing is off, so every reservation either goes now or fails
+    QuotaScheduler unit = new QuotaScheduler(0.0, Duration.ofSeconds(5L)) {
+      @Override
+      protected long currentTimeMillis() {
+        return 1000000L;
+      }
+    };
+    unit.observe("token", 1000L, 750L, 2000L);
+
+    AtomicInteger granted = new AtomicInteger();
+    AtomicInteger refused = new AtomicInteger();
+    runConcurrently(THREADS, thread -> {
+      for (int i = 0; i < ITERATIONS / 10; i++) {
+        try {
+          unit.reserve("token");
+          granted.incrementAndGet();
+        } catch (QuotaExhaustedException e) {
+          refused.incrementAndGet();
+        }
+        // Late responses from the same window must never hand quota back
+        if (i % 10 == 0)
+          unit.observe("token", 1000L, 750L, 2000L);
+      }
+    });
+
+    assertThat(granted.get(), is(Math.min(750, THREADS * (ITERATIONS / 10))));
+    assertThat(granted.get() + refused.get(), is(THREADS * (ITERATIONS / 10)));
+    assertThat(unit.getRemaining("token").getAsLong(), is(750L - granted.get()));
+  }
+
+  /**
+   * Runs the given task on the given number of threads, all released at once, and rethrows the
+   * first failure
+   */
+  private static void runConcurrently(int threads, IntConsumer task) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      final int thread = t;
+      Thread worker = new Thread(() -> {
+        try {
+          start.await();
+          task.accept(thread);
+        } catch (Throwable e) {
+          failure.compareAndSet(null, e);
+        }
+      }, "stress-" + t);
+      worker.start();
+      workers.add(worker);
+    }
+    start.countDown();
+    for (Thread worker : workers)
+      worker.join();
+    if (failure.get() != null)
+      throw new AssertionError("stress task failed", failure.get());
+  }
+}
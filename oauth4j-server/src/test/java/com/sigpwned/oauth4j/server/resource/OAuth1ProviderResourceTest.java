@@ -0,0 +1,541 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.resource;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.authorizer.DefaultOAuthHttpRequestAuthorizer;
+import com.sigpwned.oauth4j.core.model.OAuthConsumer;
+import com.sigpwned.oauth4j.core.signer.HmacSha1OAuthHttpRequestSigner;
+import com.sigpwned.oauth4j.core.util.OAuth;
+import com.sigpwned.oauth4j.core.util.Parameter;
+import com.sigpwned.oauth4j.server.AuthenticatedHandler;
+import com.sigpwned.oauth4j.server.OAuth1ProviderDescriptor;
+import com.sigpwned.oauth4j.server.TokenStore;
+import com.sigpwned.oauth4j.server.circuit.CircuitBreaker;
+import com.sigpwned.oauth4j.server.circuit.CircuitBreakerPolicy;
+import com.sigpwned.oauth4j.server.hedge.HedgingPolicy;
+import com.sigpwned.oauth4j.server.ratelimit.RateLimitPolicy;
+import com.sigpwned.oauth4j.server.util.WarmUpResult;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+
+public class OAuth1ProviderResourceTest {
+  public MockWebServer slow;
+
+  public MockWebServer fast;
+
+  @Before
+  public void setupOAuth1ProviderResourceTest() {
+    slow = new MockWebServer();
+    fast = new MockWebServer();
+  }
+
+  @After
+  public void cleanupOAuth1ProviderResourceTest() {
+    for (MockWebServer server : new MockWebServer[] {slow, fast}) {
+      try {
+        server.shutdown();
+      } catch (Exception e) {
+        // Ignore me
+      }
+    }
+  }
+
+  /**
+   * A provider at its concurrency limit must turn away new requests immediately, without affecting
+   * other providers
+   */
+  @Test
+  public void bulkheadTest() throws Exception {
+    slow.enqueue(requestTokenResponse().setHeadersDelay(2L, TimeUnit.SECONDS));
+    slow.start();
+    fast.enqueue(requestTokenResponse());
+    fast.start();
+
+    try (OAuth1ProviderResource slowProvider = newProvider("slow", slow, 1);
+        OAuth1ProviderResource fastProvider = newProvider("fast", fast, 1)) {
+      CompletableFuture<Response> inFlight = CompletableFuture.supplyAsync(() -> {
+        try {
+          return slowProvider.authenticate();
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      });
+      while (slowProvider.getAvailableConcurrentRequests() != 0)
+        Thread.sleep(10L);
+
+      try {
+        slowProvider.authenticate();
+        throw new AssertionError("expected the slow provider to be full");
+      } catch (ServiceUnavailableException e) {
+        // Good
+      }
+
+      assertThat(fastProvider.authenticate().getStatus(), is(307));
+      assertThat(inFlight.get().getStatus(), is(307));
+      assertThat(slowProvider.getAvailableConcurrentRequests(), is(1));
+    }
+  }
+
+  @Test
+  public void providersTest() throws Exception {
+    try (OAuth1ProvidersResource unit = new OAuth1ProvidersResource(
+        List.of(newProvider("slow", slow, 1), newProvider("fast", fast, 1)))) {
+      assertThat(unit.provider("fast").getDescriptor().getName(), is("fast"));
+      try {
+        unit.provider("twitter");
+        throw new AssertionError("expected no twitter provider");
+      } catch (NotFoundException e) {
+        // Good
+      }
+      assertThat(unit.provider("slow").getCallbackUrl(),
+          is("http://localhost:8080/oauth/slow/1/callback"));
+    }
+  }
+
+  /**
+   * A failure storm must open the breaker, so later requests fail fast without reaching the
+   * provider, and a successful probe after the open period must close it again
+   */
+  @Test
+  public void circuitBreakerTest() throws Exception {
+    for (int i = 0; i < 5; i++)
+      slow.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_UNAVAILABLE));
+    slow.enqueue(requestTokenResponse());
+    slow.start();
+
+    OAuth1ProviderDescriptor descriptor = OAuth1ProviderDescriptor
+        .of("slow", slow.url("/request_token").toString(), slow.url("/authenticate").toString(),
+            slow.url("/access_token").toString(), HmacSha1OAuthHttpRequestSigner.INSTANCE)
+        .withCircuitBreakerPolicy(
+            CircuitBreakerPolicy.of(Duration.ofMinutes(1L), 5, 0.5, Duration.ofMillis(500L)));
+
+    final List<CircuitBreaker.State> transitions = new CopyOnWriteArrayList<>();
+    try (OAuth1ProviderResource unit = new OAuth1ProviderResource("http://localhost:8080",
+        descriptor, OAuthConsumer.of("slow", "consumerKey", "consumerSecret"),
+        mock(TokenStore.class), mock(AuthenticatedHandler.class))) {
+      unit.getCircuitBreaker().addListener((b, from, to) -> transitions.add(to));
+
+      for (int i = 0; i < 5; i++) {
+        try {
+          unit.authenticate();
+          throw new AssertionError("expected failure");
+        } catch (InternalServerErrorException e) {
+          // Good
+        }
+      }
+      assertThat(unit.getCircuitBreaker().getState(), is(CircuitBreaker.State.OPEN));
+
+      for (int i = 0; i < 10; i++) {
+        try {
+          unit.authenticate();
+          throw new AssertionError("expected fast failure");
+        } catch (ServiceUnavailableException e) {
+          assertThat(e.getResponse().getHeaderString("Retry-After"), is("1"));
+        }
+      }
+      assertThat(slow.getRequestCount(), is(5));
+      assertThat(unit.getCircuitBreaker().getRejectedCallCount(), is(10L));
+
+      Thread.sleep(600L);
+
+      assertThat(unit.authenticate().getStatus(), is(307));
+      assertThat(unit.getCircuitBreaker().getState(), is(CircuitBreaker.State.CLOSED));
+      assertThat(transitions, is(List.of(CircuitBreaker.State.OPEN,
+          CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.CLOSED)));
+    }
+  }
+
+  /**
+   * An error page that is not form-encoded must fail the request without counting against the
+   * provider's health
+   */
+  @Test
+  public void errorPageTest() throws Exception {
+    for (int i = 0; i < 5; i++)
+      slow.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_FOUND)
+          .setHeader("Content-Type", "text/html").setBody("<p>100% not here</p>"));
+    slow.start();
+
+    OAuth1ProviderDescriptor descriptor = OAuth1ProviderDescriptor
+        .of("slow", slow.url("/request_token").toString(), slow.url("/authenticate").toString(),
+            slow.url("/access_token").toString(), HmacSha1OAuthHttpRequestSigner.INSTANCE)
+        .withCircuitBreakerPolicy(
+            CircuitBreakerPolicy.of(Duration.ofMinutes(1L), 5, 0.5, Duration.ofMillis(500L)));
+    try (OAuth1ProviderResource unit = new OAuth1ProviderResource("http://localhost:8080",
+        descriptor, OAuthConsumer.of("slow", "consumerKey", "consumerSecret"),
+        mock(TokenStore.class), mock(AuthenticatedHandler.class))) {
+      for (int i = 0; i < 5; i++) {
+        try {
+          unit.authenticate();
+          throw new AssertionError("expected failure");
+        } catch (InternalServerErrorException e) {
+          // Good
+        }
+      }
+      assertThat(unit.getCircuitBreaker().getState(), is(CircuitBreaker.State.CLOSED));
+    }
+  }
+
+  /**
+   * A slow request token call must be hedged with an independently signed request, and the fast
+   * answer must win
+   */
+  @Test
+  public void hedgingTest() throws Exception {
+    slow.enqueue(requestTokenResponse().setHeadersDelay(5L, TimeUnit.SECONDS));
+    slow.enqueue(requestTokenResponse());
+    slow.start();
+
+    OAuth1ProviderDescriptor descriptor = OAuth1ProviderDescriptor
+        .of("slow", slow.url("/request_token").toString(), slow.url("/authenticate").toString(),
+            slow.url("/access_token").toString(), HmacSha1OAuthHttpRequestSigner.INSTANCE)
+        .withHedgingPolicy(HedgingPolicy.fixed(Duration.ofMillis(100L)));
+
+    try (OAuth1ProviderResource unit = new OAuth1ProviderResource("http://localhost:8080",
+        descriptor, OAuthConsumer.of("slow", "consumerKey", "consumerSecret"),
+        mock(TokenStore.class), mock(AuthenticatedHandler.class))) {
+      long start = System.nanoTime();
+      assertThat(unit.authenticate().getStatus(), is(307));
+      long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      assertThat(elapsed < 4000L, is(true));
+      assertThat(unit.getHedger().getHedgeCount(), is(1L));
+      assertThat(unit.getHedger().getHedgeWinCount(), is(1L));
+
+      RecordedRequest first = slow.takeRequest(1L, TimeUnit.SECONDS);
+      RecordedRequest second = slow.takeRequest(1L, TimeUnit.SECONDS);
+      assertThat(first.getHeader("Authorization"), not(second.getHeader("Authorization")));
+    }
+  }
+
+  /**
+   * A timestamp refused because our clock is off must be corrected from the provider's Date header
+   * and retried once with a fresh signature
+   */
+  @Test
+  public void clockSkewTest() throws Exception {
+    long skewedSeconds = System.currentTimeMillis() / 1000L + 3600L;
+    slow.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_UNAUTHORIZED)
+        .setHeader("Date",
+            DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(Instant.ofEpochSecond(skewedSeconds).atOffset(ZoneOffset.UTC)))
+        .setBody("oauth_problem=timestamp_refused"));
+    slow.enqueue(requestTokenResponse());
+    slow.start();
+
+    try (OAuth1ProviderResource unit = newProvider("slow", slow, 1)) {
+      assertThat(unit.authenticate().getStatus(), is(307));
+      assertThat(slow.getRequestCount(), is(2));
+
+      slow.takeRequest();
+      String authorization = slow.takeRequest().getHeader("Authorization");
+      Matcher m = Pattern.compile("oauth_timestamp=\"(\\d+)\"").matcher(authorization);
+      assertThat(m.find(), is(true));
+      assertThat(Math.abs(Long.parseLong(m.group(1)) - skewedSeconds) <= 5L, is(true));
+    }
+  }
+
+  /**
+   * A provider signing with the shared authorizer must neither correct it nor retry, since the
+   * shared authorizer's clock is every caller's clock
+   */
+  @Test
+  public void sharedAuthorizerClockSkewTest() throws Exception {
+    long skewedSeconds = System.currentTimeMillis() / 1000L + 3600L;
+    slow.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_UNAUTHORIZED)
+        .setHeader("Date",
+            DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(Instant.ofEpochSecond(skewedSeconds).atOffset(ZoneOffset.UTC)))
+        .setBody("oauth_problem=timestamp_refused"));
+    slow.enqueue(requestTokenResponse());
+    slow.start();
+
+    OAuth1ProviderDescriptor descriptor = OAuth1ProviderDescriptor.of("slow",
+        slow.url("/request_token").toString(), slow.url("/authenticate").toString(),
+        slow.url("/access_token").toString(), HmacSha1OAuthHttpRequestSigner.INSTANCE);
+    long offsetMillis =
+        DefaultOAuthHttpRequestAuthorizer.INSTANCE.getClockSkewEstimator().getOffsetMillis();
+    try (OAuth1ProviderResource unit = new OAuth1ProviderResource("http://localhost:8080",
+        descriptor, OAuthConsumer.of("slow", "consumerKey", "consumerSecret"),
+        mock(TokenStore.class), mock(AuthenticatedHandler.class),
+        DefaultOAuthHttpRequestAuthorizer.INSTANCE)) {
+      assertThat(unit.getClockSkewEstimator().isPresent(), is(false));
+      try {
+        unit.authenticate();
+        throw new AssertionError("expected failure");
+      } catch (WebApplicationException e) {
+        // Good
+      }
+      assertThat(slow.getRequestCount(), is(1));
+      assertThat(
+          DefaultOAuthHttpRequestAuthorizer.INSTANCE.getClockSkewEstimator().getOffsetMillis(),
+          is(offsetMillis));
+    }
+  }
+
+  /**
+   * A client over its rate limit must get a 429 without reaching the provider, even if it forges
+   * X-Forwarded-For, while other clients are unaffected
+   */
+  @Test
+  public void rateLimitTest() throws Exception {
+    for (int i = 0; i < 3; i++)
+      slow.enqueue(requestTokenResponse());
+    slow.start();
+
+    OAuth1ProviderDescriptor descriptor = OAuth1ProviderDescriptor
+        .of("slow", slow.url("/request_token").toString(), slow.url("/authenticate").toString(),
+            slow.url("/access_token").toString(), HmacSha1OAuthHttpRequestSigner.INSTANCE)
+        .withClientRateLimitPolicy(RateLimitPolicy.of(1.0 / 60.0, 2));
+
+    // The client makes up a new first address every time, but our proxy appends the real one
+    HttpHeaders alpha = mock(HttpHeaders.class);
+    when(alpha.getHeaderString("X-Forwarded-For")).thenReturn("1.1.1.1, 10.0.0.1",
+        "2.2.2.2, 10.0.0.1", "3.3.3.3,10.0.0.1");
+    HttpHeaders bravo = mock(HttpHeaders.class);
+    when(bravo.getHeaderString("X-Real-IP")).thenReturn("10.0.0.2");
+
+    try (OAuth1ProviderResource unit = new OAuth1ProviderResource("http://localhost:8080",
+        descriptor, OAuthConsumer.of("slow", "consumerKey", "consumerSecret"),
+        mock(TokenStore.class), mock(AuthenticatedHandler.class))) {
+      assertThat(unit.authenticate(alpha).getStatus(), is(307));
+      assertThat(unit.authenticate(alpha).getStatus(), is(307));
+      try {
+        unit.authenticate(alpha);
+        throw new AssertionError("expected rate limit");
+      } catch (WebApplicationException e) {
+        assertThat(e.getResponse().getStatus(), is(429));
+        assertThat(e.getResponse().getHeaderString("Retry-After"), is("60"));
+      }
+      assertThat(unit.authenticate(bravo).getStatus(), is(307));
+      assertThat(slow.getRequestCount(), is(3));
+    }
+  }
+
+  /**
+   * Clients that reach us without a proxy cannot be told apart, so they must share one limit
+   * instead of skipping it
+   */
+  @Test
+  public void anonymousRateLimitTest() throws Exception {
+    for (int i = 0; i < 2; i++)
+      slow.enqueue(requestTokenResponse());
+    slow.start();
+
+    OAuth1ProviderDescriptor descriptor = OAuth1ProviderDescriptor
+        .of("slow", slow.url("/request_token").toString(), slow.url("/authenticate").toString(),
+            slow.url("/access_token").toString(), HmacSha1OAuthHttpRequestSigner.INSTANCE)
+        .withClientRateLimitPolicy(RateLimitPolicy.of(1.0 / 60.0, 2));
+
+    try (OAuth1ProviderResource unit = new OAuth1ProviderResource("http://localhost:8080",
+        descriptor, OAuthConsumer.of("slow", "consumerKey", "consumerSecret"),
+        mock(TokenStore.class), mock(AuthenticatedHandler.class))) {
+      assertThat(unit.authenticate(mock(HttpHeaders.class)).getStatus(), is(307));
+      assertThat(unit.authenticate(mock(HttpHeaders.class)).getStatus(), is(307));
+      try {
+        unit.authenticate(mock(HttpHeaders.class));
+        throw new AssertionError("expected rate limit");
+      } catch (WebApplicationException e) {
+        assertThat(e.getResponse().getStatus(), is(429));
+      }
+      assertThat(slow.getRequestCount(), is(2));
+    }
+  }
+
+  /**
+   * Once the provider says its quota is gone, requests must fail fast without reaching it
+   */
+  @Test
+  public void quotaTest() throws Exception {
+    long reset = System.currentTimeMillis() / 1000L + 600L;
+    slow.enqueue(requestTokenResponse().setHeader("x-rate-limit-limit", "15")
+        .setHeader("x-rate-limit-remaining", "0")
+        .setHeader("x-rate-limit-reset", Long.toString(reset)));
+    slow.start();
+
+    try (OAuth1ProviderResource unit = newProvider("slow", slow, 1)) {
+      assertThat(unit.authenticate().getStatus(), is(307));
+      try {
+        unit.authenticate();
+        throw new AssertionError("expected exhausted quota");
+      } catch (ServiceUnavailableException e) {
+        long retryAfter = Long.parseLong(e.getResponse().getHeaderString("Retry-After"));
+        assertThat(retryAfter > 500L && retryAfter <= 600L, is(true));
+      }
+      assertThat(slow.getRequestCount(), is(1));
+      assertThat(unit.getCircuitBreaker().getState(), is(CircuitBreaker.State.CLOSED));
+    }
+  }
+
+  /**
+   * A request waiting for its turn under the quota must not hold a concurrency permit
+   */
+  @Test
+  public void pacingTest() throws Exception {
+    slow.enqueue(requestTokenResponse());
+    slow.enqueue(requestTokenResponse());
+    slow.start();
+
+    try (OAuth1ProviderResource unit = newProvider("slow", slow, 1)) {
+      String endpoint = unit.getDescriptor().getRequestTokenUrl();
+      // Below the pacing threshold, with three requests left for the rest of the window
+      unit.getQuotaScheduler().observe(endpoint, 100L, 3L,
+          System.currentTimeMillis() / 1000L + 10L);
+
+      assertThat(unit.authenticate().getStatus(), is(307));
+
+      CompletableFuture<Response> paced = CompletableFuture.supplyAsync(() -> {
+        try {
+          return unit.authenticate();
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      });
+      while (unit.getQuotaScheduler().getRemaining(endpoint).getAsLong() != 1L)
+        Thread.sleep(10L);
+
+      assertThat(paced.isDone(), is(false));
+      assertThat(unit.getAvailableConcurrentRequests(), is(1));
+      assertThat(paced.get().getStatus(), is(307));
+      assertThat(slow.getRequestCount(), is(2));
+    }
+  }
+
+  /**
+   * Warm-up must reach every token endpoint over TLS, report each outcome, and leave a connection
+   * the first login reuses
+   */
+  @Test
+  public void warmUpTest() throws Exception {
+    HeldCertificate certificate = new HeldCertificate.Builder()
+        .addSubjectAlternativeName("localhost")
+        .addSubjectAlternativeName(InetAddress.getByName("localhost").getCanonicalHostName())
+        .build();
+    slow.useHttps(new HandshakeCertificates.Builder().heldCertificate(certificate).build()
+        .sslSocketFactory(), false);
+    slow.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_BAD_METHOD));
+    slow.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_BAD_METHOD));
+    slow.enqueue(requestTokenResponse());
+    slow.start();
+
+    final HttpClient client = HttpClient.newBuilder().sslContext(new HandshakeCertificates.Builder()
+        .addTrustedCertificate(certificate.certificate()).build().sslContext()).build();
+
+    OAuth1ProviderDescriptor descriptor = OAuth1ProviderDescriptor.of("slow",
+        slow.url("/request_token").toString(), slow.url("/authenticate").toString(),
+        slow.url("/access_token").toString(), HmacSha1OAuthHttpRequestSigner.INSTANCE);
+
+    try (OAuth1ProviderResource unit = new OAuth1ProviderResource("http://localhost:8080",
+        descriptor, OAuthConsumer.of("slow", "consumerKey", "consumerSecret"),
+        mock(TokenStore.class), mock(AuthenticatedHandler.class)) {
+      @Override
+      protected HttpClient newHttpClient() {
+        return client;
+      }
+    }) {
+      assertThat(unit.getWarmUpResults().isEmpty(), is(true));
+
+      List<WarmUpResult> results = unit.warmUp();
+      assertThat(results.size(), is(2));
+      for (WarmUpResult result : results) {
+        assertThat(result.isSuccess(), is(true));
+        assertThat(result.getStatusCode(), is(HttpURLConnection.HTTP_BAD_METHOD));
+      }
+      assertThat(unit.getWarmUpResults(), is(results));
+
+      assertThat(unit.authenticate().getStatus(), is(307));
+
+      assertThat(slow.takeRequest().getMethod(), is("HEAD"));
+      assertThat(slow.takeRequest().getMethod(), is("HEAD"));
+      RecordedRequest login = slow.takeRequest();
+      assertThat(login.getMethod(), is("POST"));
+      assertThat(login.getSequenceNumber() > 0, is(true));
+    }
+  }
+
+  /**
+   * Warm-up must report, not throw, when an endpoint cannot be reached
+   */
+  @Test
+  public void warmUpFailureTest() throws Exception {
+    slow.start();
+    String url = slow.url("/request_token").toString();
+    slow.shutdown();
+
+    OAuth1ProviderDescriptor descriptor = OAuth1ProviderDescriptor.of("slow", url, url, url,
+        HmacSha1OAuthHttpRequestSigner.INSTANCE);
+
+    try (OAuth1ProviderResource unit = new OAuth1ProviderResource("http://localhost:8080",
+        descriptor, OAuthConsumer.of("slow", "consumerKey", "consumerSecret"),
+        mock(TokenStore.class), mock(AuthenticatedHandler.class))) {
+      List<WarmUpResult> results = unit.warmUp();
+      assertThat(results.size(), is(1));
+      assertThat(results.get(0).isSuccess(), is(false));
+      assertThat(results.get(0).getError().isPresent(), is(true));
+    }
+  }
+
+  private static MockResponse requestTokenResponse() {
+    return new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK)
+        .setBody(String.format("%s&%s", Parameter.of(OAuth.OAUTH_TOKEN_NAME, "token"),
+            Parameter.of(OAuth.OAUTH_TOKEN_SECRET_NAME, "secret")));
+  }
+
+  private static OAuth1ProviderResource newProvider(String name, MockWebServer server,
+      int maxConcurrentRequests) {
+    OAuth1ProviderDescriptor descriptor = OAuth1ProviderDescriptor
+        .of(name, server.url("/request_token").toString(), server.url("/authenticate").toString(),
+            server.url("/access_token").toString(), HmacSha1OAuthHttpRequestSigner.INSTANCE)
+        .withMaxConcurrentRequests(maxConcurrentRequests);
+    return new OAuth1ProviderResource("http://localhost:8080", descriptor,
+        OAuthConsumer.of(name, "consumerKey", "consumerSecret"), mock(TokenStore.class),
+        mock(AuthenticatedHandler.class));
+  }
+}
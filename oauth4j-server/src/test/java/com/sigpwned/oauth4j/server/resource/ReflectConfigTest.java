@@ -0,0 +1,56 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.resource;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+public class ReflectConfigTest {
+  public static final String REFLECT_CONFIG =
+      "/META-INF/native-image/com.sigpwned/oauth4j-server/reflect-config.json";
+
+  /**
+   * The native image metadata must name real classes, and must cover every resource Jersey will
+   * instantiate reflectively
+   */
+  @Test
+  public void test() throws Exception {
+    String json;
+    try (InputStream in = ReflectConfigTest.class.getResourceAsStream(REFLECT_CONFIG)) {
+      json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    Set<String> names = new HashSet<>();
+    Matcher m = Pattern.compile("\"name\"\\s*:\\s*\"([^\"]+)\"").matcher(json);
+    while (m.find())
+      names.add(Class.forName(m.group(1)).getName());
+
+    assertThat(names.contains(OAuth1ProviderResource.class.getName()), is(true));
+    assertThat(names.contains(OAuth1ProvidersResource.class.getName()), is(true));
+    assertThat(names.contains(TwitterOAuth1Resource.class.getName()), is(true));
+  }
+}
@@ -0,0 +1,384 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.resource;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assume.assumeTrue;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.Response;
+import org.glassfish.jersey.internal.inject.AbstractBinder;
+import org.glassfish.jersey.jdkhttp.JdkHttpServerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.authorizer.DefaultOAuthHttpRequestAuthorizer;
+import com.sigpwned.oauth4j.core.util.OAuth;
+import com.sigpwned.oauth4j.core.util.Parameter;
+import com.sigpwned.oauth4j.server.AuthenticatedHandler;
+import com.sigpwned.oauth4j.server.OAuth1ProviderDescriptor;
+import com.sigpwned.oauth4j.server.TokenStore;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Drives many concurrent authenticate and callback cycles through a {@link TwitterOAuth1Resource}
+ * running in an embedded Jersey container, against a local stand-in for Twitter's token endpoints,
+ * and prints throughput, latency percentiles, and thread and connection usage. Use it to size a
+ * login tier, or to check a change to the resource under load.
+ *
+ * The harness is skipped unless the oauth4j.loadTest system property is true, e.g.:
+ *
+ * <pre>
+ * mvn test -Dtest=TwitterOAuth1ResourceLoadTest -Doauth4j.loadTest=true \
+ *     -Doauth4j.loadTest.cycles=20000 -Doauth4j.loadTest.concurrency=500
+ * </pre>
+ *
+ * The other properties, with their defaults, are oauth4j.loadTest.cycles (5000),
+ * oauth4j.loadTest.concurrency (200), oauth4j.loadTest.serverThreads (64),
+ * oauth4j.loadTest.latencyMillis (50), oauth4j.loadTest.errorRate (0.0), and
+ * oauth4j.loadTest.clients (250). The latency and error rate apply to every response from the
+ * stand-in provider.
+ *
+ * The resource is registered by class, with the same named bindings an application provides, so
+ * the container creates and closes it as it would in production. Only the provider's URLs differ.
+ *
+ * Cycles come from a fixed pool of client addresses, each behind a random forged X-Forwarded-For
+ * entry, as a real proxy would append them. With the defaults, each client tries to log in 20
+ * times, more than the per-client burst, so the rate limit turns some away. Rate-limited, shed, and
+ * failed requests are counted by status rather than failing the harness. Set
+ * oauth4j.loadTest.clients to the number of cycles to keep every client under its limit.
+ */
+public class TwitterOAuth1ResourceLoadTest {
+  public static final int CYCLES = Integer.getInteger("oauth4j.loadTest.cycles", 5000);
+
+  public static final int CONCURRENCY = Integer.getInteger("oauth4j.loadTest.concurrency", 200);
+
+  public static final int SERVER_THREADS =
+      Integer.getInteger("oauth4j.loadTest.serverThreads", 64);
+
+  public static final long LATENCY_MILLIS = Long.getLong("oauth4j.loadTest.latencyMillis", 50L);
+
+  public static final double ERROR_RATE =
+      Double.parseDouble(System.getProperty("oauth4j.loadTest.errorRate", "0.0"));
+
+  public static final int CLIENTS = Integer.getInteger("oauth4j.loadTest.clients", 250);
+
+  public static final String REQUEST_TOKEN_PATH = "/oauth/request_token";
+
+  public static final String AUTHENTICATE_PATH = "/oauth/authenticate";
+
+  public static final String ACCESS_TOKEN_PATH = "/oauth/access_token";
+
+  public static final String CONSUMER_KEY = "xvz1evFS4wEEPTGEFPHBog";
+
+  public static final String CONSUMER_SECRET = "kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw";
+
+  /**
+   * The Twitter resource as an application registers it, but pointed at the stand-in provider. The
+   * scope and path are not inherited, so they are repeated here.
+   */
+  @Singleton
+  @Path(TwitterOAuth1Resource.BASE_PATH)
+  public static class StandInTwitterOAuth1Resource extends TwitterOAuth1Resource {
+    @Inject
+    public StandInTwitterOAuth1Resource(@Named("oauth4jBaseUrl") String baseUrl,
+        @Named("oauth4jTwitterConsumerKey") String consumerKey,
+        @Named("oauth4jTwitterConsumerSecret") String consumerSecret, TokenStore store,
+        AuthenticatedHandler handler, @Named("oauth4jLoadTestProviderUrl") String providerUrl) {
+      super(baseUrl, consumerKey, consumerSecret, store, handler,
+          new DefaultOAuthHttpRequestAuthorizer(OAuth1ProviderDescriptor.TWITTER.getSigner(),
+              OAuth.ONE_DOT_OH_OAUTH_VERSION_VALUE),
+          providerUrl + REQUEST_TOKEN_PATH, providerUrl + AUTHENTICATE_PATH,
+          providerUrl + ACCESS_TOKEN_PATH);
+    }
+  }
+
+  /**
+   * Stands in for Twitter's token endpoints. Hands out a fresh request token per call, so every
+   * cycle has its own token secret to look up on callback.
+   */
+  public static class ProviderDispatcher extends Dispatcher {
+    private final AtomicLong tokens = new AtomicLong();
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+      requests.incrementAndGet();
+      if (request.getSequenceNumber() == 0)
+        connections.incrementAndGet();
+
+      MockResponse response;
+      if (ThreadLocalRandom.current().nextDouble() < ERROR_RATE) {
+        response = new MockResponse().setResponseCode(HttpURLConnection.HTTP_UNAVAILABLE);
+      } else if (request.getPath().startsWith(REQUEST_TOKEN_PATH)) {
+        long token = tokens.incrementAndGet();
+        response = new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK)
+            .setBody(String.format("%s&%s", Parameter.of(OAuth.OAUTH_TOKEN_NAME, "rt" + token),
+                Parameter.of(OAuth.OAUTH_TOKEN_SECRET_NAME, "rts" + token)));
+      } else {
+        response = new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK)
+            .setBody(String.format("%s&%s", Parameter.of(OAuth.OAUTH_TOKEN_NAME, "at"),
+                Parameter.of(OAuth.OAUTH_TOKEN_SECRET_NAME, "ats")));
+      }
+
+      return response.setHeadersDelay(LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Keeps token secrets in memory, and queues each new request token for the simulated browser to
+   * return with on callback
+   */
+  public static class QueueingTokenStore implements TokenStore {
+    private final Map<String, String> secrets = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<String> issued = new LinkedBlockingQueue<>();
+
+    @Override
+    public void putTokenSecret(String token, String tokenSecret) {
+      secrets.put(token, tokenSecret);
+      issued.add(token);
+    }
+
+    @Override
+    public Optional<String> getTokenSecret(String token) {
+      return Optional.ofNullable(secrets.remove(token));
+    }
+  }
+
+  public MockWebServer provider;
+
+  public ProviderDispatcher dispatcher;
+
+  public ExecutorService serverExecutor;
+
+  public HttpServer server;
+
+  @Before
+  public void setupTwitterOAuth1ResourceLoadTest() throws IOException {
+    assumeTrue(Boolean.getBoolean("oauth4j.loadTest"));
+
+    dispatcher = new ProviderDispatcher();
+    provider = new MockWebServer();
+    provider.setDispatcher(dispatcher);
+    provider.start();
+  }
+
+  @After
+  public void cleanupTwitterOAuth1ResourceLoadTest() throws IOException {
+    // Stopping the server closes the resource
+    if (server != null)
+      server.stop(0);
+    if (serverExecutor != null)
+      serverExecutor.shutdownNow();
+    if (provider != null)
+      provider.shutdown();
+  }
+
+  @Test
+  public void loadTest() throws Exception {
+    QueueingTokenStore store = new QueueingTokenStore();
+
+    // The resource needs its own base URL up front, so pick a free port
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    final String baseUrl = "http://localhost:" + port;
+    final String providerUrl = provider.url("").toString().replaceAll("/$", "");
+    final String authenticateUrl = String.format("%s/%s/%s", baseUrl,
+        TwitterOAuth1Resource.BASE_PATH, OAuth1ProviderResource.AUTHENTICATE);
+    final String callbackUrl = String.format("%s/%s/%s", baseUrl,
+        TwitterOAuth1Resource.BASE_PATH, OAuth1ProviderResource.CALLBACK);
+
+    ResourceConfig config = new ResourceConfig(StandInTwitterOAuth1Resource.class)
+        .register(new AbstractBinder() {
+          @Override
+          protected void configure() {
+            bind(baseUrl).named("oauth4jBaseUrl").to(String.class);
+            bind(CONSUMER_KEY).named("oauth4jTwitterConsumerKey").to(String.class);
+            bind(CONSUMER_SECRET).named("oauth4jTwitterConsumerSecret").to(String.class);
+            bind(providerUrl).named("oauth4jLoadTestProviderUrl").to(String.class);
+            bind(store).to(TokenStore.class);
+            bind((AuthenticatedHandler) (accessToken, accessTokenSecret) -> Response.ok().build())
+                .to(AuthenticatedHandler.class);
+          }
+        });
+
+    server = JdkHttpServerFactory.createHttpServer(URI.create(baseUrl + "/"), config, false);
+    serverExecutor = Executors.newFixedThreadPool(SERVER_THREADS);
+    server.setExecutor(serverExecutor);
+    server.start();
+
+    HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+        .followRedirects(HttpClient.Redirect.NEVER).build();
+
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    threads.resetPeakThreadCount();
+
+    long[] authenticateNanos = new long[CYCLES];
+    long[] callbackNanos = new long[CYCLES];
+    long[] cycleNanos = new long[CYCLES];
+    Map<String, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+
+    AtomicInteger retries = new AtomicInteger();
+    Semaphore users = new Semaphore(CONCURRENCY);
+    CompletableFuture<?>[] cycles = new CompletableFuture<?>[CYCLES];
+    long start = System.nanoTime();
+    for (int i = 0; i < CYCLES; i++) {
+      users.acquire();
+      final int cycle = i;
+      final long cycleStart = System.nanoTime();
+      final int address = cycle % CLIENTS;
+      final String forwardedFor = String.format("%d.%d.%d.%d, 10.%d.%d.%d",
+          ThreadLocalRandom.current().nextInt(1, 224), ThreadLocalRandom.current().nextInt(256),
+          ThreadLocalRandom.current().nextInt(256), ThreadLocalRandom.current().nextInt(256),
+          address >>> 16 & 0xFF, address >>> 8 & 0xFF, address & 0xFF);
+      HttpRequest authenticate = HttpRequest.newBuilder(URI.create(authenticateUrl))
+          .header("X-Forwarded-For", forwardedFor).timeout(Duration.ofSeconds(30L)).GET().build();
+      cycles[i] = send(client, authenticate, retries).thenCompose(r -> {
+        long callbackStart = System.nanoTime();
+        authenticateNanos[cycle] = callbackStart - cycleStart;
+        if (r.statusCode() != 307) {
+          cycleNanos[cycle] = callbackStart - cycleStart;
+          return CompletableFuture.completedFuture("authenticate " + r.statusCode());
+        }
+
+        // Every completed authenticate queued a token before it responded, so there is one
+        String token = store.issued.poll();
+        HttpRequest callback = HttpRequest
+            .newBuilder(URI.create(callbackUrl + "?" + OAuth.OAUTH_TOKEN_NAME + "="
+                + token + "&" + OAuth.OAUTH_VERIFIER_NAME + "=verifier"))
+            .timeout(Duration.ofSeconds(30L)).GET().build();
+        return send(client, callback, retries).thenApply(HttpResponse::statusCode)
+            .thenApply(status -> {
+              long end = System.nanoTime();
+              callbackNanos[cycle] = end - callbackStart;
+              cycleNanos[cycle] = end - cycleStart;
+              return "callback " + status;
+            });
+      }).exceptionally(e -> {
+        cycleNanos[cycle] = System.nanoTime() - cycleStart;
+        Throwable cause =
+            e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return "error " + cause.getClass().getSimpleName();
+      }).thenAccept(outcome -> {
+        outcomes.computeIfAbsent(outcome, k -> new AtomicInteger()).incrementAndGet();
+        users.release();
+      });
+    }
+    CompletableFuture.allOf(cycles).get(10L, TimeUnit.MINUTES);
+    long elapsed = System.nanoTime() - start;
+
+    int completed = outcomes.getOrDefault("callback 200", new AtomicInteger()).get();
+
+    System.out.printf("%d cycles, %d clients, %d concurrent, %d server threads,"
+        + " %dms provider latency, %.1f%% provider errors%n", CYCLES, CLIENTS, CONCURRENCY,
+        SERVER_THREADS, LATENCY_MILLIS, 100.0 * ERROR_RATE);
+    System.out.printf("elapsed %.2fs, %.1f cycles/s, %.1f logins/s%n", elapsed / 1e9,
+        CYCLES / (elapsed / 1e9), completed / (elapsed / 1e9));
+    for (Map.Entry<String, AtomicInteger> e : new TreeMap<>(outcomes).entrySet())
+      System.out.printf("  %-24s %d%n", e.getKey(), e.getValue().get());
+    printPercentiles("authenticate", authenticateNanos);
+    printPercentiles("callback", callbackNanos);
+    printPercentiles("cycle", cycleNanos);
+    System.out.printf("peak JVM threads %d, provider connections %d, provider requests %d,"
+        + " driver retries %d%n", threads.getPeakThreadCount(), dispatcher.connections.get(),
+        dispatcher.requests.get(), retries.get());
+
+    int total = outcomes.values().stream().mapToInt(AtomicInteger::get).sum();
+    assertThat(total, is(CYCLES));
+  }
+
+  /**
+   * Sends the given request, and retries it once if the embedded server had already closed the
+   * pooled connection it went out on. That is an artifact of the JDK's HTTP server, not something
+   * the resource did, so it is counted separately.
+   */
+  private static CompletableFuture<HttpResponse<Void>> send(HttpClient client,
+      HttpRequest request, AtomicInteger retries) {
+    return client.sendAsync(request, BodyHandlers.discarding()).handle((r, e) -> {
+      if (e == null)
+        return CompletableFuture.completedFuture(r);
+      Throwable cause =
+          e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+      if (!(cause instanceof IOException))
+        return CompletableFuture.<HttpResponse<Void>>failedFuture(cause);
+      retries.incrementAndGet();
+      return client.sendAsync(request, BodyHandlers.discarding());
+    }).thenCompose(f -> f);
+  }
+
+  /**
+   * Prints latency percentiles in milliseconds, ignoring cycles that never reached the phase
+   */
+  private static void printPercentiles(String phase, long[] nanos) {
+    long[] sorted = Arrays.stream(nanos).filter(n -> n > 0L).sorted().toArray();
+    if (sorted.length == 0) {
+      System.out.printf("%-12s no samples%n", phase);
+      return;
+    }
+    System.out.printf("%-12s p50 %7.1fms  p90 %7.1fms  p99 %7.1fms  max %7.1fms  (n=%d)%n", phase,
+        percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+        sorted[sorted.length - 1] / 1e6, sorted.length);
+  }
+
+  private static double percentile(long[] sorted, double p) {
+    return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+  }
+}
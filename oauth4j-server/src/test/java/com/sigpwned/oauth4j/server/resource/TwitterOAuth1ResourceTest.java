@@ -28,14 +28,29 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.ws.rs.InternalServerErrorException;
 import javax.ws.rs.NotFoundException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import org.glassfish.jersey.internal.inject.AbstractBinder;
+import org.glassfish.jersey.jdkhttp.JdkHttpServerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -44,6 +59,7 @@ import com.sigpwned.oauth4j.core.util.OAuth;
 import com.sigpwned.oauth4j.core.util.Parameter;
 import com.sigpwned.oauth4j.server.AuthenticatedHandler;
 import com.sigpwned.oauth4j.server.TokenStore;
+import com.sun.net.httpserver.HttpServer;
 import okhttp3.HttpUrl;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
@@ -390,4 +406,61 @@ public class TwitterOAuth1ResourceTest {
 
     unit.callback(oauthToken, oauthTokenVerifier);
   }
+
+  /**
+   * Registered as a class, as the README describes, the container must serve every request from
+   * one instance, so its client, limits, and breaker are shared, and close it at shutdown
+   */
+  @Test
+  public void containerTest() throws Exception {
+    final TokenStore store = mock(TokenStore.class);
+    when(store.getTokenSecret("unknown")).thenReturn(Optional.empty());
+
+    final List<Object> resources = new CopyOnWriteArrayList<>();
+    final ResourceConfig config = new ResourceConfig(TwitterOAuth1Resource.class)
+        .register(new AbstractBinder() {
+          @Override
+          protected void configure() {
+            bind("http://localhost:8080").named("oauth4jBaseUrl").to(String.class);
+            bind("consumerKey").named("oauth4jTwitterConsumerKey").to(String.class);
+            bind("consumerSecret").named("oauth4jTwitterConsumerSecret").to(String.class);
+            bind(store).to(TokenStore.class);
+            bind(mock(AuthenticatedHandler.class)).to(AuthenticatedHandler.class);
+          }
+        }).register(new ContainerResponseFilter() {
+          @Context
+          private UriInfo uriInfo;
+
+          @Override
+          public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+            resources.addAll(uriInfo.getMatchedResources());
+          }
+        });
+
+    final int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    final HttpServer container =
+        JdkHttpServerFactory.createHttpServer(URI.create("http://localhost:" + port + "/"), config);
+    try {
+      final HttpClient client = HttpClient.newHttpClient();
+      for (int i = 0; i < 2; i++) {
+        URI callback = URI.create("http://localhost:" + port + "/" + TwitterOAuth1Resource.BASE_PATH
+            + "/" + OAuth1ProviderResource.CALLBACK + "?oauth_token=unknown&oauth_verifier=x");
+        HttpResponse<Void> response =
+            client.send(HttpRequest.newBuilder(callback).build(), BodyHandlers.discarding());
+        assertThat(response.statusCode(), is(HttpURLConnection.HTTP_NOT_FOUND));
+      }
+    } finally {
+      container.stop(0);
+    }
+
+    assertThat(resources.size(), is(2));
+    assertThat(resources.get(0) == resources.get(1), is(true));
+
+    final TwitterOAuth1Resource resource = (TwitterOAuth1Resource) resources.get(0);
+    assertThat(((ExecutorService) resource.newHttpClient().executor().get()).isShutdown(),
+        is(true));
+  }
 }
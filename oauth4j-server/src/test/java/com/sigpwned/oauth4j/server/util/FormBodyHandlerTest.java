@@ -0,0 +1,175 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.model.OAuthParameters;
+import com.sigpwned.oauth4j.core.model.OAuthTokenResponse;
+
+public class FormBodyHandlerTest {
+  /**
+   * Fields and percent escapes split across buffers must parse the same as a single buffer
+   */
+  @Test
+  public void splitTest() throws Exception {
+    String body = "oauth_token=abc%2Bdef&oauth_token_secret=s%C3%A9cret&flag&name=a+b&user_id=42&";
+    for (int split = 0; split <= body.length(); split++) {
+      BodySubscriber<OAuthParameters> unit = FormBodyHandler.INSTANCE.apply(info(null));
+      Flow.Subscription subscription = mock(Flow.Subscription.class);
+      unit.onSubscribe(subscription);
+      unit.onNext(List.of(buffer(body.substring(0, split))));
+      unit.onNext(List.of(buffer(body.substring(split))));
+      unit.onComplete();
+
+      assertThat(unit.getBody().toCompletableFuture().get(), is(OAuthParameters.of("oauth_token",
+          "abc+def", "oauth_token_secret", "s\u00E9cret", "flag", "", "name", "a b", "user_id",
+          "42")));
+    }
+  }
+
+  @Test
+  public void tokenResponseTest() throws Exception {
+    BodySubscriber<OAuthTokenResponse> unit = FormBodyHandler.ofTokenResponse().apply(info(null));
+    unit.onSubscribe(mock(Flow.Subscription.class));
+    unit.onNext(List.of(buffer("user_id=42&oauth_token=token&oauth_token_secret=secret")));
+    unit.onComplete();
+
+    OAuthTokenResponse response = unit.getBody().toCompletableFuture().get();
+    assertThat(response.getToken(), is(Optional.of("token")));
+    assertThat(response.getTokenSecret(), is(Optional.of("secret")));
+    assertThat(response.getExtraParameters(), is(OAuthParameters.of("user_id", "42")));
+    assertThat(response.getExtraParameter("user_id"), is(Optional.of("42")));
+  }
+
+  /**
+   * A body must be rejected as soon as it passes the limit, and the rest never read
+   */
+  @Test
+  public void tooLongTest() throws Exception {
+    BodySubscriber<OAuthParameters> unit = new FormBodyHandler(16).apply(info(null));
+    Flow.Subscription subscription = mock(Flow.Subscription.class);
+    unit.onSubscribe(subscription);
+    unit.onNext(List.of(buffer("a=1&b=2&c=3&")));
+    unit.onNext(List.of(buffer("d=4&e=5&f=6&")));
+    verify(subscription).cancel();
+    try {
+      unit.getBody().toCompletableFuture().get();
+      throw new AssertionError("expected failure");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause() instanceof IOException, is(true));
+    }
+  }
+
+  /**
+   * A body declared too long must be rejected without reading any of it
+   */
+  @Test
+  public void declaredTooLongTest() throws Exception {
+    BodySubscriber<OAuthParameters> unit = new FormBodyHandler(16).apply(info("1000000"));
+    Flow.Subscription subscription = mock(Flow.Subscription.class);
+    unit.onSubscribe(subscription);
+    verify(subscription).cancel();
+    assertThat(unit.getBody().toCompletableFuture().isCompletedExceptionally(), is(true));
+  }
+
+  @Test
+  public void malformedTest() throws Exception {
+    BodySubscriber<OAuthParameters> unit = FormBodyHandler.INSTANCE.apply(info(null));
+    unit.onSubscribe(mock(Flow.Subscription.class));
+    unit.onNext(List.of(buffer("a=%G1")));
+    assertThat(unit.getBody().toCompletableFuture().isCompletedExceptionally(), is(true));
+  }
+
+  /**
+   * An error body must still be parsed, so problems like timestamp_refused are seen
+   */
+  @Test
+  public void errorBodyTest() throws Exception {
+    BodySubscriber<OAuthParameters> unit =
+        FormBodyHandler.INSTANCE.apply(info(HttpURLConnection.HTTP_UNAUTHORIZED, null));
+    unit.onSubscribe(mock(Flow.Subscription.class));
+    unit.onNext(List.of(buffer("oauth_problem=timestamp_refused")));
+    unit.onComplete();
+    assertThat(unit.getBody().toCompletableFuture().get(),
+        is(OAuthParameters.of("oauth_problem", "timestamp_refused")));
+  }
+
+  /**
+   * An error page that is not form-encoded must parse to nothing instead of failing, so the caller
+   * still sees the status
+   */
+  @Test
+  public void malformedErrorBodyTest() throws Exception {
+    BodySubscriber<OAuthParameters> unit =
+        FormBodyHandler.INSTANCE.apply(info(HttpURLConnection.HTTP_BAD_GATEWAY, null));
+    Flow.Subscription subscription = mock(Flow.Subscription.class);
+    unit.onSubscribe(subscription);
+    unit.onNext(List.of(buffer("<p>100% broken</p>")));
+    verify(subscription).cancel();
+    assertThat(unit.getBody().toCompletableFuture().get(), is(OAuthParameters.EMPTY));
+  }
+
+  /**
+   * An error page that is too long must parse to nothing without being read
+   */
+  @Test
+  public void tooLongErrorBodyTest() throws Exception {
+    BodySubscriber<OAuthParameters> unit =
+        new FormBodyHandler(16).apply(info(HttpURLConnection.HTTP_UNAVAILABLE, "1000000"));
+    Flow.Subscription subscription = mock(Flow.Subscription.class);
+    unit.onSubscribe(subscription);
+    verify(subscription).cancel();
+    assertThat(unit.getBody().toCompletableFuture().get(), is(OAuthParameters.EMPTY));
+  }
+
+  private static ResponseInfo info(String contentLength) {
+    return info(HttpURLConnection.HTTP_OK, contentLength);
+  }
+
+  private static ResponseInfo info(int statusCode, String contentLength) {
+    ResponseInfo result = mock(ResponseInfo.class);
+    when(result.statusCode()).thenReturn(statusCode);
+    when(result.headers()).thenReturn(HttpHeaders.of(
+        contentLength == null ? Map.of() : Map.of("Content-Length", List.of(contentLength)),
+        (k, v) -> true));
+    return result;
+  }
+
+  private static ByteBuffer buffer(String s) {
+    return ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII));
+  }
+}
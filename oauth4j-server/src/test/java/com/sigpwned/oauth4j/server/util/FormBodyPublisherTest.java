@@ -0,0 +1,104 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.util;
+
+import static java.util.stream.Collectors.joining;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.model.OAuthFormParameter;
+import com.sigpwned.oauth4j.core.model.OAuthParameters;
+import com.sigpwned.oauth4j.core.util.Encodings;
+
+public class FormBodyPublisherTest {
+  public static final List<OAuthFormParameter> PARAMETERS =
+      List.of(OAuthFormParameter.of("status", "Hello Ladies + Gentlemen, a signed OAuth request!"),
+          OAuthFormParameter.of("empty", ""), OAuthFormParameter.of("caf\u00e9", "\u20ac100"),
+          OAuthFormParameter.of("emoji", "\ud83d\ude00\ud83d\ude00"),
+          OAuthFormParameter.of("broken", "\ud83d!"));
+
+  /**
+   * The published bytes must match the eagerly-encoded body exactly, however they are chunked
+   */
+  @Test
+  public void bodyTest() {
+    String expected = PARAMETERS.stream()
+        .map(p -> Encodings.urlencode(p.getKey()) + "="
+            + Encodings.urlencode(p.getValue()))
+        .collect(joining("&"));
+
+    for (int chunkSize = 12; chunkSize <= 64; chunkSize++) {
+      FormBodyPublisher publisher = new FormBodyPublisher(OAuthParameters.ofFormParameters(PARAMETERS), chunkSize);
+      assertThat(publisher.contentLength(), is((long) expected.length()));
+      assertThat(collect(publisher), is(expected));
+    }
+
+    assertThat(collect(FormBodyPublisher.of(PARAMETERS)), is(expected));
+  }
+
+  @Test
+  public void emptyTest() {
+    FormBodyPublisher publisher = FormBodyPublisher.of(OAuthParameters.EMPTY);
+    assertThat(publisher.contentLength(), is(0L));
+    assertThat(collect(publisher), is(""));
+  }
+
+  private static String collect(FormBodyPublisher publisher) {
+    final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    final List<Throwable> errors = new ArrayList<>();
+    final boolean[] complete = new boolean[1];
+    publisher.subscribe(new Flow.Subscriber<ByteBuffer>() {
+      private Flow.Subscription subscription;
+
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1L);
+      }
+
+      @Override
+      public void onNext(ByteBuffer item) {
+        byte[] bytes = new byte[item.remaining()];
+        item.get(bytes);
+        result.write(bytes, 0, bytes.length);
+        subscription.request(1L);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        errors.add(throwable);
+      }
+
+      @Override
+      public void onComplete() {
+        complete[0] = true;
+      }
+    });
+    assertThat(errors.isEmpty(), is(true));
+    assertThat(complete[0], is(true));
+    return new String(result.toByteArray(), StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,104 @@
+/*-
+ * =================================LICENSE_START==================================
+ * oauth4j-server
+ * ====================================SECTION=====================================
+ * Copyright (C) 2022 Andy Boothe
+ * ====================================SECTION=====================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.oauth4j.server.util;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.net.http.HttpRequest;
+import org.junit.Test;
+import com.sigpwned.oauth4j.core.model.OAuthFormParameter;
+import com.sigpwned.oauth4j.core.model.OAuthHttpRequest;
+import com.sigpwned.oauth4j.core.model.OAuthQueryParameter;
+import com.sigpwned.oauth4j.core.util.Encodings;
+
+public class HttpRequestsTest {
+  @Test
+  public void methodsTest() {
+    for (String method : new String[] {"GET", "DELETE", "HEAD"}) {
+      HttpRequest request = HttpRequests.prepare(OAuthHttpRequest.of(method.toLowerCase(),
+          "https://www.example.com/", emptyList(), emptyList(), emptyList()));
+      assertThat(request.method(), is(method));
+      assertThat(request.bodyPublisher().get().contentLength(), is(0L));
+    }
+
+    for (String method : new String[] {"POST", "PUT", "PATCH"}) {
+      HttpRequest request =
+          HttpRequests.prepare(OAuthHttpRequest.of(method, "https://www.example.com/",
+              emptyList(), emptyList(), singletonList(OAuthFormParameter.of("a", "b c"))));
+      assertThat(request.method(), is(method));
+      assertThat(request.bodyPublisher().get().contentLength(), is(7L));
+      assertThat(request.headers().firstValue("content-type").get(),
+          is(FormBodyPublisher.CONTENT_TYPE));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getWithFormParametersTest() {
+    HttpRequests.prepare(OAuthHttpRequest.of("GET", "https://www.example.com/", emptyList(),
+        emptyList(), singletonList(OAuthFormParameter.of("a", "b"))));
+  }
+
+  @Test
+  public void uriTest() {
+    OAuthHttpRequest request = OAuthHttpRequest.of("GET", "https://www.example.com/search",
+        singletonList(OAuthQueryParameter.of("q", "hello, world!")), emptyList(), emptyList());
+
+    assertThat(HttpRequests.uri(request).toString(),
+        is("https://www.example.com/search?q=hello%2C%20world%21"));
+  }
+
+  /**
+   * Requests to the same endpoint without query parameters must share one parsed URI
+   */
+  @Test
+  public void cachedUriTest() {
+    OAuthHttpRequest request = OAuthHttpRequest.of("POST", "https://www.example.com/token",
+        emptyList(), emptyList(), emptyList());
+
+    assertThat(HttpRequests.uri(request).toString(), is("https://www.example.com/token"));
+    assertThat(HttpRequests.uri(request), is(sameInstance(HttpRequests.uri(request))));
+  }
+
+  /**
+   * Requests with query parameters, like token requests, must reuse their endpoint's cached URI and
+   * prefix, and encode only their own parameters
+   */
+  @Test
+  public void cachedEndpointTest() {
+    final String url = "https://www.example.com/request_token";
+    final HttpRequests.Endpoint endpoint = HttpRequests.endpoint(url);
+
+    for (String callback : new String[] {"https://a.example.com/cb", "https://b.example.com/cb"}) {
+      OAuthHttpRequest request = OAuthHttpRequest.of("POST", url,
+          singletonList(OAuthQueryParameter.of("oauth_callback", callback)), emptyList(),
+          emptyList());
+      assertThat(HttpRequests.uri(request).toString(),
+          is(url + "?oauth_callback=" + Encodings.urlencode(callback)));
+      assertThat(HttpRequests.endpoint(url), is(sameInstance(endpoint)));
+    }
+    assertThat(endpoint.getPrefix(), is(url + "?"));
+
+    assertThat(HttpRequests.endpoint("https://www.example.com/search?a=b").getPrefix(),
+        is("https://www.example.com/search?a=b&"));
+  }
+}